@@ -19,6 +19,12 @@
 #
 JAVA_OPTS="$JAVA_OPTS -Dhazelcast.diagnostics.metric.distributed.datastructures=true"
 
+#
+# To evaluate the built-in equations in batches with the JDK Vector API, build
+# the app with 'mvn package -Pvector' (JDK 17+) and uncomment the following.
+#
+#JAVA_OPTS="$JAVA_OPTS --add-modules jdk.incubator.vector"
+
 #
 # Set Management Center Java options, i.e., -Dhazelcast.mc.forceLogoutOnMultipleLogin=true
 #
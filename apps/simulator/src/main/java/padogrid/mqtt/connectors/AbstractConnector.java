@@ -17,8 +17,13 @@ package padogrid.mqtt.connectors;
 
 import java.util.Properties;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import padogrid.mqtt.client.cluster.IHaMqttConnectorPublisher;
 import padogrid.mqtt.client.cluster.IHaMqttConnectorSubscriber;
+import padogrid.simulator.PayloadDecoder;
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
 
 /**
  * {@linkplain AbstractConnector} provides common fields and methods for MQTT
@@ -33,16 +38,29 @@ public abstract class AbstractConnector implements IHaMqttConnectorPublisher, IH
     protected boolean isPublisherEnabled = true;
     protected String topicRegex = DEFAULT_REGEX;
     protected String topicRegexReplacement = DEFAULT_REGEX_REPLACEMENT;
+    protected PayloadDecoder payloadDecoder;
+
+    private Logger logger = LogManager.getLogger(getClass());
 
     /**
-     * Initializes the connector by caching the passed-in arguments.
-     * @return Always true
+     * Initializes the connector by caching the passed-in arguments. The payload
+     * decoder is created from the "payloadFormat" and "avroSchema" properties.
+     * @return false if the payload decoder cannot be created due to an invalid
+     *         payload format or Avro schema, true otherwise
      */
     public boolean init(String pluginName, String description, Properties props, String... args) {
         this.connectorName = pluginName;
         this.description = description;
         String val = props.getProperty("publisherEnabled", "true");
         this.isPublisherEnabled = Boolean.parseBoolean(val);
+        val = props.getProperty("payloadFormat", "JSON").toUpperCase();
+        try {
+            this.payloadDecoder = new PayloadDecoder(PayloadFormat.valueOf(val), props.getProperty("avroSchema"));
+        } catch (IllegalArgumentException ex) {
+            logger.error(String.format("Invalid payload decoder [%s, payloadFormat=%s]. Connector not initialized. %s",
+                    pluginName, val, ex.getMessage()));
+            return false;
+        }
         return true;
     }
 
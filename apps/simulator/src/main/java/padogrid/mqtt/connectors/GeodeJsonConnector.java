@@ -16,9 +16,6 @@
 package padogrid.mqtt.connectors;
 
 import java.net.InetSocketAddress;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
@@ -33,9 +30,12 @@ import org.apache.geode.pdx.PdxSerializationException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.json.JSONObject;
 
 import padogrid.geode.util.GeodeUtil;
 import padogrid.mqtt.client.cluster.HaMqttClient;
+import padogrid.simulator.PdxPayloadWriter;
+import padogrid.simulator.TimestampCodec;
 
 /**
  * {@linkplain GeodeJsonConnector} writes JSON string representation to
@@ -43,15 +43,18 @@ import padogrid.mqtt.client.cluster.HaMqttClient;
  * are converted to Geode data structure names by replacing
  * all illegal characters including '/' to '_' (underscore).
  * <p>
- * JSON values are stored as follows.
+ * JSON values are stored in a JSON PDX instance as follows. JSON payloads are
+ * converted by {@linkplain JSONFormatter}, which also stores nested objects and
+ * arrays. A flat binary payload, i.e., numbers, strings and booleans only, is
+ * built directly from the decoded payload with all numbers as doubles. All
+ * other binary payloads are converted by {@linkplain JSONFormatter}.
  * <ul>
- * <li>number - double or long</li>
+ * <li>number - double, or int/long for JSON integers</li>
  * <li>string - string (If key is "time" then the value is assumed in the date
  * format of "yyyy-MM-dd'T'HH:mm:ss.SSSZ" and converted to Geode timestamp. If
  * the date format does not match then it is stored as string.)</li>
  * <li>boolean - boolean</li>
  * </ul>
- * All other types, i.e., arrays and nested JSON objects are ignored.
  * <p>
  * The following properties are supported.
  * <ul>
@@ -67,6 +70,10 @@ import padogrid.mqtt.client.cluster.HaMqttClient;
  * '\"/:)(+*%~]"</li>
  * <li>topic.regexReplacement - The string to be substituted for each match of
  * topic.regex. Default: "_"</li>
+ * <li>payloadFormat - Payload format of the MQTT messages, i.e., JSON, CBOR,
+ * MSGPACK or AVRO. Default: "JSON"</li>
+ * <li>avroSchema - Avro record schema in JSON. Required if payloadFormat is
+ * AVRO. The simulator prints the schema of each AVRO publisher.</li>
  * </ul>
  * <p>
  * 
@@ -87,7 +94,9 @@ public class GeodeJsonConnector extends AbstractConnector {
 
     @Override
     public boolean init(String pluginName, String description, Properties props, String... args) {
-        super.init(pluginName, description, props, args);
+        if (super.init(pluginName, description, props, args) == false) {
+            return false;
+        }
 
         clientCache = new ClientCacheFactory().create();
 
@@ -118,11 +127,23 @@ public class GeodeJsonConnector extends AbstractConnector {
      * Saves the specified payload to Geode.
      * 
      * @param topic   MQTT topic.
-     * @param payload MQTT payload in JSON string representation.
+     * @param payload MQTT payload in the payload format.
      */
     private void savePayload(String topic, byte[] payload) {
-        String jsonStr = new String(payload, StandardCharsets.UTF_8);
-        saveJson(topic, jsonStr);
+        PdxInstance pdxObj;
+        if (payloadDecoder.isJson()) {
+            // Parsed once by JSONFormatter
+            pdxObj = JSONFormatter.fromJSON(payload);
+        } else {
+            JSONObject json = payloadDecoder.decode(payload);
+            if (PdxPayloadWriter.isFlat(json)) {
+                pdxObj = PdxPayloadWriter.toPdxInstance(clientCache, json);
+            } else {
+                // Nested values and nulls
+                pdxObj = JSONFormatter.fromJSON(json.toString());
+            }
+        }
+        saveJson(topic, pdxObj);
     }
 
     /**
@@ -130,13 +151,12 @@ public class GeodeJsonConnector extends AbstractConnector {
      * constructed based on the specified topic by replacing unsupported characters
      * with '_' (underscore).
      * 
-     * @param topic   MQTT topic.
-     * @param jsonStr JSON string value.
+     * @param topic  MQTT topic.
+     * @param pdxObj JSON PDX instance.
      */
-    private void saveJson(String topic, String jsonStr) {
+    private void saveJson(String topic, PdxInstance pdxObj) {
         // Replace unsupported characters to '_'
         String dsName = renameTopic(topic);
-        PdxInstance pdxObj = JSONFormatter.fromJSON(jsonStr);
         switch (dsType) {
             case MAP:
             case REGION:
@@ -148,7 +168,7 @@ public class GeodeJsonConnector extends AbstractConnector {
                         break;
                     case TIME:
                         ConnectorArtifact artifact = getConnectorArtifact();
-                        key = artifact.simpleDateFormat.format(new Date());
+                        key = artifact.timestampCodec.format(System.currentTimeMillis());
                         break;
                     case UUID:
                         key = UUID.randomUUID().toString();
@@ -218,6 +238,6 @@ public class GeodeJsonConnector extends AbstractConnector {
     }
 
     class ConnectorArtifact {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        TimestampCodec timestampCodec = new TimestampCodec("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
     }
 }
\ No newline at end of file
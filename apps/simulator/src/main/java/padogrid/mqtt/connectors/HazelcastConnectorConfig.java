@@ -23,4 +23,8 @@ public class HazelcastConnectorConfig {
 	public static enum KeyType {
 		FIXED, SEQUENCE, TIME, UUID, KEY
 	}
+
+	public static enum ValueFormat {
+		JSON, COMPACT
+	}
 }
\ No newline at end of file
@@ -15,9 +15,6 @@
  */
 package padogrid.mqtt.connectors;
 
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Properties;
 import java.util.UUID;
@@ -32,12 +29,15 @@ import com.hazelcast.collection.IQueue;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.HazelcastJsonValue;
 import com.hazelcast.map.IMap;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
 import com.hazelcast.replicatedmap.ReplicatedMap;
 import com.hazelcast.shaded.org.json.JSONException;
 import com.hazelcast.shaded.org.json.JSONObject;
 import com.hazelcast.topic.ITopic;
 
 import padogrid.mqtt.client.cluster.HaMqttClient;
+import padogrid.simulator.CompactPayloadWriter;
+import padogrid.simulator.TimestampCodec;
 
 /**
  * {@linkplain HazelcastJsonConnector} writes JSON string representation to
@@ -68,6 +68,17 @@ import padogrid.mqtt.client.cluster.HaMqttClient;
  * names. By default, replaces '/', with '_'. Default: "[\n\r?, '\"/:)(+*%~]"</li>
  * <li>topic.regexReplacement - The string to be substituted for each match of
  * topic.regex. Default: "_"</li>
+ * <li>payloadFormat - Payload format of the MQTT messages, i.e., JSON, CBOR,
+ * MSGPACK or AVRO. Default: "JSON"</li>
+ * <li>avroSchema - Avro record schema in JSON. Required if payloadFormat is
+ * AVRO. The simulator prints the schema of each AVRO publisher.</li>
+ * <li>valueFormat - Value format of the data structure entries. "JSON" for
+ * HazelcastJsonValue or "COMPACT" for GenericRecord in Compact serialization.
+ * Compact records have all numbers as float64 and the "time" value as
+ * timestampWithTimezone so that SQL queries and predicates do not parse JSON.
+ * Default: "JSON"</li>
+ * <li>compactTypeName - Compact type name. Default: the data structure
+ * name</li>
  * </ul>
  * <p>
  * 
@@ -79,6 +90,8 @@ public class HazelcastJsonConnector extends AbstractConnector {
     private HazelcastInstance hzInstance;
     private HazelcastConnectorConfig.DsType dsType;
     private HazelcastConnectorConfig.KeyType keyType;
+    private HazelcastConnectorConfig.ValueFormat valueFormat;
+    private String compactTypeName;
 
     private ThreadLocal<ConnectorArtifact> threadLocal = new ThreadLocal<ConnectorArtifact>();
 
@@ -88,7 +101,9 @@ public class HazelcastJsonConnector extends AbstractConnector {
 
     @Override
     public boolean init(String pluginName, String description, Properties props, String... args) {
-        super.init(pluginName, description, props, args);
+        if (super.init(pluginName, description, props, args) == false) {
+            return false;
+        }
         String clusterName = props.getProperty("clusterName", "dev");
         String endpoints = props.getProperty("endpoints", "localhost:5701");
         String[] split = endpoints.split(",");
@@ -106,6 +121,9 @@ public class HazelcastJsonConnector extends AbstractConnector {
         dsType = HazelcastConnectorConfig.DsType.valueOf(val);
         val = props.getProperty("keyType", "SEQUENCE");
         keyType = HazelcastConnectorConfig.KeyType.valueOf(val);
+        val = props.getProperty("valueFormat", "JSON").toUpperCase();
+        valueFormat = HazelcastConnectorConfig.ValueFormat.valueOf(val);
+        compactTypeName = props.getProperty("compactTypeName");
 
         this.topicRegex = props.getProperty("topic.regex", DEFAULT_REGEX);
         this.topicRegexReplacement = props.getProperty("topic.regexReplacement", DEFAULT_REGEX_REPLACEMENT);
@@ -128,12 +146,35 @@ public class HazelcastJsonConnector extends AbstractConnector {
      * Saves the specified payload to Hazelcast.
      * 
      * @param topic   MQTT topic.
-     * @param payload MQTT payload in JSON string representation.
+     * @param payload MQTT payload in the payload format.
      */
     private void savePayload(String topic, byte[] payload) {
-        String str = new String(payload, StandardCharsets.UTF_8);
-        HazelcastJsonValue hzJson = new HazelcastJsonValue(str);
-        saveJson(topic, hzJson);
+        if (valueFormat == HazelcastConnectorConfig.ValueFormat.COMPACT) {
+            saveRecord(topic, payloadDecoder.decode(payload));
+        } else {
+            String str = payloadDecoder.decodeToString(payload);
+            HazelcastJsonValue hzJson = new HazelcastJsonValue(str);
+            saveJson(topic, hzJson);
+        }
+    }
+
+    /**
+     * Saves the specified JSON object to Hazelcast as a Compact GenericRecord.
+     * 
+     * @param topic MQTT topic.
+     * @param json  Decoded payload.
+     */
+    private void saveRecord(String topic, org.json.JSONObject json) {
+        String dsName = renameTopic(topic);
+        String typeName = compactTypeName != null ? compactTypeName : dsName;
+        ConnectorArtifact artifact = getConnectorArtifact();
+        GenericRecord record = CompactPayloadWriter.toGenericRecord(typeName, json, artifact.timestampCodec);
+        String keyFieldValue = null;
+        if (keyType == HazelcastConnectorConfig.KeyType.KEY) {
+            Object value = json.opt(keyValue);
+            keyFieldValue = value != null ? value.toString() : keyValue;
+        }
+        saveValue(dsName, record, keyFieldValue);
     }
 
     /**
@@ -147,6 +188,27 @@ public class HazelcastJsonConnector extends AbstractConnector {
     private void saveJson(String topic, HazelcastJsonValue hzJson) {
         // Replace unsupported characters to '_'
         String dsName = renameTopic(topic);
+        String keyFieldValue = null;
+        if (keyType == HazelcastConnectorConfig.KeyType.KEY
+                && (dsType == HazelcastConnectorConfig.DsType.MAP || dsType == HazelcastConnectorConfig.DsType.RMAP)) {
+            JSONObject json = new JSONObject(hzJson.getValue());
+            try {
+                keyFieldValue = json.get(keyValue).toString();
+            } catch (JSONException ex) {
+                keyFieldValue = keyValue;
+            }
+        }
+        saveValue(dsName, hzJson, keyFieldValue);
+    }
+
+    /**
+     * Saves the specified value to the specified data structure.
+     * 
+     * @param dsName        Data structure name.
+     * @param value         HazelcastJsonValue or GenericRecord.
+     * @param keyFieldValue Key for the KEY key type. Ignored otherwise.
+     */
+    private void saveValue(String dsName, Object value, String keyFieldValue) {
         switch (dsType) {
             case RMAP:
             case MAP:
@@ -157,18 +219,13 @@ public class HazelcastJsonConnector extends AbstractConnector {
                         break;
                     case TIME:
                         ConnectorArtifact artifact = getConnectorArtifact();
-                        key = artifact.simpleDateFormat.format(new Date());
+                        key = artifact.timestampCodec.format(System.currentTimeMillis());
                         break;
                     case UUID:
                         key = UUID.randomUUID().toString();
                         break;
                     case KEY:
-                        JSONObject json = new JSONObject(hzJson.getValue());
-                        try {
-                            key = json.get(keyValue).toString();
-                        } catch (JSONException ex) {
-                            key = keyValue;
-                        }
+                        key = keyFieldValue;
                         break;
                     case SEQUENCE:
                     default:
@@ -177,32 +234,32 @@ public class HazelcastJsonConnector extends AbstractConnector {
                 }
                 switch (dsType) {
                     case RMAP:
-                        ReplicatedMap<String, HazelcastJsonValue> rmap = hzInstance.getReplicatedMap(dsName);
-                        rmap.put(key, hzJson);
+                        ReplicatedMap<String, Object> rmap = hzInstance.getReplicatedMap(dsName);
+                        rmap.put(key, value);
                         break;
 
                     case MAP:
                     default:
-                        IMap<String, HazelcastJsonValue> map = hzInstance.getMap(dsName);
-                        map.set(key, hzJson);
+                        IMap<String, Object> map = hzInstance.getMap(dsName);
+                        map.set(key, value);
                         break;
                 }
                 break;
 
             case QUEUE:
-                IQueue<HazelcastJsonValue> queue = hzInstance.getQueue(dsName);
-                queue.offer(hzJson);
+                IQueue<Object> queue = hzInstance.getQueue(dsName);
+                queue.offer(value);
                 break;
 
             case RTOPIC:
-                ITopic<HazelcastJsonValue> rtopic = hzInstance.getReliableTopic(dsName);
-                rtopic.publish(hzJson);
+                ITopic<Object> rtopic = hzInstance.getReliableTopic(dsName);
+                rtopic.publish(value);
                 break;
 
             case TOPIC:
             default:
-                ITopic<HazelcastJsonValue> hztopic = hzInstance.getTopic(dsName);
-                hztopic.publish(hzJson);
+                ITopic<Object> hztopic = hzInstance.getTopic(dsName);
+                hztopic.publish(value);
                 break;
         }
     }
@@ -248,6 +305,6 @@ public class HazelcastJsonConnector extends AbstractConnector {
     }
 
     class ConnectorArtifact {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        TimestampCodec timestampCodec = new TimestampCodec("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
     }
 }
\ No newline at end of file
@@ -17,8 +17,6 @@ package padogrid.mqtt.connectors;
 
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,6 +29,7 @@ import org.json.JSONObject;
 import io.questdb.client.Sender;
 import io.questdb.cutlass.line.LineSenderException;
 import padogrid.mqtt.client.cluster.HaMqttClient;
+import padogrid.simulator.TimestampCodec;
 
 /**
  * {@linkplain QuestDbJsonConnector} writes JSON string representation to
@@ -60,6 +59,10 @@ import padogrid.mqtt.client.cluster.HaMqttClient;
  * names. By default, replaces '/', with '_'. Default: "[\n\r?, '\"/:)(+*%~]"</li>
  * <li>topic.regexReplacement - The string to be substituted for each match of
  * topic.regex. Default: "_"</li>
+ * <li>payloadFormat - Payload format of the MQTT messages, i.e., JSON, CBOR,
+ * MSGPACK or AVRO. Default: "JSON"</li>
+ * <li>avroSchema - Avro record schema in JSON. Required if payloadFormat is
+ * AVRO. The simulator prints the schema of each AVRO publisher.</li>
  * </ul>
  * <p>
  * @author dpark
@@ -89,7 +92,9 @@ public class QuestDbJsonConnector extends AbstractConnector {
 
 	@Override
 	public boolean init(String pluginName, String description, Properties props, String... args) {
-		super.init(pluginName, description, props, args);
+		if (super.init(pluginName, description, props, args) == false) {
+			return false;
+		}
 		this.endpoint = props.getProperty("endpoint", "localhost:9009");
 		logger.info(String.format("QuestDbConnector initialized: [pluginName=%s, description=%s, publisherEnabled=%s, endpoint=%s]%n",
 				pluginName, description, this.isPublisherEnabled, this.endpoint));
@@ -109,12 +114,11 @@ public class QuestDbJsonConnector extends AbstractConnector {
 	/**
 	 * Saves the specified payload to QuestDB.
      * @param topic MQTT topic.
-     * @param payload MQTT payload in JSON string representation.
+     * @param payload MQTT payload in the payload format.
 	 */
 	private void savePayload(String topic, byte[] payload) {
-		String str = new String(payload, StandardCharsets.UTF_8);
 		try {
-			JSONObject json = new JSONObject(str);
+			JSONObject json = payloadDecoder.decode(payload);
 			saveJson(topic, json);
 		} catch (LineSenderException e) {
 			threadLocal.remove();
@@ -122,7 +126,8 @@ public class QuestDbJsonConnector extends AbstractConnector {
 					endpoint, e.getMessage()));
 		} catch (Exception e) {
 			logger.error(String.format("Exception raised while parsing data [%s, %s, %s]. Message not saved. %s",
-					connectorName, endpoint, str, e.getMessage()));
+					connectorName, endpoint, payloadDecoder.isJson() ? new String(payload, StandardCharsets.UTF_8)
+							: payloadDecoder.getPayloadFormat(), e.getMessage()));
 		}
 	}
 
@@ -145,8 +150,8 @@ public class QuestDbJsonConnector extends AbstractConnector {
 			if (value instanceof String) {
 				if (key.equals("time")) {
 					try {
-						Date date = artifact.simpleDateFormat.parse(value.toString());
-						sender.timestampColumn(key.toString(), date.getTime() * 1000);
+						long time = artifact.timestampCodec.parse(value.toString());
+						sender.timestampColumn(key.toString(), time * 1000);
 					} catch (ParseException e) {
 						sender.stringColumn(key.toString(), value.toString());
 					}
@@ -204,7 +209,7 @@ public class QuestDbJsonConnector extends AbstractConnector {
 
 	class ConnectorArtifact {
 		Sender sender;
-		SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+		TimestampCodec timestampCodec = new TimestampCodec("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
 
 		ConnectorArtifact(Sender sender) {
 			this.sender = sender;
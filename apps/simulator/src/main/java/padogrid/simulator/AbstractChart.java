@@ -16,8 +16,6 @@
 package padogrid.simulator;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.TreeSet;
 
@@ -48,7 +46,7 @@ public class AbstractChart extends Application implements Constants {
 
 	protected static String[] features;
 	protected static String timeFormat = SimulatorConfig.TIME_FORMAT;
-	protected static SimpleDateFormat simpleDateFormat = new SimpleDateFormat(timeFormat);
+	protected static TimestampCodec timestampCodec = new TimestampCodec(timeFormat);
 
 	protected static String stageTitle;
 	protected static String chartTitle;
@@ -105,8 +103,7 @@ public class AbstractChart extends Application implements Constants {
 		String time = json.getString("time");
 		Platform.runLater(() -> {
 			try {
-				Date date = simpleDateFormat.parse(time);
-				String dateStr = simpleDateFormat.format(date);
+				String dateStr = timestampCodec.format(timestampCodec.parse(time));
 				if (features == null) {
 					// Sort keys
 					TreeSet<String> treeSet = new TreeSet<String>(json.keySet());
@@ -119,7 +116,7 @@ public class AbstractChart extends Application implements Constants {
 					}
 				}
 			} catch (ParseException e) {
-				System.err.printf("Invalid time format[time=%s, timeFormat=%s]%n", time, simpleDateFormat.toPattern());
+				System.err.printf("Invalid time format[time=%s, timeFormat=%s]%n", time, timestampCodec.getPattern());
 			}
 		});
 	}
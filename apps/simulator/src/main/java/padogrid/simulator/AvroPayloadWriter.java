@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain AvroPayloadWriter} encodes a publisher's tick as an Avro binary
+ * record without the schema. The schema is generated from the plan by
+ * {@linkplain #getSchema()} and must be given to the consumers. The record has
+ * the fleet entity ID as a string if the plan has an id field, the equation
+ * values as doubles and the time as a string, in that order.
+ *
+ * @author dpark
+ *
+ */
+public final class AvroPayloadWriter extends PayloadWriter {
+	private final String schema;
+
+	public AvroPayloadWriter(PublisherPlan plan) {
+		super(plan);
+		this.schema = createSchema(plan);
+	}
+
+	/**
+	 * Returns the Avro record schema of the specified plan.
+	 */
+	public static String createSchema(PublisherPlan plan) {
+		String name = plan.getName() == null ? "" : plan.getName().replaceAll("[^A-Za-z0-9_]", "_");
+		if (name.length() == 0 || Character.isDigit(name.charAt(0))) {
+			name = "_" + name;
+		}
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("{\"type\":\"record\",\"name\":").append(JSONObject.quote(name));
+		sb.append(",\"namespace\":\"padogrid.simulator\",\"fields\":[");
+		if (plan.getIdField() != null) {
+			appendField(sb, plan.getIdField(), "string");
+			sb.append(',');
+		}
+		for (String fieldName : plan.getFieldNames()) {
+			appendField(sb, fieldName, "double");
+			sb.append(',');
+		}
+		appendField(sb, PublisherPlan.TIME_FIELD, "string");
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	private static void appendField(StringBuilder sb, String name, String type) {
+		sb.append("{\"name\":").append(JSONObject.quote(name)).append(",\"type\":\"").append(type).append("\"}");
+	}
+
+	/**
+	 * Returns the Avro record schema in JSON.
+	 */
+	public String getSchema() {
+		return schema;
+	}
+
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.AVRO;
+	}
+
+	@Override
+	public int write() {
+		length = 0;
+		if (idField != null) {
+			writeString(id);
+		}
+		ensureCapacity(values.length * 8);
+		for (int i = 0; i < values.length; i++) {
+			long bits = Double.doubleToLongBits(values[i]);
+			for (int shift = 0; shift < 64; shift += 8) {
+				buffer[length++] = (byte) (bits >>> shift);
+			}
+		}
+		writeString(time);
+		return length;
+	}
+
+	/**
+	 * Writes the specified string as the zig-zag varint length followed by the
+	 * UTF-8 bytes. Null is written as the empty string.
+	 */
+	private void writeString(String string) {
+		if (string == null) {
+			writeByte(0);
+			return;
+		}
+		long zigzag = ((long) utf8Length(string)) << 1;
+		while ((zigzag & ~0x7fL) != 0) {
+			writeByte((int) ((zigzag & 0x7f) | 0x80));
+			zigzag >>>= 7;
+		}
+		writeByte((int) zigzag);
+		writeUtf8(string);
+	}
+}
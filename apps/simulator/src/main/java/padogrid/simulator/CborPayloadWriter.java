@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain CborPayloadWriter} encodes a publisher's tick as a CBOR map (RFC
+ * 8949) of the fleet entity ID if the plan has an id field, the equation
+ * values and the time. The keys are text strings encoded once. A value is
+ * encoded as a single-precision float if it is exact in single precision, and
+ * as a double-precision float otherwise, as recommended by the preferred
+ * serialization. The ID and time are text strings.
+ *
+ * @author dpark
+ *
+ */
+public final class CborPayloadWriter extends PayloadWriter {
+	private final byte[] mapHeader;
+	private final byte[] idKey;
+	private final byte[][] fieldKeys;
+	private final byte[] timeKey;
+
+	public CborPayloadWriter(PublisherPlan plan) {
+		super(plan);
+		int size = fieldNames.length + (idField != null ? 2 : 1);
+		length = 0;
+		writeHeader(5, size);
+		this.mapHeader = toByteArray();
+		this.idKey = idField != null ? toKey(idField) : null;
+		this.fieldKeys = new byte[fieldNames.length][];
+		for (int i = 0; i < fieldNames.length; i++) {
+			fieldKeys[i] = toKey(fieldNames[i]);
+		}
+		this.timeKey = toKey(PublisherPlan.TIME_FIELD);
+		length = 0;
+	}
+
+	private byte[] toKey(String key) {
+		length = 0;
+		writeText(key);
+		return toByteArray();
+	}
+
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.CBOR;
+	}
+
+	@Override
+	public int write() {
+		length = 0;
+		writeBytes(mapHeader);
+		if (idKey != null) {
+			writeBytes(idKey);
+			writeText(id);
+		}
+		for (int i = 0; i < fieldKeys.length; i++) {
+			writeBytes(fieldKeys[i]);
+			double value = values[i];
+			float floatValue = (float) value;
+			if (floatValue == value || Double.isNaN(value)) {
+				writeByte(0xfa);
+				writeBigEndian(Float.floatToIntBits(floatValue), 4);
+			} else {
+				writeByte(0xfb);
+				writeBigEndian(Double.doubleToLongBits(value), 8);
+			}
+		}
+		writeBytes(timeKey);
+		writeText(time);
+		return length;
+	}
+
+	/**
+	 * Writes the specified string as a text string. Null is written as the null
+	 * simple value.
+	 */
+	private void writeText(String string) {
+		if (string == null) {
+			writeByte(0xf6);
+			return;
+		}
+		writeHeader(3, utf8Length(string));
+		writeUtf8(string);
+	}
+
+	/**
+	 * Writes the initial byte(s) of the specified major type and argument.
+	 */
+	private void writeHeader(int majorType, long argument) {
+		int type = majorType << 5;
+		if (argument < 24) {
+			writeByte(type | (int) argument);
+		} else if (argument < 0x100) {
+			writeByte(type | 24);
+			writeBigEndian(argument, 1);
+		} else if (argument < 0x10000) {
+			writeByte(type | 25);
+			writeBigEndian(argument, 2);
+		} else {
+			writeByte(type | 26);
+			writeBigEndian(argument, 4);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import org.json.JSONObject;
+
+import com.hazelcast.nio.serialization.genericrecord.GenericRecord;
+import com.hazelcast.nio.serialization.genericrecord.GenericRecordBuilder;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain CompactPayloadWriter} builds a publisher's tick as a Hazelcast
+ * {@linkplain GenericRecord} in Compact serialization instead of encoding it
+ * into the buffer. The schema is derived from the plan, i.e., the fleet entity
+ * ID as a string if the plan has an id field, the equation values as float64
+ * and the time as a timestamp with time zone. Hazelcast registers the schema
+ * once per type name on the first write and sends only the schema ID with each
+ * record thereafter. The type name is the publisher name.
+ * <p>
+ * The time is the tick timestamp set by {@linkplain #setTimestamp(long)}. If
+ * the timestamp is unknown, i.e., the values are from a JSON object, then it is
+ * parsed from the formatted time with the plan's time format.
+ *
+ * @author dpark
+ *
+ */
+public final class CompactPayloadWriter extends PayloadWriter {
+	private final String typeName;
+	private final TimestampCodec timestampCodec;
+	private final ZoneId zoneId = ZoneId.systemDefault();
+	private GenericRecord record;
+
+	public CompactPayloadWriter(PublisherPlan plan) {
+		super(plan);
+		this.typeName = plan.getName();
+		this.timestampCodec = new TimestampCodec(plan.getTimeFormat());
+	}
+
+	/**
+	 * Returns the Compact type name.
+	 */
+	public String getTypeName() {
+		return typeName;
+	}
+
+	/**
+	 * Returns the Compact schema description for logging.
+	 */
+	public String getSchema() {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("typeName=").append(typeName).append(", fields=[");
+		if (idField != null) {
+			sb.append(idField).append(":string, ");
+		}
+		for (String fieldName : fieldNames) {
+			sb.append(fieldName).append(":float64, ");
+		}
+		sb.append(PublisherPlan.TIME_FIELD).append(":timestampWithTimezone]");
+		return sb.toString();
+	}
+
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.COMPACT;
+	}
+
+	/**
+	 * Builds the record of the current values. The buffer is not used.
+	 *
+	 * @return 0
+	 * @throws IllegalArgumentException Thrown if the timestamp is unknown and the
+	 *                                  time cannot be parsed
+	 */
+	@Override
+	public int write() {
+		GenericRecordBuilder builder = GenericRecordBuilder.compact(typeName);
+		if (idField != null) {
+			builder.setString(idField, id);
+		}
+		for (int i = 0; i < fieldNames.length; i++) {
+			builder.setFloat64(fieldNames[i], values[i]);
+		}
+		long timestamp = this.timestamp;
+		if (timestamp == Long.MIN_VALUE) {
+			try {
+				timestamp = timestampCodec.parse(time);
+			} catch (ParseException e) {
+				throw new IllegalArgumentException("invalid time [time=" + time + "]", e);
+			}
+		}
+		builder.setTimestampWithTimezone(PublisherPlan.TIME_FIELD, toOffsetDateTime(timestamp));
+		record = builder.build();
+		length = 0;
+		return length;
+	}
+
+	/**
+	 * Returns the record built by the last {@linkplain #write()}.
+	 */
+	public GenericRecord getRecord() {
+		return record;
+	}
+
+	private OffsetDateTime toOffsetDateTime(long timestamp) {
+		return OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zoneId);
+	}
+
+	/**
+	 * Builds a record of the specified type from the specified JSON object. All
+	 * numbers are float64 so that the schema does not change with the values.
+	 * Booleans are boolean and strings are string, except for the time field,
+	 * which is a timestamp with time zone if it parses with the specified codec.
+	 * Null values and all other types are ignored.
+	 *
+	 * @param typeName       Compact type name
+	 * @param json           JSON object
+	 * @param timestampCodec Codec for parsing the time field
+	 */
+	public static GenericRecord toGenericRecord(String typeName, JSONObject json, TimestampCodec timestampCodec) {
+		GenericRecordBuilder builder = GenericRecordBuilder.compact(typeName);
+		for (String key : json.keySet()) {
+			Object value = json.get(key);
+			if (value instanceof Number) {
+				builder.setFloat64(key, ((Number) value).doubleValue());
+			} else if (value instanceof Boolean) {
+				builder.setBoolean(key, (Boolean) value);
+			} else if (value instanceof String) {
+				if (key.equals(PublisherPlan.TIME_FIELD)) {
+					try {
+						long timestamp = timestampCodec.parse((String) value);
+						builder.setTimestampWithTimezone(key,
+								OffsetDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()));
+						continue;
+					} catch (ParseException e) {
+						// Stored as string
+					}
+				}
+				builder.setString(key, (String) value);
+			}
+		}
+		return builder.build();
+	}
+}
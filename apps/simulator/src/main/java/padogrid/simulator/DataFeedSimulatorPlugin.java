@@ -20,7 +20,6 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Method;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -28,13 +27,20 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Properties;
+import java.util.SplittableRandom;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.ClientCache;
@@ -60,11 +66,15 @@ import padogrid.mqtt.client.cluster.HaClusters;
 import padogrid.mqtt.client.cluster.HaMqttClient;
 import padogrid.mqtt.client.cluster.IHaMqttPlugin;
 import padogrid.simulator.config.SimulatorConfig;
-import padogrid.simulator.config.SimulatorConfig.DataStructure;
+import padogrid.simulator.config.SimulatorConfig.BackpressurePolicy;
+import padogrid.simulator.config.SimulatorConfig.Clock;
 import padogrid.simulator.config.SimulatorConfig.DsType;
+import padogrid.simulator.config.SimulatorConfig.ExecutionMode;
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
 import padogrid.simulator.config.SimulatorConfig.Product;
 import padogrid.simulator.config.SimulatorConfig.Publisher;
 import padogrid.simulator.config.SimulatorConfig.PublisherEquation;
+import padogrid.simulator.config.SimulatorConfig.Wheel;
 
 /**
  * {@linkplain DataFeedSimulatorPlugin} is the simulator plugin that publishes
@@ -82,8 +92,22 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 	// <equationName, Equation>
 	private HashMap<String, Equation> equationMap = new HashMap<String, Equation>(10);
 
-	// <publisherName, Equation[]>
-	private HashMap<Publisher, Equation[]> publisherMap = new HashMap<Publisher, Equation[]>(10);
+	// <equationGroupName, EquationGroup>
+	private HashMap<String, EquationGroup> equationGroupMap = new HashMap<String, EquationGroup>(10);
+
+	// Compiled publishers and their tasks
+	private ArrayList<PublisherPlan> planList = new ArrayList<PublisherPlan>(10);
+	private ArrayList<PublisherTask> taskList = new ArrayList<PublisherTask>(10);
+
+	// Publisher executors. The virtual thread executor is created only if
+	// there are VIRTUAL publishers.
+	private ScheduledExecutorService ses;
+	private ExecutorService virtualExecutor;
+	private HashedWheelScheduler wheelScheduler;
+	private ExecutorService sinkExecutor;
+	private final AtomicBoolean isShutdown = new AtomicBoolean();
+	// Shared simulated clock. null if not enabled.
+	private SimulatedClock simulatedClock;
 
 	// MQTT
 	private HaMqttClient haclient;
@@ -99,6 +123,8 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 	private String configFilePath;
 	private String simulatorConfigFilePath;
 	private boolean isQuiet;
+	private int shardIndex = 0;
+	private int shardCount = 1;
 
 	public DataFeedSimulatorPlugin() {
 
@@ -130,6 +156,20 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 				}
 			} else if (arg.equals("-quiet")) {
 				isQuiet = true;
+			} else if (arg.equals("-shard")) {
+				String shard = i < args.length - 1 ? args[++i].trim() : "";
+				int index = shard.indexOf('/');
+				try {
+					shardIndex = Integer.parseInt(shard.substring(0, index));
+					shardCount = Integer.parseInt(shard.substring(index + 1));
+				} catch (NumberFormatException | IndexOutOfBoundsException e) {
+					shardCount = 0;
+				}
+				if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+					System.err.printf("ERROR: Invalid shard [%s]. Must be i/N where 0 <= i < N. Command aborted.%n",
+							shard);
+					System.exit(-1);
+				}
 			}
 		}
 
@@ -178,7 +218,7 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 
 	@Override
 	public void stop() {
-
+		shutdown();
 	}
 
 	private void init(String... args) throws FileNotFoundException {
@@ -204,14 +244,41 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 		// Initialize equations
 		Equation[] equations = simulatorConfig.getEquations();
 		for (Equation equation : equations) {
-			Method method = equation.getCalculationMethod();
-			if (method == null) {
+			if (equation.compile() == false) {
 				System.out.printf("WARNING: Calculation function undefined. %s. Equation discarded.%n", equation);
 			} else {
 				equationMap.put(equation.getName(), equation);
 			}
 		}
 
+		// Initialize equation groups. The Cholesky factors are computed here once.
+		EquationGroup[] equationGroups = simulatorConfig.getEquationGroups();
+		if (equationGroups != null) {
+			for (EquationGroup equationGroup : equationGroups) {
+				if (equationGroup.compile() == false) {
+					continue;
+				}
+				boolean isValid = true;
+				for (String equationName : equationGroup.getEquationNames()) {
+					if (equationMap.containsKey(equationName) == false) {
+						System.err.printf(
+								"ERROR: Equation undefined for the equation group [equationGroup=%s, equationName=%s]. Equation group discarded.%n",
+								equationGroup.getName(), equationName);
+						isValid = false;
+						break;
+					}
+				}
+				if (isValid) {
+					if (equationMap.containsKey(equationGroup.getName())) {
+						System.out.printf(
+								"WARNING: Equation group name hides the equation with the same name [equationGroup=%s].%n",
+								equationGroup.getName());
+					}
+					equationGroupMap.put(equationGroup.getName(), equationGroup);
+				}
+			}
+		}
+
 		// Find if mqtt defined in the config
 		Publisher[] publishers = simulatorConfig.getPublishers();
 		boolean isMqtt = false;
@@ -361,7 +428,45 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 			System.exit(-3);
 		}
 
+		// Start the shared clock before the publishers so that they all see the same
+		// simulated time
+		Clock clock = simulatorConfig.getClock();
+		if (clock != null && clock.isEnabled()) {
+			long clockStartTime = System.currentTimeMillis();
+			try {
+				if (clock.getStartTime() != null) {
+					clockStartTime = new SimpleDateFormat(simulatorConfig.getTimeFormat()).parse(clock.getStartTime())
+							.getTime();
+				}
+				simulatedClock = new SimulatedClock(clockStartTime, clock.getSpeed());
+			} catch (ParseException | IllegalArgumentException e) {
+				System.err.printf("ERROR: Invalid clock [startTime=%s, speed=%s, timeFormat=%s]. Command aborted.%n",
+						clock.getStartTime(), clock.getSpeed(), simulatorConfig.getTimeFormat());
+				System.exit(-4);
+			}
+			System.out.printf("Simulated clock [startTime=%s, speed=%s]%n",
+					new SimpleDateFormat(simulatorConfig.getTimeFormat()).format(new Date(clockStartTime)),
+					clock.getSpeed());
+		}
+
+		// Each publisher gets its own equation copies with generators split from the
+		// master generator in the configured publisher order. The split is done for
+		// all publishers, including skipped ones, so that a publisher's jitter
+		// sequence is reproducible regardless of the others.
+		Long seed = simulatorConfig.getSeed();
+		SplittableRandom masterRandom = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+
+		// Compile the publishers into immutable plans. Abort if any is invalid.
+		int invalidCount = 0;
+		int publisherIndex = -1;
 		for (Publisher publisher : publishers) {
+			SplittableRandom publisherRandom = masterRandom.split();
+			publisherIndex++;
+			// Shards take the publishers round-robin in the configured order. All
+			// shards run the fleets, each with its own slice of the entities.
+			if (publisher.isFleet() == false && publisherIndex % shardCount != shardIndex) {
+				continue;
+			}
 			if (publisher.isEnabled()) {
 				// Determine wether the specified product is valid.
 				boolean isValidProduct = productName == null || productName.equalsIgnoreCase(publisher.getProduct().name());
@@ -388,478 +493,1668 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 					if (publisherEquations != null) {
 						String[] equationNames = publisherEquations.getEquationNames();
 						ArrayList<Equation> equationList = new ArrayList<Equation>(equationNames.length);
+						ArrayList<EquationGroup> groupList = new ArrayList<EquationGroup>(equationNames.length);
 						for (String equationName : equationNames) {
+							// A group expands in place into its member equations
+							EquationGroup equationGroup = equationGroupMap.get(equationName);
+							if (equationGroup != null) {
+								String[] memberNames = equationGroup.getEquationNames();
+								Equation[] members = new Equation[memberNames.length];
+								for (int i = 0; i < members.length; i++) {
+									members[i] = getEquation(memberNames[i]).copy(publisherRandom.split());
+								}
+								EquationGroup group = equationGroup.copy(members, publisherRandom.split());
+								for (Equation member : members) {
+									equationList.add(member);
+									groupList.add(group);
+								}
+								continue;
+							}
 							Equation equation = getEquation(equationName);
 							if (equation == null) {
 								System.err.printf(
 										"ERROR: Equation undefined for the publisher [product=%s, publisher=%s, equationName=%s]. Equation ignored.%n",
 										productName, publisher.getName(), equationName);
 							} else {
-								equationList.add(equation);
+								equationList.add(equation.copy(publisherRandom.split()));
+								groupList.add(null);
 							}
 						}
 						if (equationList.size() > 0) {
-							publisherMap.put(publisher, equationList.toArray(new Equation[0]));
+							PublisherPlan plan = PublisherPlan.compile(publisher,
+									equationList.toArray(new Equation[0]), groupList.toArray(new EquationGroup[0]),
+									simulatorConfig, shardIndex, shardCount);
+							if (plan == null) {
+								invalidCount++;
+							} else if (publisher.isFleet() && plan.isFleet() == false) {
+								// More shards than entities. Nothing to publish in this shard.
+								continue;
+							} else {
+								planList.add(plan);
+							}
 						}
 					}
 				}
 			}
 		}
 
-		// Launch publisher threads
-		final ScheduledExecutorService ses = Executors.newScheduledThreadPool(publisherMap.size());
-
-		Iterator<Map.Entry<Publisher, Equation[]>> iterator = publisherMap.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry<Publisher, Equation[]> entry = iterator.next();
-			Publisher publisher = entry.getKey();
-			Equation[] equations = entry.getValue();
-
-			ses.scheduleAtFixedRate(new Runnable() {
-
-				PublisherDatum publisherDatum = new PublisherDatum(publisher, equations);
-				long keySeq = 1;
-
-				// Geode/GemFire
-				Region<String, PdxInstance> region = clientCache != null
-						&& (publisher.getDataStructure().getType() == DsType.MAP
-						|| publisher.getDataStructure().getType() == DsType.map
-						|| publisher.getDataStructure().getType() == DsType.REGION
-						|| publisher.getDataStructure().getType() == DsType.region)
-							? clientCache.getRegion(publisher.getDataStructure().getName())
-							: null;
-
-				// Hazelcast
-				IMap<String, HazelcastJsonValue> hzMap = hzInstance != null
-						&& (publisher.getDataStructure().getType() == DsType.MAP
-								|| publisher.getDataStructure().getType() == DsType.map)
-										? hzInstance.getMap(publisher.getDataStructure().getName())
-										: null;
-				ReplicatedMap<String, HazelcastJsonValue> hzRMap = hzInstance != null
-						&& (publisher.getDataStructure().getType() == DsType.RMAP
-								|| publisher.getDataStructure().getType() == DsType.rmap)
-										? hzInstance.getReplicatedMap(publisher.getDataStructure().getName())
-										: null;
-				ITopic<HazelcastJsonValue> hzTopic = hzInstance != null
-						&& (publisher.getDataStructure().getType() == DsType.TOPIC
-								|| publisher.getDataStructure().getType() == DsType.topic)
-										? hzInstance.getTopic(publisher.getDataStructure().getName())
-										: null;
-				ITopic<HazelcastJsonValue> hzRTopic = hzInstance != null
-						&& (publisher.getDataStructure().getType() == DsType.RTOPIC
-								|| publisher.getDataStructure().getType() == DsType.rtopic)
-										? hzInstance.getReliableTopic(publisher.getDataStructure().getName())
-										: null;
-				IQueue<HazelcastJsonValue> hzQueue = hzInstance != null
-						&& (publisher.getDataStructure().getType() == DsType.QUEUE
-								|| publisher.getDataStructure().getType() == DsType.queue)
-										? hzInstance.getQueue(publisher.getDataStructure().getName())
-										: null;
-
-				@Override
-				public void run() {
-					// TODO: The scheduler thread cannot be stopped individually. We let it fall
-					// through for now. We'll need to replace the scheduler with another mechanism
-					// in order to fix this.
-					if (publisher.isEnabled() == false) {
-						return;
-					}
-					DataStructure ds = publisher.getDataStructure();
-					JSONObject json = publisherDatum.generateData();
+		if (invalidCount > 0) {
+			System.err.printf("ERROR: Invalid publishers found [count=%d]. Command aborted.%n", invalidCount);
+			System.exit(-4);
+		}
 
-					try {
-						if (publisher.getProduct() == Product.MQTT || publisher.getProduct() == Product.mqtt) {
-							String topic = ds.getName();
-							haclient.publish(topic, json.toString().getBytes(), 0, false);
-							if (isQuiet == false) {
-								System.out.printf("product=%s, topic=%s: %s%n", publisher.getProduct(), topic, json);
-							}
-						} else if (publisher.getProduct() == Product.GEMFIRE || publisher.getProduct() == Product.gemfire
-								|| publisher.getProduct() == Product.GEODE || publisher.getProduct() == Product.geode) {
-							String jsonStr = json.toString();
-							PdxInstance pdxObj = JSONFormatter.fromJSON(jsonStr);
-							switch (ds.getType()) {
-							case MAP:
-							case REGION:
-							default:
-								String key;
-								switch (ds.getKeyType()) {
-								case FIXED:
-									key = ds.getKeyValue();
-									break;
-
-								case TIME:
-									key = json.getString("time");
-									break;
-
-								case UUID:
-									key = UUID.randomUUID().toString();
-									break;
-
-								case SEQUENCE:
-								default:
-									key = Long.toString(keySeq);
-									keySeq++;
-									break;
-								}
-								if (region != null) {
-									region.put(key, pdxObj);
-									if (isQuiet == false) {
-										System.out.printf("product=%s, region=%s: %s, %s%n", publisher.getProduct(),
-												region.getFullPath(), key, json);
-									}
-								}
-								break;
-							}
+		// Launch publisher threads. A publisher falls back to the scheduler if its
+		// execution mode is unavailable or does not apply.
+		int schedulerCount = 0;
+		HashSet<String> publisherIdSet = new HashSet<String>();
+		for (PublisherPlan plan : planList) {
+			// Publishers are controlled by ID. A duplicate name gets the suffix "#n".
+			String publisherId = plan.getName();
+			for (int n = 2; publisherIdSet.add(publisherId) == false; n++) {
+				publisherId = plan.getName() + "#" + n;
+			}
+			if (publisherId.equals(plan.getName()) == false) {
+				System.out.printf("WARNING: Duplicate publisher name [publisher=%s, product=%s]. Publisher ID is %s.%n",
+						plan.getName(), plan.getProduct(), publisherId);
+			}
+			ExecutionMode executionMode = plan.getExecutionMode();
+			if (executionMode == ExecutionMode.VIRTUAL && virtualExecutor == null) {
+				virtualExecutor = VirtualThreadSupport.newVirtualThreadPerTaskExecutor("publisher-");
+				if (virtualExecutor != null) {
+					// Keep the JVM alive until shutdown even if all publishers are VIRTUAL
+					VirtualThreadSupport.startKeepAlive(virtualExecutor);
+				} else {
+					System.out.printf(
+							"WARNING: Virtual threads not supported by this JVM [java.version=%s]. VIRTUAL publishers are run by the scheduler instead.%n",
+							System.getProperty("java.version"));
+				}
+			}
+			if (executionMode == ExecutionMode.VIRTUAL && virtualExecutor == null) {
+				executionMode = ExecutionMode.SCHEDULER;
+			} else if (executionMode == ExecutionMode.WHEEL && plan.isPaced()) {
+				// The wheel cannot pace below its tick
+				executionMode = ExecutionMode.SCHEDULER;
+			}
+			if (executionMode == ExecutionMode.WHEEL && wheelScheduler == null) {
+				Wheel wheel = simulatorConfig.getWheel();
+				wheelScheduler = new HashedWheelScheduler(wheel.getTickDuration(), TimeUnit.MILLISECONDS,
+						wheel.getTicksPerWheel(), wheel.getWorkerCount());
+			}
+			if (executionMode == ExecutionMode.SCHEDULER) {
+				schedulerCount++;
+			}
+			PublisherTask task = new PublisherTask(publisherId, plan, executionMode);
+			if (task.payloadWriter instanceof AvroPayloadWriter) {
+				// The consumers need the schema to decode the records
+				System.out.printf("Avro schema [publisher=%s, schema=%s]%n", plan.getName(),
+						((AvroPayloadWriter) task.payloadWriter).getSchema());
+			} else if (task.payloadWriter instanceof CompactPayloadWriter) {
+				System.out.printf("Compact schema [publisher=%s, %s]%n", plan.getName(),
+						((CompactPayloadWriter) task.payloadWriter).getSchema());
+			}
+			taskList.add(task);
+		}
+		ses = Executors.newScheduledThreadPool(Math.max(1, schedulerCount));
+		if (shardCount > 1) {
+			System.out.printf("Shard [shard=%d/%d, publishers=%d]%n", shardIndex, shardCount, taskList.size());
+		}
 
-						} else if (publisher.getProduct() == Product.HAZELCAST || publisher.getProduct() == Product.hazelcast) {
-							HazelcastJsonValue value = new HazelcastJsonValue(json.toString());
-							switch (ds.getType()) {
-							case MAP:
-							case RMAP:
-							case map:
-							case rmap:
-								String key;
-								switch (ds.getKeyType()) {
-								case FIXED:
-									key = ds.getKeyValue();
-									break;
-
-								case TIME:
-									key = json.getString("time");
-									break;
-
-								case UUID:
-									key = UUID.randomUUID().toString();
-									break;
-
-								case SEQUENCE:
-								default:
-									key = Long.toString(keySeq);
-									keySeq++;
-									break;
-								}
-								if (hzMap != null) {
-									hzMap.set(key, value);
-									if (isQuiet == false) {
-										System.out.printf("product=%s, map=%s: %s, %s%n", publisher.getProduct(),
-												hzMap.getName(), key, json);
-									}
-								} else if (hzRMap != null) {
-									hzRMap.put(key, value);
-									if (isQuiet == false) {
-										System.out.printf("product=%s, rmap=%s: %s, %s%n", publisher.getProduct(),
-												hzRMap.getName(), key, json);
-									}
-								}
-								break;
-
-							case QUEUE:
-							case queue:
-								hzQueue.offer(value);
-								if (isQuiet == false) {
-									System.out.printf("product=%s, queue=%s: %s%n", publisher.getProduct(),
-											hzQueue.getName(), json);
-								}
-								break;
-
-							case RTOPIC:
-							case rtopic:
-								hzRTopic.publish(value);
-								if (isQuiet == false) {
-									System.out.printf("product=%s, rtopic=%s: %s%n", publisher.getProduct(),
-											hzRTopic.getName(), json);
-								}
-								break;
-
-							case TOPIC:
-							case topic:
-							default:
-								hzTopic.publish(value);
-								if (isQuiet == false) {
-									System.out.printf("product=%s, topic=%s: %s%n", publisher.getProduct(),
-											hzTopic.getName(), json);
-								}
-								break;
-							}
-						}
-					} catch (Exception ex) {
-						// TODO: Ignore for now
-//							System.err.printf("ERROR: Exception occurred while invoking data structure [%s]%n",
-//									ex.getMessage());
-					}
-
-					if (publisherDatum.getMaxCount() >= 0
-							&& publisherDatum.getCount() >= publisherDatum.getMaxCount()) {
-						System.out.printf("Publisher max count reached [publisher=%s, count=%d]. Publisher stopped.%n",
-								publisherDatum.getName(), publisherDatum.getCount());
-						publisher.setEnabled(false);
-					} else if (publisherDatum.getIterations() >= 0
-							&& publisherDatum.getIterationCount() >= publisherDatum.getIterations()) {
-						System.out.printf(
-								"Publisher max iterations reached [publisher=%s, iterationCount=%d]. Publisher stopped.%n",
-								publisherDatum.getName(), publisherDatum.getIterationCount());
-						publisher.setEnabled(false);
-					}
+		for (PublisherTask task : taskList) {
+			if (task.sinkQueue != null) {
+				task.startSink();
+			}
+			if (task.pipeline != null) {
+				task.pipeline.start();
+			}
+			if (task.plan.isBackfill()) {
+				task.startBackfill();
+			} else {
+				task.start(task.plan.getInitialDelay());
+			}
+		}
+		if (wheelScheduler != null) {
+			wheelScheduler.start();
+		}
 
-					// Stop the simulator if all publishers are terminated (disabled).
-					if (publisher.isEnabled() == false) {
-						stopSimulator(ses);
-					}
-				}
+		// Drain and close the clients on exit, e.g., Ctrl-C
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "simulator-shutdown-hook"));
+	}
 
-			}, publisher.getInitialDelay(), publisher.getEquations().getEquationDelay(), TimeUnit.MILLISECONDS);
+	/**
+	 * Returns the IDs of all publishers in the order of the configuration. A
+	 * publisher ID is the publisher name. If the name is not unique, then the
+	 * second and subsequent publishers with the same name are suffixed with "#n",
+	 * e.g., "igloo-publisher#2".
+	 */
+	public String[] getPublisherIds() {
+		String[] ids = new String[taskList.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = taskList.get(i).id;
 		}
+		return ids;
 	}
 
 	/**
-	 * Stop the simulator if all publishers are terminated (disabled).
+	 * Pauses the specified publisher. Its schedule is cancelled and the run in
+	 * progress, if any, completes.
 	 * 
-	 * @param ses executor service
+	 * @param publisherId Publisher ID. See {@linkplain #getPublisherIds()}.
+	 * @return true if paused, false if not found, not running or already paused
 	 */
-	private void stopSimulator(final ScheduledExecutorService ses) {
-		boolean isAllTerminated = true;
-		Iterator<Map.Entry<Publisher, Equation[]>> iterator = publisherMap.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Publisher p = iterator.next().getKey();
-			if (p.isEnabled()) {
-				isAllTerminated = false;
-				break;
-			}
-		}
-		if (isAllTerminated) {
-			ses.shutdown();
+	public boolean pausePublisher(String publisherId) {
+		PublisherTask task = getPublisherTask(publisherId);
+		return task != null && task.pause();
+	}
 
-			// Geode/GemFire
-			if (clientCache != null) {
-				clientCache.close();
-			}
+	/**
+	 * Resumes the specified paused publisher. The next run is immediate.
+	 * 
+	 * @param publisherId Publisher ID. See {@linkplain #getPublisherIds()}.
+	 * @return true if resumed, false if not found, stopped or not paused
+	 */
+	public boolean resumePublisher(String publisherId) {
+		PublisherTask task = getPublisherTask(publisherId);
+		return task != null && task.resume();
+	}
 
-			// Hazelcast
-			if (haclient != null) {
-				haclient.disconnect();
-			}
-			if (hzInstance != null) {
-				hzInstance.shutdown();
-			}
+	/**
+	 * Stops the specified publisher permanently. Its schedule is cancelled and the
+	 * run in progress, if any, completes. The simulator shuts down when all
+	 * publishers are stopped.
+	 * 
+	 * @param publisherId Publisher ID. See {@linkplain #getPublisherIds()}.
+	 * @return true if stopped, false if not found or already stopped
+	 */
+	public boolean cancelPublisher(String publisherId) {
+		PublisherTask task = getPublisherTask(publisherId);
+		if (task == null || task.isEnabled == false) {
+			return false;
 		}
+		task.cancel();
+		stopSimulator();
+		return true;
 	}
 
-	private Equation getEquation(String equationName) {
-		return equationMap.get(equationName);
+	/**
+	 * Returns the current time in msec of the shared simulated clock if enabled,
+	 * otherwise the wall clock.
+	 */
+	private long currentTimeMillis() {
+		return simulatedClock != null ? simulatedClock.currentTimeMillis() : System.currentTimeMillis();
 	}
 
-	private static void writeLine() {
-		System.out.println();
+	/**
+	 * Returns the cached thread pool for the sink and backfill threads of the
+	 * non-VIRTUAL publishers.
+	 */
+	private synchronized ExecutorService getSinkExecutor() {
+		if (sinkExecutor == null) {
+			sinkExecutor = Executors.newCachedThreadPool();
+		}
+		return sinkExecutor;
 	}
 
-	private static void writeLine(String line) {
-		System.out.println(line);
+	private PublisherTask getPublisherTask(String publisherId) {
+		for (PublisherTask task : taskList) {
+			if (task.id.equals(publisherId)) {
+				return task;
+			}
+		}
+		return null;
 	}
 
-	@SuppressWarnings("unused")
-	private static void write(String str) {
-		System.out.print(str);
+	/**
+	 * {@linkplain PipelineEvent} is a preallocated ring slot of a publisher's
+	 * pipeline.
+	 */
+	static class PipelineEvent {
+		JSONObject json;
+		String key;
+		Object value;
 	}
 
-	private void usage() {
-		String executable = System.getProperty(PROPERTY_executableName, DataFeedSimulatorPlugin.class.getName());
-		if (pluginName != null) {
-			writeLine();
-			writeLine("PLUGIN");
-			writeLine("   " + pluginName + " - " + description);
+	/**
+	 * {@linkplain SendBatch} collects a pipeline sender's events until the end of
+	 * its batch.
+	 */
+	static class SendBatch {
+		final ArrayList<String> keys = new ArrayList<String>();
+		final ArrayList<Object> values = new ArrayList<Object>();
+		final ArrayList<JSONObject> jsons = new ArrayList<JSONObject>();
+
+		void clear() {
+			keys.clear();
+			values.clear();
+			jsons.clear();
 		}
-		writeLine();
-		writeLine("NAME");
-		writeLine("   " + executable + " - Publish simulated data generated by equations");
-		writeLine();
-		writeLine("SYNOPSIS");
-		writeLine("   " + executable + " [-product mqtt|geode|gemfire|hazelcast] [-cluster cluster_name] [-config config_file]");
-		writeLine("            [-simulator-config simulator_config_file] [-quiet] [-?]");
-		writeLine();
-		writeLine("DESCRIPTION");
-		writeLine("   Publishes simulated data generated by the equations defined in the following configuration");
-		writeLine("   file.");
-		writeLine();
-		writeLine("      etc/simulator-padogrid.yaml");
-		writeLine();
-		writeLine("   You can supply additional equations by creating static methods with the following");
-		writeLine("   signature.");
-		writeLine();
-		writeLine("      public final static double your_equation(double x);");
-		writeLine();
-		writeLine("   The static method takes the input x, and returns y of your equation. For example,");
-		writeLine("   the following method defines y = x^2.");
-		writeLine();
-		writeLine("      public final static double xsquared(double x) {");
-		writeLine("         return x*x;");
-		writeLine("      }");
-		writeLine();
-		writeLine("   Alternatively, you can also supply classes that implement the following interface.");
-		writeLine();
-		writeLine("      padgrid.simulator.ICalculation.");
-		writeLine();
-		writeLine("   See etc/template-simulator-padogrid.yaml for details.");
-		writeLine();
-		writeLine("OPTIONS");
-		writeLine("   -product mqtt|geode|gemfire|hazelcast");
-		writeLine("             Publishes data to the specified product. If this option is unspecified,");
-		writeLine("             then by default, the simulator publishes to all of the products defined in the");
-		writeLine("             configuration file.");
-		writeLine();
-		writeLine("   -cluster cluster_name");
-		writeLine("             Connects to the specified cluster defined in the MQTT configuration file.");
-		writeLine("             This option applies to MQTT only. It is ignored for Geode/GemFire and Hazelcast.");
-		writeLine();
-		writeLine("   -config config_file");
-		writeLine("             Optional MQTT configuration file.");
-		writeLine("             Default: etc/mqttv5-client.yaml");
-		writeLine();
-		writeLine("   -simulator-config simulator_config_file");
-		writeLine("             Optional simulator configuration file.");
-		writeLine("             Default: etc/simulator-padogrid.yaml");
-		writeLine();
-		writeLine("   -quiet");
-		writeLine("             Stops printing simulated data.");
-		writeLine();
-		writeLine("SEE ALSO");
-		writeLine("   chart_mqtt(1), chart_hazelcast(1)");
-		writeLine("   etc/simulator-edge.yaml");
-		writeLine("   etc/simulator-misc.yaml");
-		writeLine("   etc/simulator-padogrid.yaml");
-		writeLine("   etc/simulator-stocks.yaml");
-		writeLine("   etc/template-simulator-padogrid.yaml");
-		writeLine();
 	}
 
-	class PublisherDatum {
-		String name;
-		Equation[] equations;
-		Datum[] data;
-		Equation resetEquation;
-		Datum resetDatum;
-		long timeInterval;
-		long startTime;
-		long timestamp;
-		SimpleDateFormat simpleDateFormat;
-		private long resetBaseTime = 0;
-		private long maxCount = -1;
-		private long iterations = -1;
-		private long count = 0;
-		private long iterationCount = 0;
-
-		PublisherDatum(Publisher publisher, Equation[] equations) {
-			this.name = publisher.getName();
-			this.equations = equations;
-			this.data = new Datum[equations.length];
-			for (int i = 0; i < data.length; i++) {
-				data[i] = new Datum();
-			}
-			this.timeInterval = publisher.getTimeInterval();
-			this.simpleDateFormat = new SimpleDateFormat(
-					simulatorConfig.getTimeFormat() == null ? "yyyy-MM-dd'T'HH:mm:ss.SSSZ"
-							: simulatorConfig.getTimeFormat());
-
-			if (publisher.getStartTime() == null) {
-				this.startTime = System.currentTimeMillis();
+	/**
+	 * {@linkplain PublisherTask} generates and publishes the publisher's data per
+	 * scheduled run. In fleet mode, each run generates and publishes one datum per
+	 * entity.
+	 */
+	class PublisherTask implements Runnable {
+		// Unique publisher ID. See getPublisherIds().
+		final String id;
+		final PublisherPlan plan;
+		// Effective execution mode
+		final ExecutionMode executionMode;
+		final PublisherDatum publisherDatum;
+		final FleetDatum fleetDatum;
+		// Encodes the directly published ticks. Guarded by run().
+		final PayloadWriter payloadWriter;
+		// Encodes the queued, pipelined and backfilled ticks in a non-JSON payload
+		// format or into PDX instances
+		private final ThreadLocal<PayloadWriter> jsonPayloadWriters;
+		// Fleet MQTT topics built on first use
+		private String[] entityTopics;
+		long keySeq;
+		volatile boolean isEnabled = true;
+		volatile boolean isPaused;
+
+		// Schedule handles. future for SCHEDULER and VIRTUAL, timeout for WHEEL.
+		private volatile Future<?> future;
+		private volatile HashedWheelScheduler.Timeout timeout;
+		private volatile Thread loopThread;
+		// Incremented per start. A loop exits if it is not the latest.
+		private volatile int generation;
+		// Load profile time zero in System.nanoTime()
+		private volatile long profileOrigin = Long.MIN_VALUE;
+
+		// Backfill batch. Non-null while backfilling.
+		private volatile boolean isBackfilling;
+		private volatile ArrayList<String> backfillKeys;
+		private ArrayList<JSONObject> backfillValues;
+
+		// Backpressure. sinkQueue is null for BLOCK or if pipelined.
+		final SinkQueue<JSONObject> sinkQueue;
+		// Staged pipeline. null if not pipelined.
+		final RingPipeline<PipelineEvent> pipeline;
+		// Pipeline sender batches, one per sender thread
+		private final ThreadLocal<SendBatch> sendBatches = ThreadLocal.withInitial(SendBatch::new);
+		private final LongAdder lateCount = new LongAdder();
+		// Fixed-rate deadline of the next tick in System.nanoTime(). Guarded by run().
+		private long nextDeadline = Long.MIN_VALUE;
+		private long nextReport;
+		private long reportedCount;
+		// Serializes the runs. Not the object monitor, which would pin the carrier
+		// thread of a VIRTUAL publisher blocked in a sink call.
+		private final ReentrantLock runLock = new ReentrantLock();
+		// Guards the lifecycle transitions. Not the run lock, so that a run in
+		// progress does not block them.
+		private final Object lifecycleLock = new Object();
+
+		// Geode/GemFire
+		Region<String, PdxInstance> region;
+
+		// Hazelcast. The values are HazelcastJsonValue or GenericRecord (COMPACT).
+		IMap<String, Object> hzMap;
+		ReplicatedMap<String, Object> hzRMap;
+		ITopic<Object> hzTopic;
+		ITopic<Object> hzRTopic;
+		IQueue<Object> hzQueue;
+
+		PublisherTask(String id, PublisherPlan plan, ExecutionMode executionMode) {
+			this.id = id;
+			this.plan = plan;
+			this.executionMode = executionMode;
+			this.keySeq = plan.getKeySequenceStart();
+			if (plan.isFleet()) {
+				this.fleetDatum = new FleetDatum(plan);
+				this.publisherDatum = fleetDatum;
 			} else {
-				try {
-					this.startTime = simpleDateFormat.parse(publisher.getStartTime()).getTime();
-				} catch (ParseException e) {
-					System.err.printf(
-							"ERROR: Data parser error [startTime=%s, timeFormat=%s]. Using current time instead.%n",
-							publisher.getStartTime(), simulatorConfig.getTimeFormat());
-					this.startTime = System.currentTimeMillis();
-				}
+				this.fleetDatum = null;
+				this.publisherDatum = new PublisherDatum(plan);
 			}
-			this.timestamp = startTime;
+			this.payloadWriter = createPayloadWriter();
+			boolean isJsonText = plan.getPayloadFormat() == PayloadFormat.JSON
+					&& payloadWriter instanceof PdxPayloadWriter == false;
+			this.jsonPayloadWriters = isJsonText ? null : ThreadLocal.withInitial(this::createPayloadWriter);
+			this.sinkQueue = plan.isQueued()
+					? new SinkQueue<JSONObject>(plan.getBackpressurePolicy(), plan.getQueueSize())
+					: null;
+			this.pipeline = plan.isPipelined()
+					? new RingPipeline<PipelineEvent>("publisher-" + id, plan.getRingSize(),
+							PipelineEvent::new, plan.getBatchSize(), this::serializeEvent, this::sendEvent,
+							plan.getSenderCount())
+					: null;
+			this.nextReport = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(Math.max(0, plan.getBackpressureReportInterval()));
+
+			// Resolve the data structure once. The DsType is upper case in the plan.
+			DsType dsType = plan.getDsType();
+			String dsName = plan.getDsName();
 
-			// Determine reset equation if defined
-			if (publisher.getReset() != null && publisher.getReset().getEquationName() != null) {
-				if (publisher.getReset().getResetBaseTime() >= 0) {
-					String equationName = publisher.getReset().getEquationName();
-					resetBaseTime = publisher.getReset().getResetBaseTime();
-					for (int i = 0; i < equations.length; i++) {
-						if (equations[i].getName().equals(equationName)) {
-							resetEquation = equations[i];
-							resetDatum = data[i];
-							break;
-						}
-					}
-				}
-				this.iterations = publisher.getReset().getIterations();
-			}
+			// Geode/GemFire
+			region = clientCache != null && plan.isGeode() && (dsType == DsType.MAP || dsType == DsType.REGION)
+					? clientCache.getRegion(dsName)
+					: null;
 
-			this.maxCount = publisher.getMaxCount();
+			// Hazelcast
+			boolean isHazelcast = hzInstance != null && plan.isHazelcast();
+			hzMap = isHazelcast && dsType == DsType.MAP ? hzInstance.getMap(dsName) : null;
+			hzRMap = isHazelcast && dsType == DsType.RMAP ? hzInstance.getReplicatedMap(dsName) : null;
+			hzTopic = isHazelcast && dsType == DsType.TOPIC ? hzInstance.getTopic(dsName) : null;
+			hzRTopic = isHazelcast && dsType == DsType.RTOPIC ? hzInstance.getReliableTopic(dsName) : null;
+			hzQueue = isHazelcast && dsType == DsType.QUEUE ? hzInstance.getQueue(dsName) : null;
 		}
 
 		/**
-		 * Generates data by invoking all equations.
+		 * Starts or restarts this publisher's schedule in its execution mode.
 		 * 
-		 * @return JSON object containing generated data
+		 * @param initialDelay Delay of the first run in msec
 		 */
-		JSONObject generateData() {
-			// Generate data
-			JSONObject json = new JSONObject();
-			for (int i = 0; i < data.length; i++) {
-				data[i] = equations[i].updateDatum(data[i]);
-				json.put(equations[i].getName(), data[i].getValue());
+		void start(long initialDelay) {
+			int generation = ++this.generation;
+			// Do not count the paused period as late
+			nextDeadline = Long.MIN_VALUE;
+			switch (executionMode) {
+			case VIRTUAL:
+				future = virtualExecutor.submit(() -> runLoop(generation, initialDelay));
+				break;
+			case WHEEL:
+				timeout = wheelScheduler.scheduleAtFixedRate(this, initialDelay, plan.getEquationDelay(),
+						TimeUnit.MILLISECONDS);
+				break;
+			case SCHEDULER:
+			default:
+				if (plan.isPaced()) {
+					// A paced publisher occupies one pool thread until it is paused or stopped
+					future = ses.schedule(() -> runPaced(generation, true), initialDelay, TimeUnit.MILLISECONDS);
+				} else {
+					future = ses.scheduleAtFixedRate(this, initialDelay, plan.getEquationDelay(),
+							TimeUnit.MILLISECONDS);
+				}
+				break;
 			}
-			String time = simpleDateFormat.format(new Date(timestamp));
-			json.put("time", time);
+		}
 
-			// If reset then update timestamp accordingly
-			if (resetEquation != null) {
-				boolean isResetBaseTime = false;
-				double baseValue = resetDatum.getBaseValue();
-				switch (resetEquation.getType()) {
-				case REPEAT:
-					if (baseValue >= resetEquation.getMaxBase()) {
-						isResetBaseTime = resetBaseTime != 0 ? true : false;
-						iterationCount++;
-					}
-					break;
-				case REVERSE:
-				default:
-					if (baseValue >= resetEquation.getMaxBase()) {
-						isResetBaseTime = resetBaseTime != 0 ? true : false;
-						iterationCount++;
-					} else if (baseValue <= resetEquation.getMinBase()) {
-						isResetBaseTime = resetBaseTime != 0 ? true : false;
-						iterationCount++;
-					}
-					break;
+		/**
+		 * Pauses this publisher. A VIRTUAL loop parks until resumed. The other modes
+		 * cancel their schedules.
+		 * 
+		 * @return false if stopped or already paused
+		 */
+		boolean pause() {
+			synchronized (lifecycleLock) {
+				if (isEnabled == false || isPaused) {
+					return false;
 				}
-				if (isResetBaseTime) {
-					timestamp = resetBaseTime();
-				} else {
-					timestamp += timeInterval;
+				isPaused = true;
+				if (executionMode != ExecutionMode.VIRTUAL) {
+					cancelSchedule();
 				}
-			} else {
-				timestamp += timeInterval;
-			}
-			if (maxCount > 0) {
-				count++;
+				return true;
 			}
-			return json;
 		}
 
 		/**
-		 * Resets the base time.
-		 * 
-		 * Example:
-		 * <ul>
-		 * <li>resetBaseTime: 86_400_000 (1 day)</li>
-		 * <li>startTime: "2022-10-10T09:00:00.000-0400"</li>
-		 * <li>base time: "2024-11-11T11:12:34.565-0400"</li>
-		 * <li>new base time: "2024-11-11T09:00:00.000-0400" + resetStartTime</li>
-		 * <li>new base time: "2024-11-12T09:00:00.000-0400"</li>
-		 * </ul>
+		 * Resumes this publisher.
 		 * 
-		 * @param previousDatum Previous datum
+		 * @return false if stopped or not paused
 		 */
-		private long resetBaseTime() {
-			// Get time portion of startTime
+		boolean resume() {
+			synchronized (lifecycleLock) {
+				if (isEnabled == false || isPaused == false) {
+					return false;
+				}
+				isPaused = false;
+				if (isBackfilling) {
+					// The backfill starts the schedule when done
+				} else if (executionMode == ExecutionMode.VIRTUAL) {
+					LockSupport.unpark(loopThread);
+				} else {
+					start(0);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * Stops this publisher permanently. The run in progress, if any, completes.
+		 */
+		void cancel() {
+			synchronized (lifecycleLock) {
+				if (isEnabled) {
+					reportBackpressure(true);
+				}
+				isEnabled = false;
+				isPaused = false;
+				cancelSchedule();
+				Thread thread = loopThread;
+				if (thread != null) {
+					LockSupport.unpark(thread);
+				}
+			}
+		}
+
+		private void cancelSchedule() {
+			Future<?> future = this.future;
+			if (future != null && executionMode != ExecutionMode.VIRTUAL) {
+				// Do not interrupt the sink call in progress
+				future.cancel(false);
+			}
+			HashedWheelScheduler.Timeout timeout = this.timeout;
+			if (timeout != null) {
+				timeout.cancel();
+			}
+		}
+
+		/**
+		 * Generates and publishes one tick. Runs of the same publisher are
+		 * serialized so that a run in progress during pause and resume does not
+		 * overlap the next run.
+		 */
+		@Override
+		public void run() {
+			runLock.lock();
+			try {
+				runTick();
+			} finally {
+				runLock.unlock();
+			}
+		}
+
+		private void runTick() {
+			if (isEnabled == false || isPaused) {
+				return;
+			}
+
+			long now = System.nanoTime();
+			if (plan.isPaced() == false && backfillKeys == null) {
+				// Count the ticks that start more than one period past their deadlines
+				long period = TimeUnit.MILLISECONDS.toNanos(plan.getEquationDelay());
+				if (nextDeadline == Long.MIN_VALUE) {
+					nextDeadline = now;
+				} else if (now - nextDeadline > period) {
+					lateCount.increment();
+				}
+				nextDeadline += period;
+			}
+			if (plan.getBackpressureReportInterval() > 0 && now - nextReport >= 0) {
+				reportBackpressure(false);
+				nextReport = now + TimeUnit.MILLISECONDS.toNanos(plan.getBackpressureReportInterval());
+			}
+
+			// Direct publishing writes the payload without building the JSON object
+			boolean isDirect = sinkQueue == null && pipeline == null && backfillKeys == null;
+			if (fleetDatum != null) {
+				fleetDatum.generateFleetData();
+				int entityCount = fleetDatum.getEntityCount();
+				for (int i = 0; i < entityCount; i++) {
+					if (fleetDatum.isHeld(i)) {
+						// Held for the simulated clock after a base time reset
+						continue;
+					}
+					if (isDirect) {
+						fleetDatum.writePayload(i, payloadWriter);
+						publishPayload(resolveKey(fleetDatum.getTime(i), i));
+					} else {
+						emit(fleetDatum.toJson(i), i);
+					}
+				}
+			} else if (publisherDatum.nextTick()) {
+				// Skipped while holding for the simulated clock after a base time reset
+				if (isDirect) {
+					publisherDatum.writePayload(payloadWriter);
+					publishPayload(resolveKey(publisherDatum.getTime(), -1));
+				} else {
+					emit(publisherDatum.toJson(), -1);
+				}
+			}
+
+			if (publisherDatum.getMaxCount() >= 0
+					&& publisherDatum.getCount() >= publisherDatum.getMaxCount()) {
+				System.out.printf("Publisher max count reached [publisher=%s, count=%d]. Publisher stopped.%n",
+						publisherDatum.getName(), publisherDatum.getCount());
+				isEnabled = false;
+			} else if (publisherDatum.getIterations() >= 0
+					&& publisherDatum.getIterationCount() >= publisherDatum.getIterations()) {
+				System.out.printf(
+						"Publisher max iterations reached [publisher=%s, iterationCount=%d]. Publisher stopped.%n",
+						publisherDatum.getName(), publisherDatum.getIterationCount());
+				isEnabled = false;
+			}
+
+			// Cancel the schedule and stop the simulator if all publishers are
+			// terminated (disabled).
+			if (isEnabled == false) {
+				cancel();
+				stopSimulator();
+			}
+		}
+
+		/**
+		 * Publishes at the plan's target rate until the publisher is stopped. The
+		 * target rate counts messages, i.e., a fleet tick counts as entityCount
+		 * messages. All ticks that are due are run per wakeup, up to 10 msec worth
+		 * of ticks, so that the rate is not bound by the timer resolution.
+		 * 
+		 * @param generation Start generation. The loop exits if restarted.
+		 * @param isSpin     true to spin before each wakeup for precision. Must be
+		 *                   false on a virtual thread, which parks while paused
+		 *                   instead of exiting.
+		 */
+		void runPaced(int generation, boolean isSpin) {
+			int messagesPerTick = fleetDatum == null ? 1 : fleetDatum.getEntityCount();
+			if (plan.getRateProfile() != null) {
+				runProfiled(generation, isSpin, messagesPerTick);
+				return;
+			}
+			double tickRate = plan.getTargetRate() / messagesPerTick;
+			int burst = (int) Math.max(1, Math.min(Integer.MAX_VALUE, tickRate / 100));
+			RatePacer pacer = new RatePacer(tickRate, burst, isSpin);
+			while (isEnabled && generation == this.generation) {
+				if (isPaused) {
+					if (isSpin) {
+						break;
+					}
+					parkWhilePaused();
+					// Do not burst the paused period
+					pacer = new RatePacer(tickRate, burst, isSpin);
+					continue;
+				}
+				int ticks = pacer.acquire(burst);
+				if (ticks == 0) {
+					// Interrupted
+					break;
+				}
+				lateCount.add(pacer.takeDroppedPermits());
+				for (int i = 0; i < ticks && isEnabled && isPaused == false; i++) {
+					run();
+				}
+			}
+		}
+
+		/**
+		 * Publishes at the load profile's rate until the publisher is stopped. The
+		 * rate is re-evaluated every updateInterval msec and the achieved rate is
+		 * reported against the target rate per report window. The profile's time
+		 * starts when the publisher first starts and keeps running while paused.
+		 */
+		private void runProfiled(int generation, boolean isSpin, int messagesPerTick) {
+			RateProfile profile = plan.getRateProfile();
+			if (profileOrigin == Long.MIN_VALUE) {
+				profileOrigin = System.nanoTime();
+			}
+			long updateNanos = TimeUnit.MILLISECONDS.toNanos(profile.getUpdateInterval());
+			RatePacer pacer = null;
+			int burst = 1;
+			double rate = 0;
+			long now = System.nanoTime();
+			long nextUpdate = now;
+			long lastUpdate = now;
+
+			// Report window
+			int step = 0;
+			long windowStart = now;
+			long windowEnd = profile.getReportEnd(TimeUnit.NANOSECONDS.toMillis(now - profileOrigin));
+			double targetCount = 0;
+			long achievedCount = 0;
+
+			while (isEnabled && generation == this.generation) {
+				if (isPaused) {
+					if (isSpin) {
+						break;
+					}
+					parkWhilePaused();
+					// Do not burst the paused period
+					pacer = null;
+					nextUpdate = System.nanoTime();
+					continue;
+				}
+				now = System.nanoTime();
+				if (now - nextUpdate >= 0) {
+					targetCount += rate * (now - lastUpdate) / 1_000_000_000d;
+					lastUpdate = now;
+					long elapsed = TimeUnit.NANOSECONDS.toMillis(now - profileOrigin);
+					if (elapsed >= windowEnd) {
+						double seconds = (now - windowStart) / 1_000_000_000d;
+						System.out.printf(
+								"Load profile [publisher=%s, type=%s, step=%d, targetRate=%.1f, achievedRate=%.1f]%n",
+								plan.getName(), profile.getType(), step, targetCount / seconds,
+								achievedCount * messagesPerTick / seconds);
+						step++;
+						windowStart = now;
+						windowEnd = profile.getReportEnd(elapsed);
+						targetCount = 0;
+						achievedCount = 0;
+					}
+					rate = profile.getRate(elapsed) * plan.getRateScale();
+					double tickRate = rate / messagesPerTick;
+					burst = (int) Math.max(1, Math.min(Integer.MAX_VALUE, tickRate / 100));
+					if (tickRate <= 0) {
+						pacer = null;
+					} else if (pacer == null) {
+						pacer = new RatePacer(tickRate, burst, isSpin);
+					} else {
+						pacer.setRate(tickRate, burst);
+					}
+					nextUpdate = now + updateNanos;
+				}
+				if (pacer == null) {
+					// Idle at the rate of 0
+					if (parkUntil(nextUpdate) == false) {
+						break;
+					}
+					continue;
+				}
+				int ticks = pacer.acquire(burst, nextUpdate - System.nanoTime());
+				if (ticks == 0) {
+					if (Thread.currentThread().isInterrupted()) {
+						break;
+					}
+					continue;
+				}
+				lateCount.add(pacer.takeDroppedPermits());
+				for (int i = 0; i < ticks && isEnabled && isPaused == false; i++) {
+					run();
+					achievedCount++;
+				}
+			}
+		}
+
+		/**
+		 * Runs this publisher's own pacing loop until the publisher is stopped. This
+		 * method is for the VIRTUAL execution mode. It parks the thread between
+		 * ticks and while paused, which unmounts a virtual thread from its carrier
+		 * thread. Without the target rate, the ticks are run at the fixed rate of
+		 * equationDelay msec, catching up if behind, as scheduleAtFixedRate does.
+		 * 
+		 * @param generation   Start generation
+		 * @param initialDelay Delay of the first run in msec
+		 */
+		void runLoop(int generation, long initialDelay) {
+			loopThread = Thread.currentThread();
+			loopThread.setName("publisher-" + plan.getName());
+			try {
+				long next = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+				if (parkUntil(next) == false) {
+					return;
+				}
+				if (plan.isPaced()) {
+					runPaced(generation, false);
+					return;
+				}
+				long period = TimeUnit.MILLISECONDS.toNanos(plan.getEquationDelay());
+				while (isEnabled && generation == this.generation) {
+					if (isPaused) {
+						parkWhilePaused();
+						next = System.nanoTime();
+						continue;
+					}
+					run();
+					next += period;
+					if (parkUntil(next) == false) {
+						break;
+					}
+				}
+			} finally {
+				loopThread = null;
+			}
+		}
+
+		/**
+		 * Parks until the specified System.nanoTime() deadline or until this
+		 * publisher is paused or stopped.
+		 * 
+		 * @return false if interrupted or stopped
+		 */
+		private boolean parkUntil(long deadline) {
+			long remaining;
+			while ((remaining = deadline - System.nanoTime()) > 0 && isPaused == false) {
+				LockSupport.parkNanos(this, remaining);
+				if (Thread.currentThread().isInterrupted() || isEnabled == false) {
+					return false;
+				}
+			}
+			return isEnabled;
+		}
+
+		/**
+		 * Parks while this publisher is paused.
+		 */
+		private void parkWhilePaused() {
+			while (isPaused && isEnabled && Thread.currentThread().isInterrupted() == false) {
+				LockSupport.park(this);
+			}
+		}
+
+		/**
+		 * Sends the specified JSON object to the sink. The key is resolved here, in
+		 * the tick order, so that the key sequence does not depend on the
+		 * backpressure policy. BLOCK publishes directly. The other policies queue
+		 * to the sink thread.
+		 * 
+		 * @param json   JSON object
+		 * @param entity Fleet entity index, or -1 if not a fleet
+		 */
+		private void emit(JSONObject json, int entity) {
+			String key = resolveKey(json.getString(PublisherPlan.TIME_FIELD), entity);
+			if (backfillKeys != null) {
+				backfillKeys.add(key);
+				backfillValues.add(json);
+			} else if (pipeline != null) {
+				long sequence = pipeline.claim(plan.getBackpressurePolicy() == BackpressurePolicy.BLOCK);
+				if (sequence >= 0) {
+					PipelineEvent event = pipeline.get(sequence);
+					event.json = json;
+					event.key = key;
+					// Keyed messages stay in order per key. Keyless messages, i.e., the
+					// payload-only data structures, are spread over the senders.
+					pipeline.publish(sequence, key == null ? (int) sequence : key.hashCode());
+				}
+			} else if (sinkQueue == null) {
+				publish(json, key);
+			} else {
+				sinkQueue.offer(key, json);
+			}
+		}
+
+		/**
+		 * Resolves the key of the current tick.
+		 * 
+		 * @param time   Formatted time of the tick
+		 * @param entity Fleet entity index, or -1 if not a fleet. The entity ID is
+		 *               used as the key and appended to the MQTT topic name, i.e.,
+		 *               "topic/entityId".
+		 * @return MQTT topic, map key, or the entity ID or null for non-keyed data
+		 *         structures
+		 */
+		private String resolveKey(String time, int entity) {
+			String entityId = entity < 0 ? null : fleetDatum.getEntityId(entity);
+			String key;
+			if (plan.isMqtt()) {
+				if (entityId == null) {
+					key = plan.getDsName();
+				} else {
+					if (entityTopics == null) {
+						entityTopics = new String[fleetDatum.getEntityCount()];
+					}
+					key = entityTopics[entity];
+					if (key == null) {
+						key = plan.getDsName() + "/" + entityId;
+						entityTopics[entity] = key;
+					}
+				}
+			} else if (plan.isGeode() || (plan.isHazelcast()
+					&& (plan.getDsType() == DsType.MAP || plan.getDsType() == DsType.RMAP))) {
+				key = entityId == null ? nextKey(time) : entityId;
+			} else {
+				// Payload only. COALESCE keeps the latest per entity.
+				key = entityId;
+			}
+			return key;
+		}
+
+		/**
+		 * Creates a payload writer for this publisher. Geode/GemFire publishers
+		 * build PDX instances directly.
+		 */
+		private PayloadWriter createPayloadWriter() {
+			if (plan.isGeode() && clientCache != null) {
+				return new PdxPayloadWriter(plan, clientCache);
+			}
+			return PayloadWriter.create(plan);
+		}
+
+		/**
+		 * Publishes the payload encoded by the payload writer.
+		 * 
+		 * @param key MQTT topic or map key resolved by
+		 *            {@linkplain #resolveKey(String, int)}
+		 */
+		private void publishPayload(String key) {
+			send(serializePayload(), key, isQuiet ? null : payloadWriter);
+		}
+
+		/**
+		 * Serializes the payload writer's payload into the data structure's value
+		 * type. MQTT gets a copy of the bytes since the client may hold on to
+		 * them.
+		 * 
+		 * @return null if the product is not supported or the serialization fails
+		 */
+		private Object serializePayload() {
+			try {
+				if (plan.isMqtt()) {
+					return payloadWriter.toByteArray();
+				} else if (plan.isGeode()) {
+					if (payloadWriter instanceof PdxPayloadWriter) {
+						return ((PdxPayloadWriter) payloadWriter).getPdxInstance();
+					}
+					return JSONFormatter.fromJSON(payloadWriter.toByteArray());
+				} else if (plan.isHazelcast()) {
+					if (payloadWriter instanceof CompactPayloadWriter) {
+						return ((CompactPayloadWriter) payloadWriter).getRecord();
+					}
+					return new HazelcastJsonValue(payloadWriter.toString());
+				}
+			} catch (Exception ex) {
+				// Ignored as send() does
+			}
+			return null;
+		}
+
+		/**
+		 * Pipeline serializer stage.
+		 */
+		private void serializeEvent(PipelineEvent event, boolean endOfBatch) {
+			event.value = serialize(event.json);
+		}
+
+		/**
+		 * Pipeline sender stage. Collects the sender's events and sends them with
+		 * the data structure's bulk operation at the end of the sender's batch.
+		 * Clears the event for reuse.
+		 */
+		private void sendEvent(PipelineEvent event, boolean endOfBatch) {
+			SendBatch batch = sendBatches.get();
+			batch.keys.add(event.key);
+			batch.values.add(event.value);
+			batch.jsons.add(event.json);
+			event.json = null;
+			event.key = null;
+			event.value = null;
+			if (endOfBatch) {
+				try {
+					sendAll(batch.keys, batch.values, batch.jsons, "batch");
+				} finally {
+					batch.clear();
+				}
+			}
+		}
+
+		/**
+		 * Starts the backfill thread. A VIRTUAL publisher's backfill runs on a
+		 * virtual thread.
+		 */
+		void startBackfill() {
+			isBackfilling = true;
+			if (executionMode == ExecutionMode.VIRTUAL) {
+				virtualExecutor.execute(this::runBackfill);
+			} else {
+				getSinkExecutor().execute(this::runBackfill);
+			}
+		}
+
+		/**
+		 * Generates the ticks from startTime up to the current time without pacing
+		 * and writes them in batches. Then starts the publisher live, or stops it if
+		 * live is false. The backfill also stops at maxCount or iterations.
+		 */
+		private void runBackfill() {
+			Thread.currentThread().setName("backfill-" + plan.getName());
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(plan.getInitialDelay()));
+			System.out.printf("Publisher backfill started [publisher=%s, startTime=%s]%n", plan.getName(),
+					publisherDatum.formatTime(publisherDatum.getTimestamp()));
+			int batchSize = plan.getBackfillBatchSize();
+			backfillValues = new ArrayList<JSONObject>(batchSize);
+			backfillKeys = new ArrayList<String>(batchSize);
+			long messageCount = 0;
+			long startNanos = System.nanoTime();
+			try {
+				while (isEnabled && publisherDatum.getTimestamp() <= currentTimeMillis()) {
+					if (isPaused) {
+						messageCount += flushBackfill();
+						LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+						continue;
+					}
+					run();
+					if (backfillKeys.size() >= batchSize) {
+						messageCount += flushBackfill();
+					}
+				}
+				messageCount += flushBackfill();
+			} finally {
+				backfillKeys = null;
+				backfillValues = null;
+			}
+			// Live ticks follow the shared clock
+			publisherDatum.isClocked = simulatedClock != null;
+			double seconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+			System.out.printf("Publisher backfill completed [publisher=%s, count=%d, elapsed=%.1f sec, rate=%.1f/sec]%n",
+					plan.getName(), messageCount, seconds, seconds > 0 ? messageCount / seconds : 0);
+			synchronized (lifecycleLock) {
+				isBackfilling = false;
+				if (isEnabled == false) {
+					return;
+				}
+				if (plan.isBackfillLive() == false) {
+					cancel();
+				} else {
+					// If paused, then resume() starts it. A VIRTUAL loop parks while paused.
+					if (isPaused == false || executionMode == ExecutionMode.VIRTUAL) {
+						start(0);
+					}
+					return;
+				}
+			}
+			stopSimulator();
+		}
+
+		/**
+		 * Writes the backfill batch with {@linkplain #sendAll(ArrayList, ArrayList, ArrayList, String)}.
+		 * 
+		 * @return Number of messages in the batch
+		 */
+		private int flushBackfill() {
+			ArrayList<String> keys = backfillKeys;
+			ArrayList<JSONObject> jsons = backfillValues;
+			int count = jsons.size();
+			if (count == 0) {
+				return 0;
+			}
+			ArrayList<Object> values = new ArrayList<Object>(count);
+			for (int i = 0; i < count; i++) {
+				values.add(serialize(jsons.get(i)));
+			}
+			sendAll(keys, values, jsons, "backfill");
+			keys.clear();
+			jsons.clear();
+			return count;
+		}
+
+		/**
+		 * Sends the specified serialized values with the data structure's bulk
+		 * operation, i.e., putAll for Geode/GemFire regions and Hazelcast replicated
+		 * maps, setAll for Hazelcast maps, addAll for queues and publishAll for
+		 * topics. MQTT has no bulk operation. Its messages are published one by one.
+		 * In a map batch, the last value of a key wins. Null values, i.e., failed
+		 * serializations, are skipped.
+		 * 
+		 * @param keys   MQTT topics or map keys
+		 * @param values Values serialized by {@linkplain #serialize(JSONObject)}
+		 * @param jsons  JSON objects for the console output
+		 * @param label  Batch label for the console output
+		 */
+		private void sendAll(ArrayList<String> keys, ArrayList<Object> values, ArrayList<JSONObject> jsons,
+				String label) {
+			int count = values.size();
+			Product product = plan.getProduct();
+			try {
+				if (plan.isMqtt()) {
+					for (int i = 0; i < count; i++) {
+						send(values.get(i), keys.get(i), jsons.get(i));
+					}
+				} else if (plan.isGeode()) {
+					if (region != null) {
+						LinkedHashMap<String, PdxInstance> map = new LinkedHashMap<String, PdxInstance>(count * 2);
+						for (int i = 0; i < count; i++) {
+							if (values.get(i) != null) {
+								map.put(keys.get(i), (PdxInstance) values.get(i));
+							}
+						}
+						region.putAll(map);
+						if (isQuiet == false) {
+							System.out.printf("product=%s, region=%s: %s [count=%d]%n", product,
+									region.getFullPath(), label, map.size());
+						}
+					}
+				} else if (plan.isHazelcast()) {
+					int sentCount;
+					switch (plan.getDsType()) {
+					case MAP:
+					case RMAP:
+						LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>(count * 2);
+						for (int i = 0; i < count; i++) {
+							if (values.get(i) != null) {
+								map.put(keys.get(i), values.get(i));
+							}
+						}
+						if (hzMap != null) {
+							hzMap.setAll(map);
+						} else if (hzRMap != null) {
+							hzRMap.putAll(map);
+						}
+						sentCount = map.size();
+						break;
+
+					default:
+						ArrayList<Object> list = new ArrayList<Object>(count);
+						for (int i = 0; i < count; i++) {
+							if (values.get(i) != null) {
+								list.add(values.get(i));
+							}
+						}
+						if (hzQueue != null) {
+							hzQueue.addAll(list);
+						} else if (hzRTopic != null) {
+							hzRTopic.publishAll(list);
+						} else if (hzTopic != null) {
+							hzTopic.publishAll(list);
+						}
+						sentCount = list.size();
+						break;
+					}
+					if (isQuiet == false) {
+						System.out.printf("product=%s, %s=%s: %s [count=%d]%n", product,
+								plan.getDsType().name().toLowerCase(), plan.getDsName(), label, sentCount);
+					}
+				}
+			} catch (Exception ex) {
+				// Ignored as send() does
+			}
+		}
+
+		/**
+		 * Starts the sink thread that drains the sink queue. A VIRTUAL publisher's
+		 * sink runs on a virtual thread.
+		 */
+		void startSink() {
+			if (executionMode == ExecutionMode.VIRTUAL) {
+				virtualExecutor.execute(this::runSink);
+			} else {
+				getSinkExecutor().execute(this::runSink);
+			}
+		}
+
+		/**
+		 * Publishes the queued messages until the publisher is stopped and the
+		 * queue is drained.
+		 */
+		private void runSink() {
+			Thread.currentThread().setName("sink-" + plan.getName());
+			ArrayList<String> keys = new ArrayList<String>(100);
+			ArrayList<JSONObject> values = new ArrayList<JSONObject>(100);
+			try {
+				while (isEnabled || sinkQueue.size() > 0) {
+					int count = sinkQueue.drainTo(keys, values, 100, 100, TimeUnit.MILLISECONDS);
+					for (int i = 0; i < count; i++) {
+						publish(values.get(i), keys.get(i));
+					}
+					keys.clear();
+					values.clear();
+				}
+			} catch (InterruptedException e) {
+				// exit
+			}
+		}
+
+		/**
+		 * Prints the late, dropped and coalesced counts if they changed since the
+		 * last report.
+		 * 
+		 * @param isFinal true if the publisher is stopping. The counts are printed
+		 *                if any is non-zero.
+		 */
+		private void reportBackpressure(boolean isFinal) {
+			long late = lateCount.sum();
+			long dropped = sinkQueue != null ? sinkQueue.getDroppedCount()
+					: pipeline != null ? pipeline.getDroppedCount() : 0;
+			long coalesced = sinkQueue == null ? 0 : sinkQueue.getCoalescedCount();
+			long total = late + dropped + coalesced;
+			if (total == reportedCount && (isFinal == false || total == 0)) {
+				return;
+			}
+			reportedCount = total;
+			System.out.printf(
+					"Publisher backpressure [publisher=%s, policy=%s, late=%d, dropped=%d, coalesced=%d, queued=%d]%n",
+					plan.getName(), plan.getBackpressurePolicy(), late, dropped, coalesced,
+					sinkQueue != null ? sinkQueue.size() : pipeline != null ? pipeline.getPendingCount() : 0);
+		}
+
+		/**
+		 * Publishes the specified JSON object to the publisher's data structure.
+		 * 
+		 * @param json JSON object
+		 * @param key  MQTT topic or map key resolved by
+		 *             {@linkplain #emit(JSONObject, int)}. Ignored for
+		 *             non-keyed data structures.
+		 */
+		private void publish(JSONObject json, String key) {
+			send(serialize(json), key, json);
+		}
+
+		/**
+		 * Serializes the specified JSON object into the data structure's value
+		 * type, i.e., bytes in the payload format for MQTT, PdxInstance for
+		 * Geode/GemFire and HazelcastJsonValue or GenericRecord (COMPACT) for
+		 * Hazelcast.
+		 * 
+		 * @return null if the product is not supported or the serialization fails
+		 */
+		private Object serialize(JSONObject json) {
+			try {
+				if (plan.isMqtt()) {
+					if (jsonPayloadWriters != null) {
+						PayloadWriter writer = jsonPayloadWriters.get();
+						writer.write(json);
+						return writer.toByteArray();
+					}
+					return json.toString().getBytes();
+				} else if (plan.isGeode()) {
+					if (jsonPayloadWriters != null) {
+						PdxPayloadWriter writer = (PdxPayloadWriter) jsonPayloadWriters.get();
+						writer.write(json);
+						return writer.getPdxInstance();
+					}
+					return JSONFormatter.fromJSON(json.toString());
+				} else if (plan.isHazelcast()) {
+					if (jsonPayloadWriters != null) {
+						CompactPayloadWriter writer = (CompactPayloadWriter) jsonPayloadWriters.get();
+						writer.write(json);
+						return writer.getRecord();
+					}
+					return new HazelcastJsonValue(json.toString());
+				}
+			} catch (Exception ex) {
+				// Ignored as send() does
+			}
+			return null;
+		}
+
+		/**
+		 * Sends the specified serialized value to the publisher's data structure.
+		 * 
+		 * @param value Value serialized by {@linkplain #serialize(JSONObject)}
+		 * @param key   MQTT topic or map key
+		 * @param json  JSON object or payload writer for the console output
+		 */
+		private void send(Object value, String key, Object json) {
+			if (value == null) {
+				return;
+			}
+			Product product = plan.getProduct();
+			try {
+				if (plan.isMqtt()) {
+					String topic = key;
+					haclient.publish(topic, (byte[]) value, 0, false);
+					if (isQuiet == false) {
+						System.out.printf("product=%s, topic=%s: %s%n", product, topic, json);
+					}
+				} else if (plan.isGeode()) {
+					PdxInstance pdxObj = (PdxInstance) value;
+					switch (plan.getDsType()) {
+					case MAP:
+					case REGION:
+					default:
+						if (region != null) {
+							region.put(key, pdxObj);
+							if (isQuiet == false) {
+								System.out.printf("product=%s, region=%s: %s, %s%n", product,
+										region.getFullPath(), key, json);
+							}
+						}
+						break;
+					}
+
+				} else if (plan.isHazelcast()) {
+					Object hzValue = value;
+					switch (plan.getDsType()) {
+					case MAP:
+					case RMAP:
+						if (hzMap != null) {
+							hzMap.set(key, hzValue);
+							if (isQuiet == false) {
+								System.out.printf("product=%s, map=%s: %s, %s%n", product,
+										hzMap.getName(), key, json);
+							}
+						} else if (hzRMap != null) {
+							hzRMap.put(key, hzValue);
+							if (isQuiet == false) {
+								System.out.printf("product=%s, rmap=%s: %s, %s%n", product,
+										hzRMap.getName(), key, json);
+							}
+						}
+						break;
+
+					case QUEUE:
+						hzQueue.offer(hzValue);
+						if (isQuiet == false) {
+							System.out.printf("product=%s, queue=%s: %s%n", product,
+									hzQueue.getName(), json);
+						}
+						break;
+
+					case RTOPIC:
+						hzRTopic.publish(hzValue);
+						if (isQuiet == false) {
+							System.out.printf("product=%s, rtopic=%s: %s%n", product,
+									hzRTopic.getName(), json);
+						}
+						break;
+
+					case TOPIC:
+					default:
+						hzTopic.publish(hzValue);
+						if (isQuiet == false) {
+							System.out.printf("product=%s, topic=%s: %s%n", product,
+									hzTopic.getName(), json);
+						}
+						break;
+					}
+				}
+			} catch (Exception ex) {
+				// TODO: Ignore for now
+//				System.err.printf("ERROR: Exception occurred while invoking data structure [%s]%n",
+//						ex.getMessage());
+			}
+		}
+
+		/**
+		 * Returns the next key determined by the data structure's key type.
+		 */
+		private String nextKey(String time) {
+			String key;
+			switch (plan.getKeyType()) {
+			case FIXED:
+				key = plan.getKeyValue();
+				break;
+
+			case TIME:
+				key = time;
+				break;
+
+			case UUID:
+				key = UUID.randomUUID().toString();
+				break;
+
+			case SEQUENCE:
+			default:
+				key = Long.toString(keySeq);
+				keySeq++;
+				break;
+			}
+			return key;
+		}
+	}
+
+	/**
+	 * Stop the simulator if all publishers are terminated (disabled). The shutdown
+	 * is done by a separate thread since it waits for the publisher threads,
+	 * which may include the caller.
+	 */
+	private void stopSimulator() {
+		boolean isAllTerminated = true;
+		for (PublisherTask task : taskList) {
+			if (task.isEnabled) {
+				isAllTerminated = false;
+				break;
+			}
+		}
+		if (isAllTerminated && isShutdown.get() == false) {
+			new Thread(this::shutdown, "simulator-shutdown").start();
+		}
+	}
+
+	/**
+	 * Gracefully shuts down the simulator. All publishers are stopped, the runs
+	 * in progress are drained, i.e., their in-flight sink operations complete, for
+	 * up to shutdownTimeout msec, and then the clients are closed. This method is
+	 * idempotent.
+	 */
+	private void shutdown() {
+		if (isShutdown.compareAndSet(false, true) == false) {
+			return;
+		}
+		for (PublisherTask task : taskList) {
+			task.cancel();
+		}
+		if (ses != null) {
+			ses.shutdown();
+		}
+		if (virtualExecutor != null) {
+			virtualExecutor.shutdown();
+		}
+		if (wheelScheduler != null) {
+			wheelScheduler.shutdown();
+		}
+		if (sinkExecutor != null) {
+			// The sink threads exit after draining their queues
+			sinkExecutor.shutdown();
+		}
+
+		// Drain
+		long shutdownTimeout = simulatorConfig == null ? 0 : simulatorConfig.getShutdownTimeout();
+		long deadline = System.currentTimeMillis() + shutdownTimeout;
+		boolean isDrained = true;
+		try {
+			if (ses != null) {
+				isDrained &= ses.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			if (virtualExecutor != null) {
+				isDrained &= virtualExecutor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			if (wheelScheduler != null) {
+				isDrained &= wheelScheduler.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			if (sinkExecutor != null) {
+				isDrained &= sinkExecutor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+			// The ticks have stopped. Let the pipelines send what they hold.
+			for (PublisherTask task : taskList) {
+				if (task.pipeline != null) {
+					task.pipeline.shutdown();
+				}
+			}
+			for (PublisherTask task : taskList) {
+				if (task.pipeline != null) {
+					isDrained &= task.pipeline.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()),
+							TimeUnit.MILLISECONDS);
+				}
+			}
+		} catch (InterruptedException e) {
+			isDrained = false;
+			Thread.currentThread().interrupt();
+		}
+		if (isDrained == false) {
+			System.err.printf("WARNING: Publishers not drained within the shutdown timeout [shutdownTimeout=%d].%n",
+					shutdownTimeout);
+		}
+
+		// Close the clients. They may have been closed by their own shutdown hooks.
+		try {
+			// Geode/GemFire
+			if (clientCache != null && clientCache.isClosed() == false) {
+				clientCache.close();
+			}
+		} catch (Exception ex) {
+			// ignore
+		}
+		try {
+			// MQTT
+			if (haclient != null) {
+				haclient.disconnect();
+			}
+		} catch (Exception ex) {
+			// ignore
+		}
+		try {
+			// Hazelcast
+			if (hzInstance != null) {
+				hzInstance.shutdown();
+			}
+		} catch (Exception ex) {
+			// ignore
+		}
+	}
+
+	private Equation getEquation(String equationName) {
+		return equationMap.get(equationName);
+	}
+
+	private static void writeLine() {
+		System.out.println();
+	}
+
+	private static void writeLine(String line) {
+		System.out.println(line);
+	}
+
+	@SuppressWarnings("unused")
+	private static void write(String str) {
+		System.out.print(str);
+	}
+
+	private void usage() {
+		String executable = System.getProperty(PROPERTY_executableName, DataFeedSimulatorPlugin.class.getName());
+		if (pluginName != null) {
+			writeLine();
+			writeLine("PLUGIN");
+			writeLine("   " + pluginName + " - " + description);
+		}
+		writeLine();
+		writeLine("NAME");
+		writeLine("   " + executable + " - Publish simulated data generated by equations");
+		writeLine();
+		writeLine("SYNOPSIS");
+		writeLine("   " + executable + " [-product mqtt|geode|gemfire|hazelcast] [-cluster cluster_name] [-config config_file]");
+		writeLine("            [-simulator-config simulator_config_file] [-shard i/N] [-quiet] [-?]");
+		writeLine();
+		writeLine("DESCRIPTION");
+		writeLine("   Publishes simulated data generated by the equations defined in the following configuration");
+		writeLine("   file.");
+		writeLine();
+		writeLine("      etc/simulator-padogrid.yaml");
+		writeLine();
+		writeLine("   You can supply additional equations by creating static methods with the following");
+		writeLine("   signature.");
+		writeLine();
+		writeLine("      public final static double your_equation(double x);");
+		writeLine();
+		writeLine("   The static method takes the input x, and returns y of your equation. For example,");
+		writeLine("   the following method defines y = x^2.");
+		writeLine();
+		writeLine("      public final static double xsquared(double x) {");
+		writeLine("         return x*x;");
+		writeLine("      }");
+		writeLine();
+		writeLine("   Alternatively, you can also supply classes that implement the following interface.");
+		writeLine();
+		writeLine("      padgrid.simulator.ICalculation.");
+		writeLine();
+		writeLine("   See etc/template-simulator-padogrid.yaml for details.");
+		writeLine();
+		writeLine("OPTIONS");
+		writeLine("   -product mqtt|geode|gemfire|hazelcast");
+		writeLine("             Publishes data to the specified product. If this option is unspecified,");
+		writeLine("             then by default, the simulator publishes to all of the products defined in the");
+		writeLine("             configuration file.");
+		writeLine();
+		writeLine("   -cluster cluster_name");
+		writeLine("             Connects to the specified cluster defined in the MQTT configuration file.");
+		writeLine("             This option applies to MQTT only. It is ignored for Geode/GemFire and Hazelcast.");
+		writeLine();
+		writeLine("   -config config_file");
+		writeLine("             Optional MQTT configuration file.");
+		writeLine("             Default: etc/mqttv5-client.yaml");
+		writeLine();
+		writeLine("   -simulator-config simulator_config_file");
+		writeLine("             Optional simulator configuration file.");
+		writeLine("             Default: etc/simulator-padogrid.yaml");
+		writeLine();
+		writeLine("   -shard i/N");
+		writeLine("             Runs shard i of N simulator instances sharing the same simulator configuration,");
+		writeLine("             where 0 <= i < N. The publishers are assigned to the shards round-robin in the");
+		writeLine("             configured order. Fleet publishers run in all shards, each publishing a");
+		writeLine("             contiguous slice of the entities with their global entity IDs, and their");
+		writeLine("             targetRate, loadProfile rates and maxCount are scaled to the slice. The shards");
+		writeLine("             never publish the same key.");
+		writeLine("             Default: 0/1");
+		writeLine();
+		writeLine("   -quiet");
+		writeLine("             Stops printing simulated data.");
+		writeLine();
+		writeLine("SEE ALSO");
+		writeLine("   chart_mqtt(1), chart_hazelcast(1)");
+		writeLine("   etc/simulator-edge.yaml");
+		writeLine("   etc/simulator-misc.yaml");
+		writeLine("   etc/simulator-padogrid.yaml");
+		writeLine("   etc/simulator-stocks.yaml");
+		writeLine("   etc/template-simulator-padogrid.yaml");
+		writeLine();
+	}
+
+	class PublisherDatum {
+		String name;
+		Equation[] equations;
+		// Group of each equation, null if ungrouped. Group members are contiguous.
+		EquationGroup[] groups;
+		String[] fieldNames;
+		Datum[] data;
+		Equation resetEquation;
+		Datum resetDatum;
+		long timeInterval;
+		long startTime;
+		long timestamp;
+		// Timestamp of the current tick
+		long tickTimestamp;
+		TimestampCodec timestampCodec;
+		long resetBaseTime = 0;
+		// true to stamp the ticks with the shared simulated clock
+		boolean isClocked;
+		// Simulated time until which the ticks are held after a base time reset
+		long holdUntil = Long.MIN_VALUE;
+		long maxCount = -1;
+		long iterations = -1;
+		long count = 0;
+		long iterationCount = 0;
+
+		PublisherDatum(PublisherPlan plan) {
+			this.name = plan.getName();
+			this.equations = plan.getEquations();
+			this.groups = plan.getGroups();
+			this.fieldNames = plan.getFieldNames();
+			this.data = new Datum[equations.length];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = equations[i].createDatum();
+			}
+			this.timeInterval = plan.getTimeInterval();
+			this.timestampCodec = new TimestampCodec(plan.getTimeFormat());
+			if (plan.getStartTime() != Long.MIN_VALUE) {
+				this.startTime = plan.getStartTime();
+			} else {
+				this.startTime = simulatedClock != null ? simulatedClock.getStartTime() : System.currentTimeMillis();
+			}
+			this.timestamp = startTime;
+			// A backfill generates its ticks by timeInterval and then follows the clock
+			this.isClocked = simulatedClock != null && plan.isBackfill() == false;
+
+			// Determine reset equation if defined
+			if (plan.getResetIndex() >= 0) {
+				resetBaseTime = plan.getResetBaseTime();
+				resetEquation = equations[plan.getResetIndex()];
+				resetDatum = data[plan.getResetIndex()];
+			}
+			this.iterations = plan.getIterations();
+			this.maxCount = plan.getMaxCount();
+		}
+
+		/**
+		 * Generates data by invoking all equations. An equation group updates all of
+		 * its members in a single step at its first member.
+		 * <p>
+		 * With the simulated clock, the tick is stamped with the clock's current
+		 * time. A base time reset does not move the timestamp. Instead, the ticks
+		 * are held until the clock reaches the new base time, so that all publishers
+		 * stay on the same clock.
+		 * <p>
+		 * The tick's values are then read by {@linkplain #toJson()} or
+		 * {@linkplain #writePayload(PayloadWriter)}.
+		 * 
+		 * @return false if the tick is held for the simulated clock
+		 */
+		boolean nextTick() {
+			if (isClocked) {
+				long now = simulatedClock.currentTimeMillis();
+				if (now < holdUntil) {
+					return false;
+				}
+				timestamp = now;
+			}
+
+			// Generate data
+			for (int i = 0; i < data.length; i++) {
+				EquationGroup group = groups[i];
+				if (group == null) {
+					data[i] = equations[i].updateDatum(data[i]);
+				} else if (group.getEquations()[0] == equations[i]) {
+					group.updateData(data, i);
+				}
+			}
+			tickTimestamp = timestamp;
+
+			// If reset then update timestamp accordingly
+			if (resetEquation != null) {
+				boolean isResetBaseTime = false;
+				double baseValue = resetDatum.getBaseValue();
+				switch (resetEquation.getType()) {
+				case REPEAT:
+					if (baseValue >= resetEquation.getMaxBase()) {
+						isResetBaseTime = resetBaseTime != 0 ? true : false;
+						iterationCount++;
+					}
+					break;
+				case REVERSE:
+				default:
+					if (baseValue >= resetEquation.getMaxBase()) {
+						isResetBaseTime = resetBaseTime != 0 ? true : false;
+						iterationCount++;
+					} else if (baseValue <= resetEquation.getMinBase()) {
+						isResetBaseTime = resetBaseTime != 0 ? true : false;
+						iterationCount++;
+					}
+					break;
+				}
+				if (isResetBaseTime) {
+					if (isClocked) {
+						holdUntil = resetBaseTime(timestamp);
+					} else {
+						timestamp = resetBaseTime(timestamp);
+					}
+				} else {
+					timestamp += timeInterval;
+				}
+			} else {
+				timestamp += timeInterval;
+			}
+			if (maxCount > 0) {
+				count++;
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the JSON object of the current tick's values.
+		 */
+		JSONObject toJson() {
+			JSONObject json = new JSONObject();
+			for (int i = 0; i < data.length; i++) {
+				json.put(fieldNames[i], data[i].getValue());
+			}
+			json.put(PublisherPlan.TIME_FIELD, formatTime(tickTimestamp));
+			return json;
+		}
+
+		/**
+		 * Writes the current tick's values to the specified writer.
+		 */
+		void writePayload(PayloadWriter writer) {
+			for (int i = 0; i < data.length; i++) {
+				writer.setValue(i, data[i].getValue());
+			}
+			writer.setTime(formatTime(tickTimestamp));
+			writer.setTimestamp(tickTimestamp);
+			writer.write();
+		}
+
+		/**
+		 * Returns the formatted time of the current tick.
+		 */
+		String getTime() {
+			return formatTime(tickTimestamp);
+		}
+
+		/**
+		 * Formats the specified timestamp. The codec returns the last result as is
+		 * since consecutive calls mostly format the same timestamp.
+		 */
+		String formatTime(long timestamp) {
+			return timestampCodec.format(timestamp);
+		}
+
+		/**
+		 * Resets the base time.
+		 * 
+		 * Example:
+		 * <ul>
+		 * <li>resetBaseTime: 86_400_000 (1 day)</li>
+		 * <li>startTime: "2022-10-10T09:00:00.000-0400"</li>
+		 * <li>base time: "2024-11-11T11:12:34.565-0400"</li>
+		 * <li>new base time: "2024-11-11T09:00:00.000-0400" + resetStartTime</li>
+		 * <li>new base time: "2024-11-12T09:00:00.000-0400"</li>
+		 * </ul>
+		 * 
+		 * @param timestamp Current base time
+		 */
+		long resetBaseTime(long timestamp) {
+			// Get time portion of startTime
 			Calendar calendar = Calendar.getInstance();
 			calendar.setTimeInMillis(startTime);
 			int hour = calendar.get(Calendar.HOUR); // 12 hour clock
@@ -899,5 +2194,337 @@ public class DataFeedSimulatorPlugin implements IHaMqttPlugin, Constants {
 		public long getIterationCount() {
 			return iterationCount;
 		}
+
+		/**
+		 * Returns the simulated time of the next tick in msec.
+		 */
+		long getTimestamp() {
+			return timestamp;
+		}
+	}
+
+	/**
+	 * {@linkplain FleetDatum} drives the publisher's equations for all entities
+	 * of a fleet. The entity state is kept in primitive arrays indexed by entity,
+	 * i.e., one array per equation for base values, upticks and values, and one
+	 * array for timestamps, instead of {@linkplain Datum} objects. Each tick
+	 * evaluates an equation for all entities in a single batch call.
+	 * <p>
+	 * The per-entity phase, value offset and jitter sequences are derived from the
+	 * fleet seed so that the same seed reproduces the same fleet.
+	 */
+	class FleetDatum extends PublisherDatum {
+		private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+		final int entityStart;
+		final int entityCount;
+		final String idPrefix;
+		final String idField;
+
+		// [equation][entity]
+		final double[][] baseValues;
+		final boolean[][] upTicks;
+		final double[][] values;
+
+		// [entity]
+		final long[] timestamps;
+		final long[] jitterStates;
+		final double[] offsets;
+		final double[] noise;
+
+		final int resetIndex;
+		// [entity] Simulated time until which the entity is held after a base time
+		// reset. Null if the simulated clock or the base time reset is undefined.
+		final long[] holdUntils;
+		final boolean[] held;
+		private int heldCount;
+		// Base values of the held entities saved while the others advance
+		private double[] heldBaseValues;
+		private boolean[] heldUpTicks;
+		private boolean isFirst = true;
+		// Entity IDs built on first use
+		private final String[] entityIds;
+
+		FleetDatum(PublisherPlan plan) {
+			super(plan);
+			this.entityStart = plan.getEntityStart();
+			this.entityCount = plan.getEntityCount();
+			this.idPrefix = plan.getIdPrefix();
+			this.idField = plan.getIdField();
+
+			this.baseValues = new double[equations.length][entityCount];
+			this.upTicks = new boolean[equations.length][entityCount];
+			this.values = new double[equations.length][entityCount];
+			this.timestamps = new long[entityCount];
+			this.jitterStates = new long[entityCount];
+			this.noise = new double[entityCount];
+			this.offsets = plan.getValueOffset() != 0 ? new double[entityCount] : null;
+			this.resetIndex = plan.getResetIndex();
+			this.entityIds = new String[entityCount];
+			if (simulatedClock != null && resetIndex >= 0 && resetBaseTime != 0) {
+				this.holdUntils = new long[entityCount];
+				this.held = new boolean[entityCount];
+				Arrays.fill(holdUntils, Long.MIN_VALUE);
+			} else {
+				this.holdUntils = null;
+				this.held = null;
+			}
+
+			long seed = plan.getFleetSeed();
+			Arrays.fill(timestamps, startTime);
+			for (int i = 0; i < equations.length; i++) {
+				equations[i].resetBaseValues(baseValues[i], upTicks[i], entityCount);
+			}
+			for (int e = 0; e < entityCount; e++) {
+				// Independent streams per entity: phase, offset, jitter. Seeded by the
+				// global index so that the entity is the same in any shard.
+				long entitySeed = mix64(seed + GOLDEN_GAMMA * (entityStart + e + 1));
+				if (plan.isRandomPhase()) {
+					double phase = toDouble(mix64(entitySeed + 1));
+					boolean isUpTick = (mix64(entitySeed + 2) & 1) == 0;
+					for (int i = 0; i < equations.length; i++) {
+						Equation equation = equations[i];
+						if (equation.isStochastic()) {
+							// The process state has no phase
+							continue;
+						}
+						// Align to the base spread so that the entity stays on the equation's grid
+						double range = equation.getMaxBase() - equation.getMinBase();
+						long steps = equation.getBaseSpread() > 0 ? (long) (range / equation.getBaseSpread()) : 0;
+						baseValues[i][e] = equation.getMinBase()
+								+ (long) (phase * (steps + 1)) * equation.getBaseSpread();
+						upTicks[i][e] = isUpTick;
+					}
+				}
+				if (offsets != null) {
+					offsets[e] = (2 * toDouble(mix64(entitySeed + 3)) - 1) * plan.getValueOffset();
+				}
+				jitterStates[e] = mix64(entitySeed + 4);
+			}
+		}
+
+		/**
+		 * Advances all entities by one tick.
+		 * <p>
+		 * With the simulated clock, the entities are stamped with the clock's
+		 * current time. As in {@linkplain PublisherDatum#nextTick()}, an entity
+		 * whose base time is reset is held, i.e., neither advanced nor published,
+		 * until the clock reaches its new base time.
+		 */
+		void generateFleetData() {
+			if (isFirst) {
+				isFirst = false;
+			} else {
+				advanceTimestamps();
+			}
+			if (isClocked) {
+				long now = simulatedClock.currentTimeMillis();
+				if (holdUntils == null) {
+					Arrays.fill(timestamps, now);
+				} else {
+					heldCount = 0;
+					for (int e = 0; e < entityCount; e++) {
+						held[e] = now < holdUntils[e];
+						if (held[e]) {
+							heldCount++;
+						} else {
+							timestamps[e] = now;
+						}
+					}
+				}
+			}
+			if (heldCount > 0) {
+				saveHeldBaseValues();
+			}
+			for (int i = 0; i < equations.length; i++) {
+				EquationGroup group = groups[i];
+				if (group != null) {
+					// The group draws its own correlated noise for all entities
+					if (group.getEquations()[0] == equations[i]) {
+						group.updateValues(baseValues, upTicks, values, i, entityCount);
+					}
+					continue;
+				}
+				Equation equation = equations[i];
+				equation.advanceBaseValues(baseValues[i], upTicks[i], entityCount);
+				for (int e = 0; e < entityCount; e++) {
+					long state = jitterStates[e] + GOLDEN_GAMMA;
+					jitterStates[e] = state;
+					noise[e] = toDouble(mix64(state));
+				}
+				equation.calculateValues(baseValues[i], values[i], noise, entityCount);
+			}
+			if (heldCount > 0) {
+				restoreHeldBaseValues();
+			}
+			if (maxCount > 0) {
+				count += entityCount - heldCount;
+			}
+		}
+
+		/**
+		 * Returns true if the specified entity is held for the simulated clock after
+		 * a base time reset. A held entity is not published.
+		 * 
+		 * @param entity Entity index
+		 */
+		boolean isHeld(int entity) {
+			return heldCount > 0 && held[entity];
+		}
+
+		/**
+		 * Saves the base values of the held entities. The batch calls advance all
+		 * entities, so the held entities are restored afterwards.
+		 */
+		private void saveHeldBaseValues() {
+			int size = heldCount * equations.length;
+			if (heldBaseValues == null || heldBaseValues.length < size) {
+				heldBaseValues = new double[size];
+				heldUpTicks = new boolean[size];
+			}
+			int k = 0;
+			for (int e = 0; e < entityCount; e++) {
+				if (held[e]) {
+					for (int i = 0; i < equations.length; i++, k++) {
+						heldBaseValues[k] = baseValues[i][e];
+						heldUpTicks[k] = upTicks[i][e];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Restores the base values saved by {@linkplain #saveHeldBaseValues()}.
+		 */
+		private void restoreHeldBaseValues() {
+			int k = 0;
+			for (int e = 0; e < entityCount; e++) {
+				if (held[e]) {
+					for (int i = 0; i < equations.length; i++, k++) {
+						baseValues[i][e] = heldBaseValues[k];
+						upTicks[i][e] = heldUpTicks[k];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Advances the entity timestamps. If the reset equation is defined, then
+		 * each entity's base time is reset independently when its base value reaches
+		 * minBase or maxBase. The iteration count follows the first entity. With
+		 * the simulated clock, the reset sets the entity's hold time instead, and
+		 * the held entities are skipped.
+		 */
+		private void advanceTimestamps() {
+			if (resetIndex < 0) {
+				for (int e = 0; e < entityCount; e++) {
+					timestamps[e] += timeInterval;
+				}
+				return;
+			}
+			double minBase = resetEquation.getMinBase();
+			double maxBase = resetEquation.getMaxBase();
+			boolean isRepeat = resetEquation.getType() == Equation.EquationType.REPEAT;
+			double[] resetBaseValues = baseValues[resetIndex];
+			for (int e = 0; e < entityCount; e++) {
+				if (heldCount > 0 && held[e]) {
+					continue;
+				}
+				double baseValue = resetBaseValues[e];
+				boolean isReset = baseValue >= maxBase || (isRepeat == false && baseValue <= minBase);
+				if (isReset && e == 0) {
+					iterationCount++;
+				}
+				if (isReset && resetBaseTime != 0) {
+					if (isClocked) {
+						holdUntils[e] = resetBaseTime(timestamps[e]);
+					} else {
+						timestamps[e] = resetBaseTime(timestamps[e]);
+					}
+				} else {
+					timestamps[e] += timeInterval;
+				}
+			}
+		}
+
+		/**
+		 * Returns the JSON object of the specified entity's current values.
+		 * 
+		 * @param entity Entity index
+		 */
+		JSONObject toJson(int entity) {
+			JSONObject json = new JSONObject();
+			if (idField != null) {
+				json.put(idField, getEntityId(entity));
+			}
+			double offset = offsets == null ? 0 : offsets[entity];
+			for (int i = 0; i < equations.length; i++) {
+				json.put(fieldNames[i], values[i][entity] + offset);
+			}
+			json.put(PublisherPlan.TIME_FIELD, formatTime(timestamps[entity]));
+			return json;
+		}
+
+		/**
+		 * Writes the specified entity's current values to the specified writer.
+		 * 
+		 * @param entity Entity index
+		 */
+		void writePayload(int entity, PayloadWriter writer) {
+			if (idField != null) {
+				writer.setId(getEntityId(entity));
+			}
+			double offset = offsets == null ? 0 : offsets[entity];
+			for (int i = 0; i < equations.length; i++) {
+				writer.setValue(i, values[i][entity] + offset);
+			}
+			writer.setTime(formatTime(timestamps[entity]));
+			writer.setTimestamp(timestamps[entity]);
+			writer.write();
+		}
+
+		/**
+		 * Returns the formatted time of the specified entity's current tick.
+		 */
+		String getTime(int entity) {
+			return formatTime(timestamps[entity]);
+		}
+
+		/**
+		 * Returns the simulated time of the first entity's next tick in msec.
+		 */
+		@Override
+		long getTimestamp() {
+			return isFirst ? timestamps[0] : timestamps[0] + timeInterval;
+		}
+
+		String getEntityId(int entity) {
+			String entityId = entityIds[entity];
+			if (entityId == null) {
+				entityId = idPrefix + (entityStart + entity);
+				entityIds[entity] = entityId;
+			}
+			return entityId;
+		}
+
+		int getEntityCount() {
+			return entityCount;
+		}
+
+		/**
+		 * SplitMix64 finalizer. Maps a seed to a well mixed 64-bit value.
+		 */
+		private long mix64(long z) {
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+
+		/**
+		 * Returns a double in [0, 1) from the upper 53 bits.
+		 */
+		private double toDouble(long z) {
+			return (z >>> 11) * 0x1.0p-53;
+		}
 	}
 }
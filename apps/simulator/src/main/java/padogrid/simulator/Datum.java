@@ -15,8 +15,6 @@
  */
 package padogrid.simulator;
 
-import java.lang.reflect.InvocationTargetException;
-
 public class Datum {
 	private long startTimestamp = System.currentTimeMillis();
 	private long timestamp = startTimestamp;
@@ -33,15 +31,15 @@ public class Datum {
 	 * @param equation Equation
 	 */
 	public Datum(Equation equation) {
+		if (equation.isStochastic()) {
+			baseValue = equation.getInitialValue();
+			value = baseValue * equation.getMultiplier() + equation.getConstant();
+			return;
+		}
 		baseValue = equation.getMinBase();
-		if (equation.getCalculation() != null) {
-			value = (double) equation.getCalculation().calculate(baseValue);
-		} else if (equation.getCalculationMethod() != null) {
-			try {
-				value = (double) equation.getCalculationMethod().invoke(equation, baseValue);
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				// ignore
-			}
+		ICalculation callSite = equation.getCallSite();
+		if (callSite != null) {
+			value = callSite.calculate(baseValue);
 		}
 	}
 
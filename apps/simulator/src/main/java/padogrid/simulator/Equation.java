@@ -15,11 +15,23 @@
  */
 package padogrid.simulator;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 import padogrid.mqtt.client.cluster.internal.ConfigUtil;
+import padogrid.simulator.eq.Equations;
+import padogrid.simulator.eq.FormulaCompiler;
+import padogrid.simulator.eq.GaussianBuffer;
+import padogrid.simulator.eq.LookupTable;
+import padogrid.simulator.eq.Polynomial;
+import padogrid.simulator.eq.StochasticProcess;
+import padogrid.simulator.eq.VectorSupport;
 
 public class Equation {
 	private String name;
@@ -34,13 +46,50 @@ public class Equation {
 	private double baseAverage;
 	private String calculationFunction;
 	private String calculationClass;
+	private double[] coefficients;
+	private int tableResolution = 0;
+	private LookupTable.Interpolation tableInterpolation = LookupTable.Interpolation.LINEAR;
 	private EquationType type = EquationType.REVERSE;
 
+	// Stochastic process parameters (GBM, OU, RANDOM_WALK)
+	private double initialValue = 1.0;
+	private double drift = 0;
+	private double volatility = 0.2;
+	private double meanReversion = 1.0;
+	private double mean = 0;
+	private double dt = 1.0 / 252;
+
 	private Method calculationMethod;
 
 	private ICalculation calculation;
 
-	private Random random = new Random();
+	/**
+	 * The resolved calculation invoked per tick. It is either a
+	 * {@linkplain LambdaMetafactory} generated {@linkplain ICalculation} bound to
+	 * {@linkplain #calculationFunction} or the {@linkplain #calculationClass}
+	 * instance.
+	 */
+	private transient ICalculation callSite;
+
+	/**
+	 * The call site used for batch calculations. It is the Vector API
+	 * implementation of {@linkplain #callSite} if available, otherwise
+	 * {@linkplain #callSite} itself.
+	 */
+	private transient ICalculation batchCallSite;
+	private transient ICalculation batchSource;
+
+	// Stochastic process state. The process is immutable and shared by copies.
+	private transient StochasticProcess process;
+	private transient GaussianBuffer gaussians;
+	private transient double[] normals;
+
+	/**
+	 * Jitter generator. {@linkplain SplittableRandom} is not thread-safe. Each
+	 * publisher thread should use its own copy of this equation. See
+	 * {@linkplain #copy(SplittableRandom)}.
+	 */
+	private SplittableRandom random = new SplittableRandom();
 
 	public Equation() {
 		init();
@@ -126,16 +175,19 @@ public class Equation {
 
 	public void setCalculationMethod(Method calculationMethod) {
 		this.calculationMethod = calculationMethod;
+		this.callSite = null;
 	}
 
 	public void setMinBase(int minBase) {
 		this.minBase = minBase;
 		init();
+		this.process = null;
 	}
 
 	public void setMaxBase(int maxBase) {
 		this.maxBase = maxBase;
 		init();
+		this.process = null;
 	}
 
 	public double getMultiplier() {
@@ -154,12 +206,67 @@ public class Equation {
 		this.calculationClass = calculationClass;
 	}
 
+	/**
+	 * Returns the polynomial coefficients from the highest degree to the constant
+	 * term. For example, y=x^3+x^2+1 is [1, 1, 0, 1].
+	 * 
+	 * @return null if undefined
+	 */
+	public double[] getCoefficients() {
+		return coefficients;
+	}
+
+	/**
+	 * Sets the polynomial coefficients from the highest degree to the constant
+	 * term. The polynomial is evaluated with Horner's method.
+	 * 
+	 * @param coefficients Polynomial coefficients
+	 */
+	public void setCoefficients(double[] coefficients) {
+		this.coefficients = coefficients;
+		this.callSite = null;
+	}
+
+	/**
+	 * Returns the lookup table resolution.
+	 * <ul>
+	 * <li>0 - Lookup table disabled. The calculation is invoked per tick.</li>
+	 * <li>&gt; 1 - Number of samples evenly spread over [minBase, maxBase]</li>
+	 * <li>&lt; 0 - Samples aligned to the base values, i.e., minBase + k *
+	 * baseSpread. The ticks land on the samples so that the whole cycle is
+	 * cached.</li>
+	 * </ul>
+	 * Default: 0
+	 */
+	public int getTableResolution() {
+		return tableResolution;
+	}
+
+	public void setTableResolution(int tableResolution) {
+		this.tableResolution = tableResolution;
+		this.callSite = null;
+	}
+
+	/**
+	 * Returns the lookup table interpolation method. Default: LINEAR
+	 */
+	public LookupTable.Interpolation getTableInterpolation() {
+		return tableInterpolation;
+	}
+
+	public void setTableInterpolation(LookupTable.Interpolation tableInterpolation) {
+		this.tableInterpolation = tableInterpolation;
+		this.callSite = null;
+	}
+
 	public void setMinBase(double minBase) {
 		this.minBase = minBase;
+		this.process = null;
 	}
 
 	public void setMaxBase(double maxBase) {
 		this.maxBase = maxBase;
+		this.process = null;
 	}
 
 	public double getConstant() {
@@ -176,6 +283,89 @@ public class Equation {
 
 	public void setType(EquationType type) {
 		this.type = type;
+		this.process = null;
+	}
+
+	/**
+	 * Returns true if this equation is a stochastic process, i.e., its type is
+	 * GBM, OU or RANDOM_WALK.
+	 */
+	public boolean isStochastic() {
+		return type != null && type.isStochastic();
+	}
+
+	/**
+	 * Returns the initial value of the stochastic process. Default: 1.0
+	 */
+	public double getInitialValue() {
+		return initialValue;
+	}
+
+	public void setInitialValue(double initialValue) {
+		this.initialValue = initialValue;
+	}
+
+	/**
+	 * Returns the drift per unit time of GBM and RANDOM_WALK. Default: 0
+	 */
+	public double getDrift() {
+		return drift;
+	}
+
+	public void setDrift(double drift) {
+		this.drift = drift;
+		this.process = null;
+	}
+
+	/**
+	 * Returns the volatility per square root of unit time of the stochastic
+	 * process. Default: 0.2
+	 */
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public void setVolatility(double volatility) {
+		this.volatility = volatility;
+		this.process = null;
+	}
+
+	/**
+	 * Returns the OU mean reversion rate per unit time. Default: 1.0
+	 */
+	public double getMeanReversion() {
+		return meanReversion;
+	}
+
+	public void setMeanReversion(double meanReversion) {
+		this.meanReversion = meanReversion;
+		this.process = null;
+	}
+
+	/**
+	 * Returns the OU long-term mean. Default: 0
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	public void setMean(double mean) {
+		this.mean = mean;
+		this.process = null;
+	}
+
+	/**
+	 * Returns the time step per tick in the unit time of drift, volatility and
+	 * meanReversion. Default: 1/252, i.e., one trading day per tick with
+	 * annualized parameters.
+	 */
+	public double getDt() {
+		return dt;
+	}
+
+	public void setDt(double dt) {
+		this.dt = dt;
+		this.process = null;
 	}
 
 	public ICalculation getCalculation() {
@@ -206,6 +396,7 @@ public class Equation {
 
 	public void setCalculation(ICalculation calculationImpl) {
 		this.calculation = calculationImpl;
+		this.callSite = null;
 	}
 
 	public Method getCalculationMethod() {
@@ -241,7 +432,273 @@ public class Equation {
 		return calculationMethod;
 	}
 
+	/**
+	 * Resolves the calculation function or class into a single call site. This
+	 * method should be invoked once at load time. Subsequent invocations return
+	 * the already resolved call site status.
+	 * <p>
+	 * {@linkplain #getCalculationFunction()} takes precedence over
+	 * {@linkplain #getCalculationClass()}. The static method is bound via
+	 * {@linkplain MethodHandle} and spun into an {@linkplain ICalculation} with
+	 * {@linkplain LambdaMetafactory} so that each tick is a plain interface call
+	 * without boxing, varargs arrays or reflection.
+	 * <p>
+	 * If the calculation function is defined but does not resolve, then the
+	 * equation is discarded without trying the other sources.
+	 * <p>
+	 * If neither is defined, then {@linkplain #getCoefficients()} is evaluated as
+	 * a {@linkplain Polynomial}, or {@linkplain #getFormula()} is compiled into
+	 * byte code by {@linkplain FormulaCompiler}, in that order.
+	 * <p>
+	 * If {@linkplain #getTableResolution()} is non-zero, then the resolved
+	 * calculation is sampled into a {@linkplain LookupTable}.
+	 * <p>
+	 * Stochastic process equations do not have a calculation. Their
+	 * {@linkplain StochasticProcess} is created instead.
+	 * 
+	 * @return true if the equation has a calculation or a valid stochastic
+	 *         process, false otherwise
+	 */
+	public boolean compile() {
+		if (isStochastic()) {
+			return getProcess() != null;
+		}
+		if (callSite == null) {
+			Method method = getCalculationMethod();
+			if (method != null) {
+				if (method.getDeclaringClass() == Equations.class) {
+					// Bind the plain polynomials directly for their batch evaluation
+					callSite = Equations.getPolynomial(method.getName());
+				}
+				if (callSite == null) {
+					callSite = createCallSite(method);
+				}
+			} else if (calculationFunction != null) {
+				// Discarded. Do not fall back to the descriptive formula.
+				return false;
+			} else if (calculationClass != null || calculation != null) {
+				callSite = getCalculation();
+			} else if (coefficients != null) {
+				try {
+					callSite = new Polynomial(coefficients);
+				} catch (IllegalArgumentException e) {
+					System.err.printf("ERROR: Invalid coefficients. [name=%s, error=%s] Equation discarded.%n", name,
+							e.getMessage());
+				}
+			} else if (formula != null) {
+				String formula = getFormula();
+				try {
+					callSite = FormulaCompiler.compile(formula);
+				} catch (IllegalArgumentException e) {
+					System.err.printf("ERROR: Invalid formula. [formula=%s, error=%s] Equation discarded.%n", formula,
+							e.getMessage());
+				}
+			}
+			if (callSite != null && tableResolution != 0) {
+				callSite = createLookupTable(callSite);
+			}
+		}
+		return callSite != null;
+	}
+
+	/**
+	 * Samples the specified calculation into a lookup table. If the table cannot
+	 * be created, then the calculation is returned as is.
+	 * 
+	 * @param calculation Calculation to sample
+	 */
+	private ICalculation createLookupTable(ICalculation calculation) {
+		try {
+			LookupTable table;
+			if (tableResolution < 0) {
+				table = LookupTable.createAligned(calculation, minBase, maxBase, baseSpread, tableInterpolation);
+			} else {
+				table = LookupTable.create(calculation, minBase, maxBase, tableResolution, tableInterpolation);
+			}
+			System.out.printf("Equation lookup table created [name=%s, resolution=%d, interpolation=%s, maxError=%g]%n",
+					getName(), table.getResolution(), tableInterpolation, table.getMaxError());
+			return table;
+		} catch (IllegalArgumentException e) {
+			System.err.printf("WARNING: Unable to create lookup table. [name=%s, error=%s] Lookup table ignored.%n",
+					getName(), e.getMessage());
+			return calculation;
+		}
+	}
+
+	/**
+	 * Returns the resolved call site. It resolves the call site if it has not been
+	 * resolved.
+	 * 
+	 * @return null if the calculation is undefined or invalid
+	 */
+	public ICalculation getCallSite() {
+		if (callSite == null) {
+			compile();
+		}
+		return callSite;
+	}
+
+	/**
+	 * Returns the stochastic process of this equation.
+	 * 
+	 * @return null if this equation is not stochastic or the parameters are
+	 *         invalid
+	 */
+	public StochasticProcess getProcess() {
+		if (process == null && isStochastic()) {
+			try {
+				process = new StochasticProcess(type, drift, volatility, meanReversion, mean, dt, minBase, maxBase);
+			} catch (IllegalArgumentException e) {
+				System.err.printf("ERROR: Invalid stochastic process. [name=%s, error=%s] Equation discarded.%n", name,
+						e.getMessage());
+			}
+		}
+		return process;
+	}
+
+	private GaussianBuffer getGaussians() {
+		if (gaussians == null) {
+			gaussians = new GaussianBuffer(random);
+		}
+		return gaussians;
+	}
+
+	/**
+	 * Returns a new datum positioned at the start of this equation. The base value
+	 * of a stochastic process equation holds the process state, which starts at
+	 * {@linkplain #getInitialValue()}.
+	 */
+	public Datum createDatum() {
+		Datum datum = new Datum();
+		if (isStochastic()) {
+			datum.setBaseValue(initialValue);
+			datum.setValue(initialValue * multiplier + constant);
+		}
+		return datum;
+	}
+
+	/**
+	 * Returns the call site for batch calculations. It is the JDK Vector API
+	 * implementation of the call site if available (see
+	 * {@linkplain VectorSupport}), otherwise the call site itself.
+	 * 
+	 * @return null if the calculation is undefined or invalid
+	 */
+	public ICalculation getBatchCallSite() {
+		ICalculation callSite = getCallSite();
+		if (callSite != batchSource) {
+			batchSource = callSite;
+			// The function name does not apply to the lookup table sampled from it
+			String functionName = callSite instanceof LookupTable ? null : calculationFunction;
+			batchCallSite = VectorSupport.vectorize(functionName, callSite);
+		}
+		return batchCallSite;
+	}
+
+	/**
+	 * Creates an {@linkplain ICalculation} call site for the specified static
+	 * method.
+	 * 
+	 * @param method Static method that takes a single double or Double argument
+	 * @return null if the method cannot be converted to a call site
+	 */
+	private ICalculation createCallSite(Method method) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflect(method);
+			MethodType calculateType = MethodType.methodType(double.class, double.class);
+			if (handle.type().equals(calculateType)) {
+				CallSite site = LambdaMetafactory.metafactory(lookup, "calculate",
+						MethodType.methodType(ICalculation.class), calculateType, handle, calculateType);
+				return (ICalculation) site.getTarget().invokeExact();
+			}
+
+			// Boxed signature, e.g., Double f(Double). Adapt it once to (double)double.
+			final MethodHandle adapted = handle.asType(calculateType);
+			return new ICalculation() {
+				@Override
+				public double calculate(double baseValue) {
+					try {
+						return (double) adapted.invokeExact(baseValue);
+					} catch (RuntimeException | Error e) {
+						throw e;
+					} catch (Throwable e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			};
+		} catch (Throwable e) {
+			System.err.printf("ERROR: Invalid method signature. [functionName=%s, error=%s] Equation discarded.%n",
+					calculationFunction, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a runtime copy of this equation for a single publisher. The copy has
+	 * its own jitter generator so that publishers running on different threads do
+	 * not share the generator state. The resolved call site is shared. The built-in
+	 * calculations are stateless; {@linkplain #getCalculationClass()} instances
+	 * must be thread-safe.
+	 * 
+	 * @param random Jitter generator of the copy. Pass a generator derived from a
+	 *               master seed for reproducible runs.
+	 */
+	public Equation copy(SplittableRandom random) {
+		Equation equation = new Equation();
+		equation.name = name;
+		equation.formula = formula;
+		equation.description = description;
+		equation.minBase = minBase;
+		equation.maxBase = maxBase;
+		equation.baseSpread = baseSpread;
+		equation.jitter = jitter;
+		equation.multiplier = multiplier;
+		equation.constant = constant;
+		equation.baseAverage = baseAverage;
+		equation.calculationFunction = calculationFunction;
+		equation.calculationClass = calculationClass;
+		equation.coefficients = coefficients;
+		equation.tableResolution = tableResolution;
+		equation.tableInterpolation = tableInterpolation;
+		equation.type = type;
+		equation.initialValue = initialValue;
+		equation.drift = drift;
+		equation.volatility = volatility;
+		equation.meanReversion = meanReversion;
+		equation.mean = mean;
+		equation.dt = dt;
+		equation.process = process;
+		equation.calculationMethod = calculationMethod;
+		equation.calculation = calculation;
+		equation.callSite = callSite;
+		equation.batchCallSite = batchCallSite;
+		equation.batchSource = batchSource;
+		equation.random = random;
+		return equation;
+	}
+
 	public Datum updateDatum(Datum previousDatum) {
+		return updateDatum(previousDatum, false, 0);
+	}
+
+	/**
+	 * Updates the datum with the specified standard normal variate instead of this
+	 * equation's own random numbers. A stochastic process is driven by the variate
+	 * and any other equation maps it to its jitter noise by the normal CDF. This
+	 * method is used by {@linkplain EquationGroup} to correlate equations.
+	 * 
+	 * @param previousDatum Previous datum
+	 * @param normal        Standard normal variate
+	 */
+	public Datum updateDatum(Datum previousDatum, double normal) {
+		return updateDatum(previousDatum, true, normal);
+	}
+
+	private Datum updateDatum(Datum previousDatum, boolean isNormal, double normal) {
+		if (isStochastic()) {
+			return updateProcessDatum(previousDatum, isNormal, normal);
+		}
 		double baseValue;
 		boolean isUpTick;
 		if (previousDatum == null) {
@@ -282,21 +739,15 @@ public class Equation {
 			}
 		}
 		double value = 0;
-		if (calculationMethod != null) {
-			try {
-				value = (double) calculationMethod.invoke(null, baseValue) + constant;
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				// TODO: Throw for now
-				e.printStackTrace();
-			}
-		} else if (calculation != null) {
-			value = calculation.calculate(baseValue) + constant;
+		ICalculation callSite = getCallSite();
+		if (callSite != null) {
+			value = callSite.calculate(baseValue) + constant;
 		}
 		if (value != value) {
 			value = 0;
 		}
 
-		value += jitter * random.nextDouble();
+		value += jitter * (isNormal ? GaussianBuffer.cdf(normal) : random.nextDouble());
 		value *= baseAverage * multiplier;
 
 		previousDatum.setValue(value);
@@ -306,18 +757,204 @@ public class Equation {
 		return previousDatum;
 	}
 	
+	/**
+	 * Advances the stochastic process by one tick. The base value holds the
+	 * process state and the value is state * multiplier + constant. Jitter does not
+	 * apply.
+	 */
+	private Datum updateProcessDatum(Datum previousDatum, boolean isNormal, double normal) {
+		if (previousDatum == null) {
+			return createDatum();
+		}
+		StochasticProcess process = getProcess();
+		if (process != null) {
+			double z = isNormal ? normal : getGaussians().next();
+			double state = process.next(previousDatum.getBaseValue(), z);
+			previousDatum.setBaseValue(state);
+			previousDatum.setValue(state * multiplier + constant);
+		}
+		return previousDatum;
+	}
+
+	/**
+	 * Sets the specified base values and upticks to the start of this equation,
+	 * i.e., the base value of the first {@linkplain #updateDatum(Datum)} call.
+	 * 
+	 * @param baseValues Base values
+	 * @param upTicks    Upticks
+	 * @param len        Number of base values
+	 */
+	public void resetBaseValues(double[] baseValues, boolean[] upTicks, int len) {
+		double baseValue = isStochastic() ? initialValue : maxBase > minBase ? minBase : maxBase;
+		Arrays.fill(baseValues, 0, len, baseValue);
+		Arrays.fill(upTicks, 0, len, true);
+	}
+
+	/**
+	 * Advances each of the specified base values by one tick. This is the batch
+	 * equivalent of the base value update performed by
+	 * {@linkplain #updateDatum(Datum)}.
+	 * 
+	 * @param baseValues Base values
+	 * @param upTicks    Upticks
+	 * @param len        Number of base values
+	 */
+	public void advanceBaseValues(double[] baseValues, boolean[] upTicks, int len) {
+		advanceBaseValues(baseValues, upTicks, null, len);
+	}
+
+	/**
+	 * Advances each of the specified base values by one tick. A stochastic process
+	 * is driven by the specified standard normal variates. They are ignored by all
+	 * other equations.
+	 * 
+	 * @param baseValues Base values
+	 * @param upTicks    Upticks
+	 * @param normals    Standard normal variates, one per base value. If null,
+	 *                   then this equation's own variates are used.
+	 * @param len        Number of base values
+	 */
+	public void advanceBaseValues(double[] baseValues, boolean[] upTicks, double[] normals, int len) {
+		if (isStochastic()) {
+			StochasticProcess process = getProcess();
+			if (process != null) {
+				if (normals == null) {
+					if (this.normals == null || this.normals.length < len) {
+						this.normals = new double[len];
+					}
+					normals = this.normals;
+					getGaussians().next(normals, len);
+				}
+				process.next(baseValues, normals, len);
+			}
+			return;
+		}
+		final double minBase = this.minBase;
+		final double maxBase = this.maxBase;
+		final double baseSpread = this.baseSpread;
+		if (type == EquationType.REPEAT) {
+			for (int i = 0; i < len; i++) {
+				double baseValue = baseValues[i];
+				if (baseValue >= maxBase) {
+					baseValue = minBase;
+				}
+				baseValues[i] = baseValue + baseSpread;
+				upTicks[i] = true;
+			}
+		} else {
+			for (int i = 0; i < len; i++) {
+				double baseValue = baseValues[i];
+				boolean isUpTick;
+				if (baseValue >= maxBase) {
+					isUpTick = false;
+				} else if (baseValue <= minBase) {
+					isUpTick = true;
+				} else {
+					isUpTick = upTicks[i];
+				}
+				baseValues[i] = isUpTick ? baseValue + baseSpread : baseValue - baseSpread;
+				upTicks[i] = isUpTick;
+			}
+		}
+	}
+
+	/**
+	 * Calculates the values of the specified base values in a single batch call
+	 * followed by the same constant, jitter and multiplier adjustments as
+	 * {@linkplain #updateDatum(Datum)}.
+	 * 
+	 * @param baseValues Base values
+	 * @param values     Output values. Must not be the same array as baseValues.
+	 * @param len        Number of base values
+	 */
+	public void calculateValues(double[] baseValues, double[] values, int len) {
+		calculateValues(baseValues, values, null, len);
+	}
+
+	/**
+	 * Calculates the values of the specified base values in a single batch call
+	 * with the specified jitter noise. This method allows each base value to
+	 * have its own (seeded) jitter sequence.
+	 * 
+	 * @param baseValues Base values
+	 * @param values     Output values. Must not be the same array as baseValues.
+	 * @param noise      Uniformly distributed noise in [0, 1) for jitter, one per
+	 *                   base value. If null, then this equation's random
+	 *                   generator is used.
+	 * @param len        Number of base values
+	 */
+	public void calculateValues(double[] baseValues, double[] values, double[] noise, int len) {
+		if (isStochastic()) {
+			for (int i = 0; i < len; i++) {
+				values[i] = baseValues[i] * multiplier + constant;
+			}
+			return;
+		}
+		ICalculation batchCallSite = getBatchCallSite();
+		final double constant;
+		if (batchCallSite != null) {
+			batchCallSite.calculate(baseValues, values, len);
+			constant = this.constant;
+		} else {
+			Arrays.fill(values, 0, len, 0d);
+			constant = 0;
+		}
+		final double scale = baseAverage * multiplier;
+		for (int i = 0; i < len; i++) {
+			double value = values[i] + constant;
+			if (value != value) {
+				value = 0;
+			}
+			value += jitter * (noise == null ? random.nextDouble() : noise[i]);
+			values[i] = value * scale;
+		}
+	}
+
+	/**
+	 * Advances the specified base values by one tick and calculates their values.
+	 * This is the batch equivalent of {@linkplain #updateDatum(Datum)} for
+	 * simulating many entities with a single equation.
+	 * <p>
+	 * Every call advances the base values, including the first call after
+	 * {@linkplain #resetBaseValues(double[], boolean[], int)}, i.e., the first
+	 * values are calculated one base spread past the reset base value. This is
+	 * how the fleet publishers tick. To start at the reset base value, call
+	 * {@linkplain #calculateValues(double[], double[], int)} first.
+	 * 
+	 * @param baseValues Base values
+	 * @param upTicks    Upticks
+	 * @param values     Output values. Must not be the same array as baseValues.
+	 * @param len        Number of base values
+	 */
+	public void updateValues(double[] baseValues, boolean[] upTicks, double[] values, int len) {
+		advanceBaseValues(baseValues, upTicks, len);
+		calculateValues(baseValues, values, len);
+	}
+
 	@Override
 	public String toString() {
 		return "Equation [name=" + name + ", formula=" + formula + ", description=" + description + ", minBase="
 				+ minBase + ", maxBase=" + maxBase + ", baseSpread=" + baseSpread + ", jitter=" + jitter
 				+ ", multiplier=" + multiplier + ", constant=" + constant + ", baseAverage=" + baseAverage
-				+ ", calculationFunction=" + calculationFunction + ", calculationClass=" + calculationClass + ", type="
-				+ type + ", calculationMethod=" + calculationMethod + ", calculation=" + calculation + "]";
+				+ ", calculationFunction=" + calculationFunction + ", calculationClass=" + calculationClass
+				+ ", coefficients=" + Arrays.toString(coefficients) + ", tableResolution=" + tableResolution
+				+ ", tableInterpolation=" + tableInterpolation + ", type=" + type + ", initialValue=" + initialValue
+				+ ", drift=" + drift + ", volatility=" + volatility + ", meanReversion=" + meanReversion + ", mean="
+				+ mean + ", dt=" + dt + ", calculationMethod=" + calculationMethod + ", calculation=" + calculation + "]";
 	}
 
 
+	/**
+	 * Equation types. REPEAT and REVERSE determine how the base value traverses
+	 * [minBase, maxBase]. GBM, OU and RANDOM_WALK are stateful stochastic
+	 * processes that do not use a calculation.
+	 */
 	public static enum EquationType {
-		REPEAT, REVERSE
+		REPEAT, REVERSE, GBM, OU, RANDOM_WALK;
+
+		public boolean isStochastic() {
+			return this == GBM || this == OU || this == RANDOM_WALK;
+		}
 	}
 
 }
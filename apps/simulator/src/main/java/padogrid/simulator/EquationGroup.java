@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import padogrid.mqtt.client.cluster.internal.ConfigUtil;
+import padogrid.simulator.eq.GaussianBuffer;
+
+/**
+ * {@linkplain EquationGroup} generates K equations jointly from a correlation
+ * matrix. Each tick, K independent standard normal variates are drawn and
+ * multiplied by the lower triangular Cholesky factor of the correlation matrix,
+ * which is computed once by {@linkplain #compile()}. Each correlated variate
+ * drives its equation: a stochastic process (GBM, OU, RANDOM_WALK) uses it as
+ * its random driver and any other equation maps it to its jitter noise by the
+ * normal CDF.
+ * <p>
+ * Like {@linkplain Equation}, the configured group is a template. Each
+ * publisher gets its own runtime copy by {@linkplain #copy(Equation[], SplittableRandom)}.
+ *
+ * @author dpark
+ *
+ */
+public class EquationGroup {
+	// Tolerance for symmetry and unit diagonal checks
+	private final static double TOLERANCE = 1e-9;
+
+	private String name;
+	private String description;
+	private String[] equationNames;
+	private double[][] correlation;
+
+	// Lower triangular Cholesky factor. Shared by copies.
+	private transient double[][] factor;
+
+	// Runtime state
+	private transient Equation[] equations;
+	private transient GaussianBuffer gaussians;
+	private transient double[] independent;
+	private transient double[] correlated;
+	private transient double[][] normals;
+	private transient double[] noise;
+
+	public String getName() {
+		return ConfigUtil.parseStringValue(name);
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getDescription() {
+		return ConfigUtil.parseStringValue(description);
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	/**
+	 * Returns the member equation names in the order of the correlation matrix
+	 * rows.
+	 */
+	public String[] getEquationNames() {
+		return equationNames;
+	}
+
+	public void setEquationNames(String[] equationNames) {
+		this.equationNames = equationNames;
+		this.factor = null;
+	}
+
+	/**
+	 * Returns the K x K correlation matrix. It must be symmetric and positive
+	 * definite with 1 on the diagonal.
+	 */
+	public double[][] getCorrelation() {
+		return correlation;
+	}
+
+	public void setCorrelation(double[][] correlation) {
+		this.correlation = correlation;
+		this.factor = null;
+	}
+
+	/**
+	 * Validates the group and computes the Cholesky factor of the correlation
+	 * matrix. This method should be invoked once at load time.
+	 *
+	 * @return true if the group is valid, false otherwise
+	 */
+	public boolean compile() {
+		if (factor == null) {
+			try {
+				if (equationNames == null || equationNames.length == 0) {
+					throw new IllegalArgumentException("equationNames undefined");
+				}
+				if (correlation == null || correlation.length != equationNames.length) {
+					throw new IllegalArgumentException(String.format(
+							"correlation must be a %d x %d matrix", equationNames.length, equationNames.length));
+				}
+				factor = cholesky(correlation);
+			} catch (IllegalArgumentException e) {
+				System.err.printf("ERROR: Invalid equation group. [name=%s, error=%s] Equation group discarded.%n",
+						getName(), e.getMessage());
+			}
+		}
+		return factor != null;
+	}
+
+	/**
+	 * Returns the lower triangular Cholesky factor L of the specified correlation
+	 * matrix C, i.e., C = L * L^T.
+	 *
+	 * @param correlation Symmetric positive definite matrix with 1 on the
+	 *                    diagonal
+	 * @throws IllegalArgumentException Thrown if the matrix is invalid
+	 */
+	static double[][] cholesky(double[][] correlation) {
+		int n = correlation.length;
+		for (int i = 0; i < n; i++) {
+			if (correlation[i] == null || correlation[i].length != n) {
+				throw new IllegalArgumentException(String.format("correlation must be a %d x %d matrix", n, n));
+			}
+			if (Math.abs(correlation[i][i] - 1) > TOLERANCE) {
+				throw new IllegalArgumentException(
+						String.format("correlation[%d][%d] must be 1 [value=%s]", i, i, correlation[i][i]));
+			}
+			for (int j = 0; j < i; j++) {
+				if (Math.abs(correlation[i][j] - correlation[j][i]) > TOLERANCE) {
+					throw new IllegalArgumentException(
+							String.format("correlation must be symmetric [row=%d, column=%d]", i, j));
+				}
+				if (Math.abs(correlation[i][j]) > 1) {
+					throw new IllegalArgumentException(String.format(
+							"correlation must be in [-1, 1] [row=%d, column=%d, value=%s]", i, j, correlation[i][j]));
+				}
+			}
+		}
+		double[][] l = new double[n][];
+		for (int i = 0; i < n; i++) {
+			l[i] = new double[i + 1];
+			for (int j = 0; j <= i; j++) {
+				double sum = correlation[i][j];
+				for (int k = 0; k < j; k++) {
+					sum -= l[i][k] * l[j][k];
+				}
+				if (i == j) {
+					if ((sum > 0) == false) {
+						throw new IllegalArgumentException("correlation must be positive definite [row=" + i + "]");
+					}
+					l[i][i] = Math.sqrt(sum);
+				} else {
+					l[i][j] = sum / l[j][j];
+				}
+			}
+		}
+		return l;
+	}
+
+	/**
+	 * Returns a runtime copy of this group for a single publisher.
+	 *
+	 * @param equations Publisher's copies of the member equations in the order of
+	 *                  {@linkplain #getEquationNames()}
+	 * @param random    Random generator of the copy
+	 */
+	public EquationGroup copy(Equation[] equations, SplittableRandom random) {
+		EquationGroup group = new EquationGroup();
+		group.name = name;
+		group.description = description;
+		group.equationNames = equationNames;
+		group.correlation = correlation;
+		group.factor = factor;
+		group.equations = equations;
+		group.gaussians = new GaussianBuffer(random);
+		group.independent = new double[equations.length];
+		group.correlated = new double[equations.length];
+		return group;
+	}
+
+	/**
+	 * Returns the runtime member equations. Null if this is not a runtime copy.
+	 */
+	public Equation[] getEquations() {
+		return equations;
+	}
+
+	public int size() {
+		return equationNames == null ? 0 : equationNames.length;
+	}
+
+	/**
+	 * Multiplies the independent variates by the Cholesky factor.
+	 */
+	private void correlate(double[] independent, double[] correlated) {
+		final double[][] l = factor;
+		for (int i = 0; i < l.length; i++) {
+			final double[] row = l[i];
+			double sum = 0;
+			for (int j = 0; j < row.length; j++) {
+				sum += row[j] * independent[j];
+			}
+			correlated[i] = sum;
+		}
+	}
+
+	/**
+	 * Updates the member equations' data jointly by one tick.
+	 *
+	 * @param data   Data array. The members' data are at data[offset] to
+	 *               data[offset + K - 1].
+	 * @param offset Index of the first member's datum
+	 */
+	public void updateData(Datum[] data, int offset) {
+		gaussians.next(independent, independent.length);
+		correlate(independent, correlated);
+		for (int i = 0; i < equations.length; i++) {
+			data[offset + i] = equations[i].updateDatum(data[offset + i], correlated[i]);
+		}
+	}
+
+	/**
+	 * Updates the member equations' values of all entities jointly by one tick.
+	 * Each entity's K variates are correlated. Entities are independent of each
+	 * other.
+	 *
+	 * @param baseValues Base values [equation][entity]. The members' arrays are at
+	 *                   offset to offset + K - 1.
+	 * @param upTicks    Upticks [equation][entity]
+	 * @param values     Output values [equation][entity]
+	 * @param offset     Index of the first member's arrays
+	 * @param len        Number of entities
+	 */
+	public void updateValues(double[][] baseValues, boolean[][] upTicks, double[][] values, int offset, int len) {
+		int k = equations.length;
+		if (normals == null || normals[0].length < len) {
+			normals = new double[k][len];
+			noise = new double[len];
+		}
+		for (int e = 0; e < len; e++) {
+			gaussians.next(independent, k);
+			correlate(independent, correlated);
+			for (int i = 0; i < k; i++) {
+				normals[i][e] = correlated[i];
+			}
+		}
+		for (int i = 0; i < k; i++) {
+			Equation equation = equations[i];
+			equation.advanceBaseValues(baseValues[offset + i], upTicks[offset + i], normals[i], len);
+			if (equation.isStochastic()) {
+				equation.calculateValues(baseValues[offset + i], values[offset + i], len);
+			} else {
+				final double[] z = normals[i];
+				for (int e = 0; e < len; e++) {
+					noise[e] = GaussianBuffer.cdf(z[e]);
+				}
+				equation.calculateValues(baseValues[offset + i], values[offset + i], noise, len);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EquationGroup [name=" + name + ", description=" + description + ", equationNames="
+				+ Arrays.toString(equationNames) + ", correlation=" + Arrays.deepToString(correlation) + "]";
+	}
+}
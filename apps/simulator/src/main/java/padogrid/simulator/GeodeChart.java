@@ -15,7 +15,6 @@
  */
 package padogrid.simulator;
 
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
 
 import org.apache.geode.cache.EntryEvent;
@@ -170,7 +169,7 @@ public class GeodeChart extends AbstractChart {
 		}
 
 		// Set time format
-		simpleDateFormat = new SimpleDateFormat(timeFormat);
+		timestampCodec = new TimestampCodec(timeFormat);
 
 		SimulatorConfig.DsType ds = SimulatorConfig.DsType.REGION;
 		writeLine("     data structure: " + ds);
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@linkplain HashedWheelScheduler} runs periodic tasks with a hashed wheel
+ * timer (Varghese and Lauck, 1987). The wheel is an array of slots, each
+ * spanning one tick. A task is placed in the slot of its deadline with the
+ * number of full wheel rotations remaining, so that scheduling is O(1)
+ * regardless of the number of tasks. A single timer thread wakes up once per
+ * tick, collects all tasks due in the current slot into one batch and
+ * dispatches the batch to a small worker pool split into at most one chunk per
+ * worker.
+ * <p>
+ * The deadlines are rounded to the tick, i.e., a task may run up to one tick
+ * late. Each task is rescheduled at its next fixed-rate deadline after it
+ * completes, so that runs of the same task never overlap. A task that falls
+ * behind catches up one run per tick.
+ *
+ * @author dpark
+ *
+ */
+public class HashedWheelScheduler {
+	private final long tickNanos;
+	private final int mask;
+	private final ArrayList<Timeout>[] wheel;
+	private final ExecutorService workers;
+	private final int workerCount;
+	private final ConcurrentLinkedQueue<Timeout> pendingQueue = new ConcurrentLinkedQueue<Timeout>();
+	private final Thread timerThread;
+	private final AtomicInteger taskCount = new AtomicInteger();
+	private volatile boolean isRunning;
+	private long startTime;
+	private long tick;
+
+	/**
+	 * Creates a scheduler. {@linkplain #start()} must be invoked to start the
+	 * timer thread.
+	 *
+	 * @param tickDuration  Tick duration
+	 * @param unit          Tick duration unit
+	 * @param ticksPerWheel Number of slots. Rounded up to a power of 2.
+	 * @param workerCount   Number of worker threads
+	 */
+	public HashedWheelScheduler(long tickDuration, TimeUnit unit, int ticksPerWheel, int workerCount) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("tickDuration must be positive [tickDuration=" + tickDuration + "]");
+		}
+		if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+			throw new IllegalArgumentException("ticksPerWheel out of range [ticksPerWheel=" + ticksPerWheel + "]");
+		}
+		int wheelSize = 1;
+		while (wheelSize < ticksPerWheel) {
+			wheelSize <<= 1;
+		}
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.mask = wheelSize - 1;
+		this.wheel = newWheel(wheelSize);
+		this.workerCount = Math.max(1, workerCount);
+		AtomicInteger threadSeq = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(this.workerCount, r -> {
+			return new Thread(r, "wheel-worker-" + threadSeq.getAndIncrement());
+		});
+		// Non-daemon like the ScheduledExecutorService threads. shutdown() stops them.
+		this.timerThread = new Thread(this::runTimer, "wheel-timer");
+	}
+
+	/**
+	 * Returns a new wheel of the specified number of empty slots.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ArrayList<Timeout>[] newWheel(int wheelSize) {
+		ArrayList<Timeout>[] wheel = new ArrayList[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			wheel[i] = new ArrayList<Timeout>();
+		}
+		return wheel;
+	}
+
+	/**
+	 * Starts the timer thread.
+	 */
+	public synchronized void start() {
+		if (isRunning == false && timerThread.getState() == Thread.State.NEW) {
+			startTime = System.nanoTime();
+			isRunning = true;
+			timerThread.start();
+		}
+	}
+
+	/**
+	 * Stops the timer thread and the worker pool. The batches in progress
+	 * complete but no more tasks are run.
+	 */
+	public void shutdown() {
+		isRunning = false;
+		LockSupport.unpark(timerThread);
+		workers.shutdown();
+	}
+
+	/**
+	 * Blocks until the in-progress batches complete after
+	 * {@linkplain #shutdown()}.
+	 *
+	 * @return true if terminated, false if timed out
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return workers.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Schedules the specified task to run periodically at the fixed rate.
+	 *
+	 * @param task         Task
+	 * @param initialDelay Delay of the first run
+	 * @param period       Period between the deadlines of successive runs
+	 * @param unit         Unit of initialDelay and period
+	 * @return Handle for cancelling the task
+	 */
+	public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("period must be positive [period=" + period + "]");
+		}
+		long now = isRunning ? System.nanoTime() - startTime : 0;
+		Timeout timeout = new Timeout(task, now + unit.toNanos(Math.max(0, initialDelay)), unit.toNanos(period));
+		taskCount.incrementAndGet();
+		pendingQueue.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Returns the number of scheduled tasks that are not cancelled.
+	 */
+	public int getTaskCount() {
+		return taskCount.get();
+	}
+
+	private void runTimer() {
+		while (isRunning) {
+			long deadline = startTime + (tick + 1) * tickNanos;
+			long remaining;
+			while ((remaining = deadline - System.nanoTime()) > 0 && isRunning) {
+				LockSupport.parkNanos(remaining);
+			}
+			if (isRunning == false) {
+				break;
+			}
+			transferPending();
+			ArrayList<Timeout> batch = expire(wheel[(int) (tick & mask)]);
+			if (batch != null) {
+				dispatch(batch);
+			}
+			tick++;
+		}
+	}
+
+	/**
+	 * Moves the newly scheduled and rescheduled tasks to their slots.
+	 */
+	private void transferPending() {
+		Timeout timeout;
+		while ((timeout = pendingQueue.poll()) != null) {
+			if (timeout.isCancelled) {
+				continue;
+			}
+			// Slot s fires at the end of tick s, i.e., the first slot ending at or
+			// after the deadline. A deadline already passed goes in the current slot.
+			long calculated = Math.max((timeout.deadline + tickNanos - 1) / tickNanos - 1, tick);
+			timeout.remainingRounds = (calculated - tick) / wheel.length;
+			wheel[(int) (calculated & mask)].add(timeout);
+		}
+	}
+
+	/**
+	 * Removes the due tasks from the specified slot.
+	 *
+	 * @return Due tasks, or null if none
+	 */
+	private ArrayList<Timeout> expire(ArrayList<Timeout> slot) {
+		ArrayList<Timeout> batch = null;
+		int kept = 0;
+		for (int i = 0; i < slot.size(); i++) {
+			Timeout timeout = slot.get(i);
+			if (timeout.isCancelled) {
+				continue;
+			}
+			if (timeout.remainingRounds <= 0) {
+				if (batch == null) {
+					batch = new ArrayList<Timeout>();
+				}
+				batch.add(timeout);
+			} else {
+				timeout.remainingRounds--;
+				slot.set(kept++, timeout);
+			}
+		}
+		for (int i = slot.size() - 1; i >= kept; i--) {
+			slot.remove(i);
+		}
+		return batch;
+	}
+
+	/**
+	 * Dispatches the batch to the workers in at most one chunk per worker.
+	 */
+	private void dispatch(ArrayList<Timeout> batch) {
+		int size = batch.size();
+		int chunkCount = Math.min(workerCount, size);
+		for (int c = 0; c < chunkCount; c++) {
+			int from = (int) ((long) size * c / chunkCount);
+			int to = (int) ((long) size * (c + 1) / chunkCount);
+			try {
+				workers.execute(() -> {
+					for (int i = from; i < to; i++) {
+						runTask(batch.get(i));
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// Shutting down
+				return;
+			}
+		}
+	}
+
+	private void runTask(Timeout timeout) {
+		if (timeout.isCancelled || isRunning == false) {
+			return;
+		}
+		try {
+			timeout.task.run();
+		} catch (Throwable e) {
+			// Suppress subsequent runs as ScheduledExecutorService does
+			System.err.printf("ERROR: Scheduled task failed [error=%s]. Task cancelled.%n", e);
+			timeout.cancel();
+			return;
+		}
+		if (timeout.isCancelled == false) {
+			timeout.deadline += timeout.period;
+			pendingQueue.add(timeout);
+		}
+	}
+
+	/**
+	 * {@linkplain Timeout} is the handle of a scheduled task.
+	 */
+	public class Timeout {
+		private final Runnable task;
+		private final long period;
+		private long deadline;
+		private long remainingRounds;
+		private volatile boolean isCancelled;
+
+		Timeout(Runnable task, long deadline, long period) {
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+
+		/**
+		 * Cancels the task. A run in progress completes but the task is not run
+		 * again. The task is removed from the wheel when its slot is next visited.
+		 */
+		public synchronized void cancel() {
+			if (isCancelled == false) {
+				isCancelled = true;
+				taskCount.decrementAndGet();
+			}
+		}
+
+		public boolean isCancelled() {
+			return isCancelled;
+		}
+	}
+}
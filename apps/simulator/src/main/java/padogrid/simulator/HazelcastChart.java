@@ -15,7 +15,6 @@
  */
 package padogrid.simulator;
 
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
 
 import org.json.JSONObject;
@@ -210,7 +209,7 @@ public class HazelcastChart extends AbstractChart {
 		}
 
 		// Set time format
-		simpleDateFormat = new SimpleDateFormat(timeFormat);
+		timestampCodec = new TimestampCodec(timeFormat);
 
 		SimulatorConfig.DsType ds = SimulatorConfig.DsType.TOPIC;
 		if (dsStr != null) {
@@ -17,4 +17,21 @@ package padogrid.simulator;
 
 public interface ICalculation {
 	double calculate(double baseValue);
+
+	/**
+	 * Calculates the values of the specified base values in a single call, i.e.,
+	 * {@code values[i] = calculate(baseValues[i])} for i in [0, len). The default
+	 * implementation invokes {@linkplain #calculate(double)} per base value.
+	 * Implementations should override it with a loop that the JIT can unroll and
+	 * vectorize.
+	 * 
+	 * @param baseValues Base values
+	 * @param values     Output values. It may be the same array as baseValues.
+	 * @param len        Number of base values to calculate
+	 */
+	default void calculate(double[] baseValues, double[] values, int len) {
+		for (int i = 0; i < len; i++) {
+			values[i] = calculate(baseValues[i]);
+		}
+	}
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain JsonPayloadWriter} encodes a publisher's tick into a reusable
+ * UTF-8 byte buffer without building a {@linkplain JSONObject}. The field names
+ * are encoded once and the values are set in place, so that encoding a tick
+ * allocates nothing but the buffer growth.
+ * <p>
+ * The output is byte-identical to {@code JSONObject.toString().getBytes()} of
+ * the JSON object the publisher would otherwise build, including the field
+ * order, which is the iteration order of the JSON object's hash map, the
+ * number format, i.e., {@linkplain JSONObject#numberToString(Number)}, and the
+ * string escapes, i.e., {@linkplain JSONObject#quote(String)}.
+ * <p>
+ * A writer is not thread-safe. It must be used by one thread at a time.
+ *
+ * @author dpark
+ *
+ */
+public final class JsonPayloadWriter extends PayloadWriter {
+	private final static int ID_SLOT = -1;
+	private final static int TIME_SLOT = -2;
+
+	// Output order. A field index, ID_SLOT or TIME_SLOT per slot.
+	private final int[] slots;
+	// Quoted field name followed by ':' per slot
+	private final byte[][] slotNameBytes;
+
+	private final StringBuilder numberBuilder = new StringBuilder(32);
+
+	/**
+	 * Creates a writer for the specified publisher's fields, i.e., the
+	 * equation fields, the fleet's id field if defined, and the time field.
+	 *
+	 * @param plan Publisher plan
+	 */
+	public JsonPayloadWriter(PublisherPlan plan) {
+		super(plan);
+		byte[][] fieldNameBytes = plan.getFieldNameBytes();
+
+		// Determine the field order by putting the fields in the same order as the
+		// publisher does. The order depends only on the names and the put order.
+		JSONObject template = new JSONObject();
+		if (idField != null) {
+			template.put(idField, "");
+		}
+		for (String fieldName : fieldNames) {
+			template.put(fieldName, 0d);
+		}
+		template.put(PublisherPlan.TIME_FIELD, "");
+
+		this.slots = new int[template.length()];
+		this.slotNameBytes = new byte[slots.length][];
+		int slot = 0;
+		for (String key : template.keySet()) {
+			if (key.equals(PublisherPlan.TIME_FIELD)) {
+				slots[slot] = TIME_SLOT;
+				slotNameBytes[slot] = toFieldNameBytes(key);
+			} else if (key.equals(idField)) {
+				slots[slot] = ID_SLOT;
+				slotNameBytes[slot] = toFieldNameBytes(key);
+			} else {
+				int index = Arrays.asList(fieldNames).indexOf(key);
+				slots[slot] = index;
+				slotNameBytes[slot] = fieldNameBytes[index];
+			}
+			slot++;
+		}
+	}
+
+	private static byte[] toFieldNameBytes(String fieldName) {
+		return (JSONObject.quote(fieldName) + ":").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.JSON;
+	}
+
+	/**
+	 * Encodes the current values into the buffer.
+	 *
+	 * @return Number of bytes encoded
+	 * @throws JSONException Thrown if a value is not finite as JSONObject does
+	 */
+	@Override
+	public int write() {
+		length = 0;
+		writeByte('{');
+		for (int slot = 0; slot < slots.length; slot++) {
+			if (slot > 0) {
+				writeByte(',');
+			}
+			writeBytes(slotNameBytes[slot]);
+			switch (slots[slot]) {
+			case TIME_SLOT:
+				writeQuoted(time);
+				break;
+			case ID_SLOT:
+				writeQuoted(id);
+				break;
+			default:
+				writeNumber(values[slots[slot]]);
+				break;
+			}
+		}
+		writeByte('}');
+		return length;
+	}
+
+	/**
+	 * Returns the encoded JSON string.
+	 */
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the specified value in the format of
+	 * {@linkplain JSONObject#numberToString(Number)}, i.e., Double.toString()
+	 * without the trailing zeros and decimal point.
+	 */
+	private void writeNumber(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		StringBuilder sb = numberBuilder;
+		sb.setLength(0);
+		sb.append(value);
+		int end = sb.length();
+		if (indexOf(sb, 'E') < 0 && indexOf(sb, '.') > 0) {
+			while (sb.charAt(end - 1) == '0') {
+				end--;
+			}
+			if (sb.charAt(end - 1) == '.') {
+				end--;
+			}
+		}
+		ensureCapacity(end);
+		for (int i = 0; i < end; i++) {
+			buffer[length++] = (byte) sb.charAt(i);
+		}
+	}
+
+	private static int indexOf(StringBuilder sb, char c) {
+		for (int i = 0; i < sb.length(); i++) {
+			if (sb.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the specified string quoted and escaped in the format of
+	 * {@linkplain JSONObject#quote(String)}.
+	 */
+	private void writeQuoted(String string) {
+		writeByte('"');
+		if (string != null) {
+			char b;
+			char c = 0;
+			int len = string.length();
+			for (int i = 0; i < len; i++) {
+				b = c;
+				c = string.charAt(i);
+				switch (c) {
+				case '\\':
+				case '"':
+					writeByte('\\');
+					writeByte(c);
+					break;
+				case '/':
+					if (b == '<') {
+						writeByte('\\');
+					}
+					writeByte(c);
+					break;
+				case '\b':
+					writeByte('\\');
+					writeByte('b');
+					break;
+				case '\t':
+					writeByte('\\');
+					writeByte('t');
+					break;
+				case '\n':
+					writeByte('\\');
+					writeByte('n');
+					break;
+				case '\f':
+					writeByte('\\');
+					writeByte('f');
+					break;
+				case '\r':
+					writeByte('\\');
+					writeByte('r');
+					break;
+				default:
+					if (c < ' ' || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100)) {
+						writeByte('\\');
+						writeByte('u');
+						for (int shift = 12; shift >= 0; shift -= 4) {
+							writeByte(Character.forDigit((c >> shift) & 0xf, 16));
+						}
+					} else if (c < 0x80) {
+						writeByte(c);
+					} else {
+						i = writeUtf8(string, i, c);
+					}
+				}
+			}
+		}
+		writeByte('"');
+	}
+}
@@ -18,7 +18,8 @@ package padogrid.simulator;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 import org.eclipse.paho.mqttv5.client.IMqttToken;
@@ -36,6 +37,7 @@ import padogrid.mqtt.client.cluster.IClusterConfig;
 import padogrid.mqtt.client.cluster.IHaMqttCallback;
 import padogrid.mqtt.client.cluster.config.ClusterConfig;
 import padogrid.simulator.config.SimulatorConfig;
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
 
 /**
  * Plots MQTT topic updates.
@@ -46,6 +48,7 @@ import padogrid.simulator.config.SimulatorConfig;
 public class MqttChart extends AbstractChart {
 	static String topicFilter = null;
 	static HaMqttClient client = null;
+	static PayloadDecoder payloadDecoder = null;
 
 	@Override
 	public void stop() throws Exception {
@@ -61,7 +64,8 @@ public class MqttChart extends AbstractChart {
 		writeLine();
 		writeLine("SYNOPSIS");
 		writeLine("   " + executable + " [[-cluster cluster_name] [-config config_file] | [-endpoints serverURIs]]");
-		writeLine("              [-fos fos] [-qos qos] [-features feature_list] [-time-format time_format] [-window-size window_size] -t topic_filter [-?]");
+		writeLine("              [-fos fos] [-qos qos] [-features feature_list] [-time-format time_format] [-window-size window_size]");
+		writeLine("              [-payload-format json|cbor|msgpack|avro] [-avro-schema schema_file] -t topic_filter [-?]");
 		writeLine();
 		writeLine("DESCRIPTION");
 		writeLine("   Charts the MQTT data published by the simulator.");
@@ -114,6 +118,14 @@ public class MqttChart extends AbstractChart {
 		writeLine("             trending the chart.");
 		writeLine("             Default: " + WINDOW_SIZE);
 		writeLine();
+		writeLine("   -payload-format json|cbor|msgpack|avro");
+		writeLine("             Optional payload format. The payload format must match the publisher's 'payloadFormat'.");
+		writeLine("             Default: json");
+		writeLine();
+		writeLine("   -avro-schema schema_file");
+		writeLine("             Avro schema file. Required if '-payload-format avro'. The simulator prints the schema");
+		writeLine("             of each AVRO publisher when it starts.");
+		writeLine();
 		writeLine("   -t topic_filter");
 		writeLine("             Topic filter.");
 		writeLine();
@@ -136,6 +148,8 @@ public class MqttChart extends AbstractChart {
 		int qos = 0;
 		int fos = 0;
 		int windowSize = WINDOW_SIZE;
+		String payloadFormat = "json";
+		String avroSchemaFilePath = null;
 		topicFilter = null;
 
 		String arg;
@@ -193,6 +207,14 @@ public class MqttChart extends AbstractChart {
 				if (i < args.length - 1) {
 					timeFormat = args[++i].trim();
 				}
+			} else if (arg.equals("-payload-format")) {
+				if (i < args.length - 1) {
+					payloadFormat = args[++i].trim();
+				}
+			} else if (arg.equals("-avro-schema")) {
+				if (i < args.length - 1) {
+					avroSchemaFilePath = args[++i].trim();
+				}
 			} else if (arg.equals("-window-size")) {
 				if (i < args.length - 1) {
 					String val = args[++i].trim();
@@ -223,6 +245,17 @@ public class MqttChart extends AbstractChart {
 			System.err.printf("ERROR: Topic wildcards not allowed [%s].%n", topicFilter);
 			System.exit(4);
 		}
+		try {
+			String avroSchema = null;
+			if (avroSchemaFilePath != null) {
+				avroSchema = new String(Files.readAllBytes(Paths.get(avroSchemaFilePath)), StandardCharsets.UTF_8);
+			}
+			payloadDecoder = new PayloadDecoder(PayloadFormat.valueOf(payloadFormat.toUpperCase()), avroSchema);
+		} catch (IOException | IllegalArgumentException ex) {
+			System.err.printf("ERROR: Invalid payload format [payloadFormat=%s, avroSchema=%s]. %s Command aborted.%n",
+					payloadFormat, avroSchemaFilePath, ex.getMessage());
+			System.exit(5);
+		}
 		
 		if (windowSize < MIN_WINDOW_SIZE) {
 			System.out.printf("Window size too small [%d]. Setting to the minimum value of %d...%n", windowSize, MIN_WINDOW_SIZE);
@@ -234,7 +267,7 @@ public class MqttChart extends AbstractChart {
 		}
 		
 		// Set time format
-		simpleDateFormat = new SimpleDateFormat(timeFormat);
+		timestampCodec = new TimestampCodec(timeFormat);
 
 		// Collect system properties - passed in by the invoking script.
 		if (configFilePath == null && clusterName == null) {
@@ -339,7 +372,7 @@ public class MqttChart extends AbstractChart {
 			@Override
 			public void messageArrived(MqttClient client, String topic, MqttMessage message) throws Exception {
 				try {
-					JSONObject json = new JSONObject(new String(message.getPayload(), StandardCharsets.UTF_8));
+					JSONObject json = payloadDecoder.decode(message.getPayload());
 					updateChart(json);
 				} catch (Exception ex) {
 					ex.printStackTrace();
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain MsgPackPayloadWriter} encodes a publisher's tick as a MessagePack
+ * map of the fleet entity ID if the plan has an id field, the equation values
+ * and the time. The keys are strings encoded once. A value is encoded as a
+ * float 32 if it is exact in single precision, and as a float 64 otherwise.
+ * The ID and time are strings.
+ *
+ * @author dpark
+ *
+ */
+public final class MsgPackPayloadWriter extends PayloadWriter {
+	private final byte[] mapHeader;
+	private final byte[] idKey;
+	private final byte[][] fieldKeys;
+	private final byte[] timeKey;
+
+	public MsgPackPayloadWriter(PublisherPlan plan) {
+		super(plan);
+		int size = fieldNames.length + (idField != null ? 2 : 1);
+		length = 0;
+		if (size < 16) {
+			writeByte(0x80 | size);
+		} else if (size < 0x10000) {
+			writeByte(0xde);
+			writeBigEndian(size, 2);
+		} else {
+			writeByte(0xdf);
+			writeBigEndian(size, 4);
+		}
+		this.mapHeader = toByteArray();
+		this.idKey = idField != null ? toKey(idField) : null;
+		this.fieldKeys = new byte[fieldNames.length][];
+		for (int i = 0; i < fieldNames.length; i++) {
+			fieldKeys[i] = toKey(fieldNames[i]);
+		}
+		this.timeKey = toKey(PublisherPlan.TIME_FIELD);
+		length = 0;
+	}
+
+	private byte[] toKey(String key) {
+		length = 0;
+		writeString(key);
+		return toByteArray();
+	}
+
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.MSGPACK;
+	}
+
+	@Override
+	public int write() {
+		length = 0;
+		writeBytes(mapHeader);
+		if (idKey != null) {
+			writeBytes(idKey);
+			writeString(id);
+		}
+		for (int i = 0; i < fieldKeys.length; i++) {
+			writeBytes(fieldKeys[i]);
+			double value = values[i];
+			float floatValue = (float) value;
+			if (floatValue == value || Double.isNaN(value)) {
+				writeByte(0xca);
+				writeBigEndian(Float.floatToIntBits(floatValue), 4);
+			} else {
+				writeByte(0xcb);
+				writeBigEndian(Double.doubleToLongBits(value), 8);
+			}
+		}
+		writeBytes(timeKey);
+		writeString(time);
+		return length;
+	}
+
+	/**
+	 * Writes the specified string. Null is written as nil.
+	 */
+	private void writeString(String string) {
+		if (string == null) {
+			writeByte(0xc0);
+			return;
+		}
+		int len = utf8Length(string);
+		if (len < 32) {
+			writeByte(0xa0 | len);
+		} else if (len < 0x100) {
+			writeByte(0xd9);
+			writeBigEndian(len, 1);
+		} else if (len < 0x10000) {
+			writeByte(0xda);
+			writeBigEndian(len, 2);
+		} else {
+			writeByte(0xdb);
+			writeBigEndian(len, 4);
+		}
+		writeUtf8(string);
+	}
+}
@@ -0,0 +1,546 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain PayloadDecoder} decodes MQTT payloads in the payload formats
+ * published by the simulator into JSON objects. Binary payloads are decoded
+ * directly into {@linkplain JSONObject} without the JSON text parsing.
+ * <ul>
+ * <li>JSON - JSON text</li>
+ * <li>CBOR - Definite and indefinite length maps and arrays of integers,
+ * floats, text strings, booleans and null. Byte strings, tags and other simple
+ * values are not supported.</li>
+ * <li>MSGPACK - Maps and arrays of integers, floats, strings, booleans and nil.
+ * Bin and ext types are not supported.</li>
+ * <li>AVRO - Records of the specified schema with the primitive types null,
+ * boolean, int, long, float, double and string, and unions of them.</li>
+ * </ul>
+ * Non-finite floats are decoded as {@linkplain JSONObject#NULL} since JSON does
+ * not allow them.
+ * <p>
+ * A decoder is immutable and thread-safe.
+ *
+ * @author dpark
+ *
+ */
+public final class PayloadDecoder {
+	// Avro types
+	private final static int AVRO_NULL = 0;
+	private final static int AVRO_BOOLEAN = 1;
+	private final static int AVRO_INT = 2;
+	private final static int AVRO_LONG = 3;
+	private final static int AVRO_FLOAT = 4;
+	private final static int AVRO_DOUBLE = 5;
+	private final static int AVRO_STRING = 6;
+
+	private final PayloadFormat payloadFormat;
+
+	// Avro record fields. A union has more than one type per field.
+	private final String[] avroFieldNames;
+	private final int[][] avroFieldTypes;
+
+	/**
+	 * Creates a decoder for the specified payload format.
+	 *
+	 * @param payloadFormat Payload format. If null, then JSON.
+	 * @param avroSchema    Avro record schema in JSON. Required for AVRO,
+	 *                      ignored otherwise.
+	 * @throws IllegalArgumentException Thrown if the payload format is COMPACT or
+	 *                                  the Avro schema is undefined or not
+	 *                                  supported
+	 */
+	public PayloadDecoder(PayloadFormat payloadFormat, String avroSchema) {
+		this.payloadFormat = payloadFormat == null ? PayloadFormat.JSON
+				: PayloadFormat.valueOf(payloadFormat.name().toUpperCase());
+		if (this.payloadFormat == PayloadFormat.COMPACT) {
+			throw new IllegalArgumentException("payloadFormat not supported by MQTT [payloadFormat=COMPACT]");
+		}
+		if (this.payloadFormat != PayloadFormat.AVRO) {
+			this.avroFieldNames = null;
+			this.avroFieldTypes = null;
+			return;
+		}
+		if (avroSchema == null || avroSchema.trim().length() == 0) {
+			throw new IllegalArgumentException("avroSchema undefined");
+		}
+		JSONObject schema = new JSONObject(avroSchema);
+		if ("record".equals(schema.optString("type", null)) == false) {
+			throw new IllegalArgumentException("avroSchema is not a record [avroSchema=" + avroSchema + "]");
+		}
+		JSONArray fields = schema.getJSONArray("fields");
+		this.avroFieldNames = new String[fields.length()];
+		this.avroFieldTypes = new int[fields.length()][];
+		for (int i = 0; i < fields.length(); i++) {
+			JSONObject field = fields.getJSONObject(i);
+			avroFieldNames[i] = field.getString("name");
+			Object type = field.get("type");
+			if (type instanceof JSONArray) {
+				JSONArray union = (JSONArray) type;
+				avroFieldTypes[i] = new int[union.length()];
+				for (int j = 0; j < union.length(); j++) {
+					avroFieldTypes[i][j] = toAvroType(union.get(j));
+				}
+			} else {
+				avroFieldTypes[i] = new int[] { toAvroType(type) };
+			}
+		}
+	}
+
+	private static int toAvroType(Object type) {
+		if (type instanceof JSONObject) {
+			type = ((JSONObject) type).get("type");
+		}
+		switch (String.valueOf(type)) {
+		case "null":
+			return AVRO_NULL;
+		case "boolean":
+			return AVRO_BOOLEAN;
+		case "int":
+			return AVRO_INT;
+		case "long":
+			return AVRO_LONG;
+		case "float":
+			return AVRO_FLOAT;
+		case "double":
+			return AVRO_DOUBLE;
+		case "string":
+			return AVRO_STRING;
+		default:
+			throw new IllegalArgumentException("Avro type not supported [type=" + type + "]");
+		}
+	}
+
+	/**
+	 * Returns the upper case payload format.
+	 */
+	public PayloadFormat getPayloadFormat() {
+		return payloadFormat;
+	}
+
+	/**
+	 * Returns true if the payload format is JSON.
+	 */
+	public boolean isJson() {
+		return payloadFormat == PayloadFormat.JSON;
+	}
+
+	/**
+	 * Decodes the specified payload.
+	 *
+	 * @param payload Payload in the payload format
+	 * @throws IllegalArgumentException Thrown if the payload is malformed or not
+	 *                                  supported
+	 * @throws org.json.JSONException   Thrown if the JSON payload is malformed
+	 */
+	public JSONObject decode(byte[] payload) {
+		switch (payloadFormat) {
+		case CBOR:
+			return toJsonObject(new Reader(payload).readCbor());
+		case MSGPACK:
+			return toJsonObject(new Reader(payload).readMsgPack());
+		case AVRO:
+			return new Reader(payload).readAvro(avroFieldNames, avroFieldTypes);
+		case JSON:
+		default:
+			return new JSONObject(new String(payload, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Decodes the specified payload into a JSON string. A JSON payload is
+	 * returned as is.
+	 *
+	 * @param payload Payload in the payload format
+	 * @throws IllegalArgumentException Thrown if the payload is malformed or not
+	 *                                  supported
+	 */
+	public String decodeToString(byte[] payload) {
+		if (payloadFormat == PayloadFormat.JSON) {
+			return new String(payload, StandardCharsets.UTF_8);
+		}
+		return decode(payload).toString();
+	}
+
+	private static JSONObject toJsonObject(Object value) {
+		if (value instanceof JSONObject) {
+			return (JSONObject) value;
+		}
+		throw new IllegalArgumentException("payload is not a map");
+	}
+
+	private static Object toFloatValue(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return JSONObject.NULL;
+		}
+		return value;
+	}
+
+	/**
+	 * {@linkplain Reader} reads a payload from the beginning.
+	 */
+	private static final class Reader {
+		// CBOR break stop code
+		private final static Object BREAK = new Object();
+
+		private final byte[] bytes;
+		private int pos;
+
+		Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		private int readByte() {
+			if (pos >= bytes.length) {
+				throw new IllegalArgumentException("payload truncated [length=" + bytes.length + "]");
+			}
+			return bytes[pos++] & 0xff;
+		}
+
+		private long readBigEndian(int count) {
+			long value = 0;
+			for (int i = 0; i < count; i++) {
+				value = (value << 8) | readByte();
+			}
+			return value;
+		}
+
+		private String readUtf8(long count) {
+			if (count < 0 || count > bytes.length - pos) {
+				throw new IllegalArgumentException("payload truncated [length=" + bytes.length + "]");
+			}
+			String string = new String(bytes, pos, (int) count, StandardCharsets.UTF_8);
+			pos += (int) count;
+			return string;
+		}
+
+		/**
+		 * Returns the specified unsigned 64-bit value as a Long if it fits,
+		 * otherwise as a Double.
+		 */
+		private static Object toUnsigned(long value) {
+			if (value >= 0) {
+				return value;
+			}
+			return unsignedToDouble(value);
+		}
+
+		private static double unsignedToDouble(long value) {
+			return (double) (value >>> 1) * 2 + (value & 1);
+		}
+
+		private void checkEnd() {
+			if (pos != bytes.length) {
+				throw new IllegalArgumentException("trailing bytes in payload [length=" + bytes.length + "]");
+			}
+		}
+
+		/*
+		 * CBOR
+		 */
+
+		Object readCbor() {
+			Object value = readCborItem();
+			if (value == BREAK) {
+				throw new IllegalArgumentException("unexpected CBOR break");
+			}
+			checkEnd();
+			return value;
+		}
+
+		private long readCborArgument(int info) {
+			if (info < 24) {
+				return info;
+			}
+			switch (info) {
+			case 24:
+				return readBigEndian(1);
+			case 25:
+				return readBigEndian(2);
+			case 26:
+				return readBigEndian(4);
+			case 27:
+				return readBigEndian(8);
+			default:
+				throw new IllegalArgumentException("CBOR additional info not supported [info=" + info + "]");
+			}
+		}
+
+		private Object readCborItem() {
+			int initial = readByte();
+			int majorType = initial >> 5;
+			int info = initial & 0x1f;
+			switch (majorType) {
+			case 0:
+				return toUnsigned(readCborArgument(info));
+			case 1: {
+				long argument = readCborArgument(info);
+				if (argument >= 0) {
+					return -1 - argument;
+				}
+				return -1 - unsignedToDouble(argument);
+			}
+			case 3:
+				if (info == 31) {
+					StringBuilder sb = new StringBuilder();
+					Object chunk;
+					while ((chunk = readCborItem()) != BREAK) {
+						if (chunk instanceof String == false) {
+							throw new IllegalArgumentException("CBOR text chunk is not text");
+						}
+						sb.append(chunk);
+					}
+					return sb.toString();
+				}
+				return readUtf8(readCborArgument(info));
+			case 4: {
+				JSONArray array = new JSONArray();
+				if (info == 31) {
+					Object item;
+					while ((item = readCborItem()) != BREAK) {
+						array.put(item);
+					}
+				} else {
+					long size = readCborArgument(info);
+					for (long i = 0; i < size; i++) {
+						array.put(readCborValue());
+					}
+				}
+				return array;
+			}
+			case 5: {
+				JSONObject json = new JSONObject();
+				if (info == 31) {
+					Object key;
+					while ((key = readCborItem()) != BREAK) {
+						json.put(String.valueOf(key), readCborValue());
+					}
+				} else {
+					long size = readCborArgument(info);
+					for (long i = 0; i < size; i++) {
+						json.put(String.valueOf(readCborValue()), readCborValue());
+					}
+				}
+				return json;
+			}
+			case 7:
+				switch (info) {
+				case 20:
+					return Boolean.FALSE;
+				case 21:
+					return Boolean.TRUE;
+				case 22:
+				case 23:
+					return JSONObject.NULL;
+				case 25:
+					return toFloatValue(halfToDouble((int) readBigEndian(2)));
+				case 26:
+					return toFloatValue(Float.intBitsToFloat((int) readBigEndian(4)));
+				case 27:
+					return toFloatValue(Double.longBitsToDouble(readBigEndian(8)));
+				case 31:
+					return BREAK;
+				default:
+					throw new IllegalArgumentException("CBOR simple value not supported [info=" + info + "]");
+				}
+			default:
+				throw new IllegalArgumentException("CBOR major type not supported [majorType=" + majorType + "]");
+			}
+		}
+
+		private Object readCborValue() {
+			Object value = readCborItem();
+			if (value == BREAK) {
+				throw new IllegalArgumentException("unexpected CBOR break");
+			}
+			return value;
+		}
+
+		private static double halfToDouble(int half) {
+			int exponent = (half >> 10) & 0x1f;
+			int mantissa = half & 0x3ff;
+			double value;
+			if (exponent == 0) {
+				value = mantissa * Math.pow(2, -24);
+			} else if (exponent == 31) {
+				value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+			} else {
+				value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+			}
+			return (half & 0x8000) != 0 ? -value : value;
+		}
+
+		/*
+		 * MessagePack
+		 */
+
+		Object readMsgPack() {
+			Object value = readMsgPackValue();
+			checkEnd();
+			return value;
+		}
+
+		private Object readMsgPackValue() {
+			int b = readByte();
+			if (b < 0x80) {
+				return (long) b;
+			} else if (b < 0x90) {
+				return readMsgPackMap(b & 0x0f);
+			} else if (b < 0xa0) {
+				return readMsgPackArray(b & 0x0f);
+			} else if (b < 0xc0) {
+				return readUtf8(b & 0x1f);
+			} else if (b >= 0xe0) {
+				return (long) (byte) b;
+			}
+			switch (b) {
+			case 0xc0:
+				return JSONObject.NULL;
+			case 0xc2:
+				return Boolean.FALSE;
+			case 0xc3:
+				return Boolean.TRUE;
+			case 0xca:
+				return toFloatValue(Float.intBitsToFloat((int) readBigEndian(4)));
+			case 0xcb:
+				return toFloatValue(Double.longBitsToDouble(readBigEndian(8)));
+			case 0xcc:
+				return readBigEndian(1);
+			case 0xcd:
+				return readBigEndian(2);
+			case 0xce:
+				return readBigEndian(4);
+			case 0xcf:
+				return toUnsigned(readBigEndian(8));
+			case 0xd0:
+				return (long) (byte) readBigEndian(1);
+			case 0xd1:
+				return (long) (short) readBigEndian(2);
+			case 0xd2:
+				return (long) (int) readBigEndian(4);
+			case 0xd3:
+				return readBigEndian(8);
+			case 0xd9:
+				return readUtf8(readBigEndian(1));
+			case 0xda:
+				return readUtf8(readBigEndian(2));
+			case 0xdb:
+				return readUtf8(readBigEndian(4));
+			case 0xdc:
+				return readMsgPackArray(readBigEndian(2));
+			case 0xdd:
+				return readMsgPackArray(readBigEndian(4));
+			case 0xde:
+				return readMsgPackMap(readBigEndian(2));
+			case 0xdf:
+				return readMsgPackMap(readBigEndian(4));
+			default:
+				throw new IllegalArgumentException(String.format("MessagePack type not supported [type=0x%02x]", b));
+			}
+		}
+
+		private JSONArray readMsgPackArray(long size) {
+			JSONArray array = new JSONArray();
+			for (long i = 0; i < size; i++) {
+				array.put(readMsgPackValue());
+			}
+			return array;
+		}
+
+		private JSONObject readMsgPackMap(long size) {
+			JSONObject json = new JSONObject();
+			for (long i = 0; i < size; i++) {
+				json.put(String.valueOf(readMsgPackValue()), readMsgPackValue());
+			}
+			return json;
+		}
+
+		/*
+		 * Avro
+		 */
+
+		JSONObject readAvro(String[] fieldNames, int[][] fieldTypes) {
+			JSONObject json = new JSONObject();
+			for (int i = 0; i < fieldNames.length; i++) {
+				int[] types = fieldTypes[i];
+				int type;
+				if (types.length == 1) {
+					type = types[0];
+				} else {
+					long branch = readAvroLong();
+					if (branch < 0 || branch >= types.length) {
+						throw new IllegalArgumentException("Avro union branch out of range [field=" + fieldNames[i]
+								+ ", branch=" + branch + "]");
+					}
+					type = types[(int) branch];
+				}
+				json.put(fieldNames[i], readAvroValue(type));
+			}
+			checkEnd();
+			return json;
+		}
+
+		private Object readAvroValue(int type) {
+			switch (type) {
+			case AVRO_NULL:
+				return JSONObject.NULL;
+			case AVRO_BOOLEAN:
+				return readByte() != 0;
+			case AVRO_INT:
+				return (int) readAvroLong();
+			case AVRO_LONG:
+				return readAvroLong();
+			case AVRO_FLOAT:
+				return toFloatValue(Float.intBitsToFloat((int) readLittleEndian(4)));
+			case AVRO_DOUBLE:
+				return toFloatValue(Double.longBitsToDouble(readLittleEndian(8)));
+			case AVRO_STRING:
+			default:
+				return readUtf8(readAvroLong());
+			}
+		}
+
+		/**
+		 * Reads a zig-zag varint.
+		 */
+		private long readAvroLong() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return (value >>> 1) ^ -(value & 1);
+				}
+			}
+			throw new IllegalArgumentException("Avro varint too long");
+		}
+
+		private long readLittleEndian(int count) {
+			long value = 0;
+			for (int i = 0; i < count; i++) {
+				value |= (long) readByte() << (i * 8);
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain PayloadWriter} encodes a publisher's tick into a reusable byte
+ * buffer in the publisher's payload format. The values are set in place and
+ * then {@linkplain #write()} encodes them, so that encoding a tick allocates
+ * nothing but the buffer growth. A tick consists of the fleet entity ID if the
+ * plan has an id field, the equation values and the formatted time. The
+ * COMPACT writer builds a Hazelcast record instead, see
+ * {@linkplain CompactPayloadWriter#getRecord()}.
+ * <p>
+ * A writer is not thread-safe. It must be used by one thread at a time.
+ *
+ * @author dpark
+ *
+ */
+public abstract class PayloadWriter {
+	protected final String[] fieldNames;
+	protected final String idField;
+
+	protected final double[] values;
+	protected String id;
+	protected String time;
+	// Tick timestamp in msec. Long.MIN_VALUE if unknown.
+	protected long timestamp = Long.MIN_VALUE;
+
+	protected byte[] buffer = new byte[256];
+	protected int length;
+
+	protected PayloadWriter(PublisherPlan plan) {
+		this.fieldNames = plan.getFieldNames();
+		this.idField = plan.getIdField();
+		this.values = new double[fieldNames.length];
+	}
+
+	/**
+	 * Creates a writer in the specified plan's payload format.
+	 *
+	 * @param plan Publisher plan
+	 */
+	public static PayloadWriter create(PublisherPlan plan) {
+		switch (plan.getPayloadFormat()) {
+		case CBOR:
+			return new CborPayloadWriter(plan);
+		case MSGPACK:
+			return new MsgPackPayloadWriter(plan);
+		case AVRO:
+			return new AvroPayloadWriter(plan);
+		case COMPACT:
+			return new CompactPayloadWriter(plan);
+		case JSON:
+		default:
+			return new JsonPayloadWriter(plan);
+		}
+	}
+
+	/**
+	 * Returns the payload format.
+	 */
+	public abstract PayloadFormat getPayloadFormat();
+
+	/**
+	 * Sets the value of the specified equation field.
+	 *
+	 * @param index Field index in the plan's field names
+	 * @param value Value
+	 */
+	public void setValue(int index, double value) {
+		values[index] = value;
+	}
+
+	/**
+	 * Sets the fleet entity ID. Ignored if the plan has no id field.
+	 */
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	/**
+	 * Sets the formatted time.
+	 */
+	public void setTime(String time) {
+		this.time = time;
+	}
+
+	/**
+	 * Sets the timestamp of the formatted time in msec. The writers that store
+	 * the time as a timestamp use it instead of parsing the formatted time.
+	 */
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Encodes the current values into the buffer.
+	 *
+	 * @return Number of bytes encoded
+	 */
+	public abstract int write();
+
+	/**
+	 * Encodes the values of the specified JSON object built by the publisher.
+	 *
+	 * @param json JSON object with the plan's fields
+	 * @return Number of bytes encoded
+	 */
+	public int write(JSONObject json) {
+		if (idField != null) {
+			id = json.getString(idField);
+		}
+		for (int i = 0; i < fieldNames.length; i++) {
+			values[i] = json.getDouble(fieldNames[i]);
+		}
+		time = json.getString(PublisherPlan.TIME_FIELD);
+		// The JSON object has the formatted time only
+		timestamp = Long.MIN_VALUE;
+		return write();
+	}
+
+	/**
+	 * Returns the buffer. Only the first {@linkplain #getLength()} bytes are
+	 * valid. The buffer is overwritten by the next {@linkplain #write()}.
+	 */
+	public byte[] getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns the number of bytes encoded by the last {@linkplain #write()}.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns a copy of the encoded bytes.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, length);
+	}
+
+	/**
+	 * Returns the JSON representation of the current values for the console
+	 * output.
+	 */
+	@Override
+	public String toString() {
+		JSONObject json = new JSONObject();
+		if (idField != null) {
+			json.put(idField, id);
+		}
+		for (int i = 0; i < fieldNames.length; i++) {
+			json.put(fieldNames[i], values[i]);
+		}
+		json.put(PublisherPlan.TIME_FIELD, time);
+		return json.toString();
+	}
+
+	/**
+	 * Returns the number of UTF-8 bytes of the specified string. An unpaired
+	 * surrogate counts as '?' as String.getBytes() does.
+	 */
+	protected static int utf8Length(String string) {
+		int count = 0;
+		int len = string.length();
+		for (int i = 0; i < len; i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				count++;
+			} else if (c < 0x800) {
+				count += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(string.charAt(i + 1))) {
+				count += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				count++;
+			} else {
+				count += 3;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the UTF-8 bytes of the specified string.
+	 */
+	protected void writeUtf8(String string) {
+		int len = string.length();
+		for (int i = 0; i < len; i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				writeByte(c);
+			} else {
+				i = writeUtf8(string, i, c);
+			}
+		}
+	}
+
+	/**
+	 * Writes the UTF-8 bytes of the non-ASCII character at the specified index.
+	 * An unpaired surrogate is written as '?' as String.getBytes() does.
+	 *
+	 * @return Index of the last character consumed
+	 */
+	protected int writeUtf8(String string, int i, char c) {
+		if (c < 0x800) {
+			writeByte(0xc0 | (c >> 6));
+			writeByte(0x80 | (c & 0x3f));
+		} else if (Character.isSurrogate(c)) {
+			if (Character.isHighSurrogate(c) && i + 1 < string.length()
+					&& Character.isLowSurrogate(string.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, string.charAt(i + 1));
+				writeByte(0xf0 | (codePoint >> 18));
+				writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+				writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+				writeByte(0x80 | (codePoint & 0x3f));
+				return i + 1;
+			}
+			writeByte('?');
+		} else {
+			writeByte(0xe0 | (c >> 12));
+			writeByte(0x80 | ((c >> 6) & 0x3f));
+			writeByte(0x80 | (c & 0x3f));
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of the specified string.
+	 */
+	protected static byte[] toUtf8(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	protected void writeByte(int b) {
+		if (length == buffer.length) {
+			ensureCapacity(1);
+		}
+		buffer[length++] = (byte) b;
+	}
+
+	protected void writeBytes(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	/**
+	 * Writes the specified value in big-endian order.
+	 *
+	 * @param value Value
+	 * @param count Number of low-order bytes to write
+	 */
+	protected void writeBigEndian(long value, int count) {
+		ensureCapacity(count);
+		for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) {
+			buffer[length++] = (byte) (value >>> shift);
+		}
+	}
+
+	protected void ensureCapacity(int count) {
+		if (length + count > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+		}
+	}
+}
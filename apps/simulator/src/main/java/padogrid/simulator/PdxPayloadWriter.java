@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import org.apache.geode.cache.RegionService;
+import org.apache.geode.pdx.JSONFormatter;
+import org.apache.geode.pdx.PdxInstance;
+import org.apache.geode.pdx.PdxInstanceFactory;
+import org.apache.geode.pdx.WritablePdxInstance;
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+
+/**
+ * {@linkplain PdxPayloadWriter} builds a publisher's tick as a Geode/GemFire
+ * {@linkplain PdxInstance} directly from the generated values instead of
+ * parsing the JSON text with {@linkplain JSONFormatter#fromJSON(String)}. The
+ * instance has the same class name and fields as the JSON payload, i.e., the
+ * fleet entity ID as a string if the plan has an id field, the equation values
+ * as doubles and the formatted time as a string, so that
+ * {@linkplain JSONFormatter#toJSON(PdxInstance)} and OQL queries work as
+ * before. Unlike {@linkplain JSONFormatter}, the values are always doubles, so
+ * that the publisher has a single PDX type.
+ * <p>
+ * The PDX type is registered by the first write only. The subsequent writes
+ * copy the first instance with {@linkplain PdxInstance#createWriter()} and set
+ * the values, which reuses the registered type.
+ *
+ * @author dpark
+ *
+ */
+public final class PdxPayloadWriter extends PayloadWriter {
+	private final RegionService regionService;
+	// First instance. Holds the registered PDX type.
+	private PdxInstance template;
+	private PdxInstance pdxInstance;
+
+	/**
+	 * Creates a writer for the specified publisher's fields.
+	 *
+	 * @param plan          Publisher plan
+	 * @param regionService Cache that registers the PDX type
+	 */
+	public PdxPayloadWriter(PublisherPlan plan, RegionService regionService) {
+		super(plan);
+		this.regionService = regionService;
+	}
+
+	/**
+	 * Returns JSON since the PDX instance has the fields of the JSON payload.
+	 */
+	@Override
+	public PayloadFormat getPayloadFormat() {
+		return PayloadFormat.JSON;
+	}
+
+	/**
+	 * Builds the PDX instance of the current values. The buffer is not used.
+	 *
+	 * @return 0
+	 */
+	@Override
+	public int write() {
+		if (template == null) {
+			PdxInstanceFactory factory = createFactory(regionService);
+			if (idField != null) {
+				factory.writeString(idField, id);
+			}
+			for (int i = 0; i < fieldNames.length; i++) {
+				factory.writeDouble(fieldNames[i], values[i]);
+			}
+			factory.writeString(PublisherPlan.TIME_FIELD, time);
+			template = factory.create();
+			pdxInstance = template;
+		} else {
+			WritablePdxInstance writer = template.createWriter();
+			if (idField != null) {
+				writer.setField(idField, id);
+			}
+			for (int i = 0; i < fieldNames.length; i++) {
+				writer.setField(fieldNames[i], values[i]);
+			}
+			writer.setField(PublisherPlan.TIME_FIELD, time);
+			pdxInstance = writer;
+		}
+		length = 0;
+		return length;
+	}
+
+	/**
+	 * Creates a factory for JSON PDX instances. Like the JSON PDX types, they have
+	 * no domain class and are never deserialized.
+	 */
+	private static PdxInstanceFactory createFactory(RegionService regionService) {
+		return regionService.createPdxInstanceFactory(JSONFormatter.JSON_CLASSNAME).neverDeserialize();
+	}
+
+	/**
+	 * Returns the PDX instance built by the last {@linkplain #write()}.
+	 */
+	public PdxInstance getPdxInstance() {
+		return pdxInstance;
+	}
+
+	/**
+	 * Returns true if the specified JSON object is flat, i.e., all of its values
+	 * are finite numbers, booleans or strings. Only a flat object is converted by
+	 * {@linkplain #toPdxInstance(RegionService, JSONObject)}. Nested objects,
+	 * arrays and nulls must be converted by {@linkplain JSONFormatter} instead.
+	 *
+	 * @param json JSON object
+	 */
+	public static boolean isFlat(JSONObject json) {
+		for (String key : json.keySet()) {
+			Object value = json.get(key);
+			if (value instanceof Number) {
+				if (Double.isFinite(((Number) value).doubleValue()) == false) {
+					return false;
+				}
+			} else if ((value instanceof Boolean || value instanceof String) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds a JSON PDX instance from the specified flat JSON object without the
+	 * JSON text. Numbers are doubles, booleans are booleans and strings are
+	 * strings.
+	 *
+	 * @param regionService Cache that registers the PDX type
+	 * @param json          Flat JSON object
+	 * @throws IllegalArgumentException Thrown if the JSON object is not flat
+	 * @see #isFlat(JSONObject)
+	 */
+	public static PdxInstance toPdxInstance(RegionService regionService, JSONObject json) {
+		PdxInstanceFactory factory = createFactory(regionService);
+		for (String key : json.keySet()) {
+			Object value = json.get(key);
+			if (value instanceof Number) {
+				factory.writeDouble(key, ((Number) value).doubleValue());
+			} else if (value instanceof Boolean) {
+				factory.writeBoolean(key, (Boolean) value);
+			} else if (value instanceof String) {
+				factory.writeString(key, (String) value);
+			} else {
+				throw new IllegalArgumentException("JSON object not flat [key=" + key + ", value=" + value + "]");
+			}
+		}
+		return factory.create();
+	}
+}
@@ -0,0 +1,706 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.json.JSONObject;
+
+import padogrid.simulator.config.SimulatorConfig.Backpressure;
+import padogrid.simulator.config.SimulatorConfig.BackpressurePolicy;
+import padogrid.simulator.config.SimulatorConfig.DataStructure;
+import padogrid.simulator.config.SimulatorConfig;
+import padogrid.simulator.config.SimulatorConfig.DsType;
+import padogrid.simulator.config.SimulatorConfig.ExecutionMode;
+import padogrid.simulator.config.SimulatorConfig.Fleet;
+import padogrid.simulator.config.SimulatorConfig.KeyType;
+import padogrid.simulator.config.SimulatorConfig.PayloadFormat;
+import padogrid.simulator.config.SimulatorConfig.Pipeline;
+import padogrid.simulator.config.SimulatorConfig.Product;
+import padogrid.simulator.config.SimulatorConfig.Publisher;
+import padogrid.simulator.config.SimulatorConfig.Reset;
+
+/**
+ * {@linkplain PublisherPlan} is the immutable runtime form of a
+ * {@linkplain Publisher}. It is compiled once at startup by
+ * {@linkplain #compile(Publisher, Equation[], EquationGroup[], SimulatorConfig, int, int)}, which
+ * resolves all string values, normalizes the case-insensitive enums to their
+ * upper case constants and validates the publisher. The publisher threads read
+ * the plan only, i.e., they never go back to the configuration beans whose
+ * getters parse the string values on every call.
+ * <p>
+ * The equations and groups held by the plan are the publisher's own runtime
+ * copies. Their state changes per tick but the plan's references do not.
+ * <p>
+ * A fleet plan holds the shard's slice of the entities only. The entities keep
+ * their global indexes so that the shards never publish the same entity.
+ *
+ * @author dpark
+ *
+ */
+public final class PublisherPlan {
+	public final static String DEFAULT_TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+	public final static String TIME_FIELD = "time";
+
+	private final String name;
+	private final Product product;
+	private final DsType dsType;
+	private final String dsName;
+	private final KeyType keyType;
+	private final String keyValue;
+	private final long keySequenceStart;
+
+	private final long initialDelay;
+	private final long equationDelay;
+	private final double targetRate;
+	private final RateProfile rateProfile;
+	private final ExecutionMode executionMode;
+	private final PayloadFormat payloadFormat;
+	private final BackpressurePolicy backpressurePolicy;
+	private final int queueSize;
+	private final long backpressureReportInterval;
+	private final boolean isPipelined;
+	private final int ringSize;
+	private final int senderCount;
+	private final int batchSize;
+	private final boolean isBackfill;
+	private final int backfillBatchSize;
+	private final boolean isBackfillLive;
+	private final long timeInterval;
+	private final String timeFormat;
+	private final long startTime;
+	private final long maxCount;
+
+	private final Equation[] equations;
+	private final EquationGroup[] groups;
+	private final String[] fieldNames;
+	private final byte[][] fieldNameBytes;
+
+	private final int resetIndex;
+	private final long resetBaseTime;
+	private final long iterations;
+
+	private final int entityStart;
+	private final int entityCount;
+	private final double rateScale;
+	private final String idPrefix;
+	private final String idField;
+	private final long fleetSeed;
+	private final boolean randomPhase;
+	private final double valueOffset;
+
+	private PublisherPlan(Publisher publisher, Product product, DsType dsType, String dsName, KeyType keyType,
+			DataStructure ds, RateProfile rateProfile, ExecutionMode executionMode, PayloadFormat payloadFormat,
+			BackpressurePolicy backpressurePolicy, String timeFormat, long startTime, Equation[] equations,
+			EquationGroup[] groups, String[] fieldNames, int resetIndex, int shardIndex, int shardCount) {
+		this.name = publisher.getName();
+		this.product = product;
+		this.dsType = dsType;
+		this.dsName = dsName;
+		this.keyType = keyType;
+		this.keyValue = ds.getKeyValue();
+		this.keySequenceStart = ds.getKeySequenceStart();
+
+		this.initialDelay = publisher.getInitialDelay();
+		this.equationDelay = publisher.getEquations().getEquationDelay();
+		this.rateProfile = rateProfile;
+		this.executionMode = executionMode;
+		this.payloadFormat = payloadFormat;
+		Backpressure backpressure = publisher.getBackpressure();
+		this.backpressurePolicy = backpressurePolicy;
+		this.queueSize = backpressure != null ? backpressure.getQueueSize() : 0;
+		this.backpressureReportInterval = backpressure != null ? backpressure.getReportInterval() : 0;
+		Pipeline pipeline = publisher.getPipeline();
+		this.isPipelined = publisher.isPipelined();
+		this.ringSize = isPipelined ? pipeline.getRingSize() : 0;
+		this.senderCount = isPipelined ? pipeline.getSenderCount() : 0;
+		this.batchSize = isPipelined ? pipeline.getBatchSize() : 0;
+		this.isBackfill = publisher.isBackfill();
+		this.backfillBatchSize = isBackfill ? publisher.getBackfill().getBatchSize() : 0;
+		this.isBackfillLive = isBackfill ? publisher.getBackfill().isLive() : true;
+		this.timeInterval = publisher.getTimeInterval();
+		this.timeFormat = timeFormat;
+		this.startTime = startTime;
+
+		Fleet fleet = publisher.getFleet();
+		if (publisher.isFleet()) {
+			// The shard takes a contiguous slice of the entities. The entities keep
+			// their global indexes, hence their IDs and seeds.
+			int totalCount = fleet.getEntityCount();
+			this.entityStart = (int) ((long) totalCount * shardIndex / shardCount);
+			this.entityCount = (int) ((long) totalCount * (shardIndex + 1) / shardCount) - entityStart;
+			this.rateScale = (double) entityCount / totalCount;
+			// Same number of ticks as the unsharded fleet
+			long maxCount = publisher.getMaxCount();
+			this.maxCount = maxCount < 0 ? maxCount : (maxCount + totalCount - 1) / totalCount * entityCount;
+			this.idPrefix = fleet.getIdPrefix();
+			this.idField = getIdField(fleet);
+			this.fleetSeed = fleet.getSeed();
+			this.randomPhase = fleet.isRandomPhase();
+			this.valueOffset = fleet.getValueOffset();
+		} else {
+			this.entityStart = 0;
+			this.entityCount = 0;
+			this.rateScale = 1;
+			this.maxCount = publisher.getMaxCount();
+			this.idPrefix = null;
+			this.idField = null;
+			this.fleetSeed = 0;
+			this.randomPhase = false;
+			this.valueOffset = 0;
+		}
+		this.targetRate = publisher.getTargetRate() * rateScale;
+
+		this.equations = equations;
+		this.groups = groups;
+		this.fieldNames = fieldNames;
+		this.fieldNameBytes = new byte[fieldNames.length][];
+		for (int i = 0; i < fieldNames.length; i++) {
+			fieldNameBytes[i] = toFieldNameBytes(fieldNames[i]);
+		}
+
+		Reset reset = publisher.getReset();
+		this.resetIndex = resetIndex;
+		this.resetBaseTime = resetIndex >= 0 ? reset.getResetBaseTime() : 0;
+		this.iterations = reset != null && reset.getEquationName() != null ? reset.getIterations() : -1;
+	}
+
+	/**
+	 * Compiles the specified publisher into a plan. All errors are reported to
+	 * stderr.
+	 *
+	 * @param publisher  Publisher configuration
+	 * @param equations  Publisher's equation copies in the field order
+	 * @param groups     Group of each equation, null if ungrouped. May be null if
+	 *                   no equations are grouped.
+	 * @param config     Simulator configuration that provides the root defaults
+	 * @param shardIndex Index of this simulator instance in [0, shardCount)
+	 * @param shardCount Number of simulator instances. 1 if not sharded.
+	 * @return null if the publisher is invalid
+	 */
+	public static PublisherPlan compile(Publisher publisher, Equation[] equations, EquationGroup[] groups,
+			SimulatorConfig config, int shardIndex, int shardCount) {
+		ArrayList<String> errors = new ArrayList<String>(4);
+		String publisherName = publisher.getName();
+		if (publisherName == null || publisherName.length() == 0) {
+			errors.add("name undefined");
+		}
+		Product product = publisher.getProduct() == null ? null
+				: Product.valueOf(publisher.getProduct().name().toUpperCase());
+		if (product == null) {
+			errors.add("product undefined");
+		}
+		DataStructure ds = publisher.getDataStructure();
+		DsType dsType = null;
+		String dsName = null;
+		KeyType keyType = KeyType.SEQUENCE;
+		if (ds == null) {
+			errors.add("dataStructure undefined");
+		} else {
+			dsType = ds.getType() == null ? DsType.TOPIC : DsType.valueOf(ds.getType().name().toUpperCase());
+			dsName = ds.getName();
+			if (dsName == null || dsName.length() == 0) {
+				errors.add("dataStructure.name undefined");
+			}
+			if (ds.getKeyType() != null) {
+				keyType = KeyType.valueOf(ds.getKeyType().name().toUpperCase());
+			}
+		}
+		if (equations == null || equations.length == 0) {
+			errors.add("equations undefined");
+			equations = new Equation[0];
+		}
+		if (groups == null) {
+			groups = new EquationGroup[equations.length];
+		}
+
+		if ((publisher.getTargetRate() >= 0) == false || Double.isInfinite(publisher.getTargetRate())) {
+			errors.add("invalid targetRate [targetRate=" + publisher.getTargetRate() + "]");
+		}
+		RateProfile rateProfile = null;
+		if (publisher.getLoadProfile() != null) {
+			rateProfile = RateProfile.compile(publisher.getLoadProfile(), config, errors);
+		}
+
+		ExecutionMode executionMode = publisher.getExecutionMode() != null ? publisher.getExecutionMode()
+				: config.getExecutionMode() != null ? config.getExecutionMode() : ExecutionMode.SCHEDULER;
+		executionMode = ExecutionMode.valueOf(executionMode.name().toUpperCase());
+
+		BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+		Backpressure backpressure = publisher.getBackpressure();
+		if (backpressure != null) {
+			if (backpressure.getPolicy() != null) {
+				backpressurePolicy = BackpressurePolicy.valueOf(backpressure.getPolicy().name().toUpperCase());
+			}
+			if (backpressurePolicy != BackpressurePolicy.BLOCK && backpressure.getQueueSize() <= 0) {
+				errors.add("backpressure.queueSize must be positive [queueSize=" + backpressure.getQueueSize() + "]");
+			}
+		}
+		if (publisher.isPipelined()) {
+			Pipeline pipeline = publisher.getPipeline();
+			if (pipeline.getRingSize() <= 0 || pipeline.getRingSize() > (1 << 30)) {
+				errors.add("pipeline.ringSize out of range [ringSize=" + pipeline.getRingSize() + "]");
+			}
+			if (pipeline.getSenderCount() <= 0) {
+				errors.add("pipeline.senderCount must be positive [senderCount=" + pipeline.getSenderCount() + "]");
+			}
+			// The ring slots are owned by the stages until sent
+			if (backpressurePolicy == BackpressurePolicy.DROP_OLDEST
+					|| backpressurePolicy == BackpressurePolicy.COALESCE) {
+				errors.add("backpressure.policy not supported by pipeline [policy=" + backpressurePolicy + "]");
+			}
+		}
+
+		String timeFormat = config.getTimeFormat();
+		if (timeFormat == null) {
+			timeFormat = DEFAULT_TIME_FORMAT;
+		}
+		long startTime = Long.MIN_VALUE;
+		String startTimeStr = publisher.getStartTime();
+		if (startTimeStr != null) {
+			try {
+				startTime = new SimpleDateFormat(timeFormat).parse(startTimeStr).getTime();
+			} catch (ParseException | IllegalArgumentException e) {
+				errors.add(String.format("invalid startTime [startTime=%s, timeFormat=%s]", startTimeStr, timeFormat));
+			}
+		}
+		if (publisher.isBackfill() && startTimeStr == null) {
+			errors.add("backfill requires startTime");
+		}
+
+		String[] fieldNames = new String[equations.length];
+		HashSet<String> fieldNameSet = new HashSet<String>(equations.length);
+		for (int i = 0; i < equations.length; i++) {
+			fieldNames[i] = equations[i].getName();
+			if (fieldNames[i] == null || fieldNames[i].length() == 0) {
+				errors.add("equation name undefined [index=" + i + "]");
+			} else if (fieldNameSet.add(fieldNames[i]) == false || TIME_FIELD.equals(fieldNames[i])) {
+				errors.add("duplicate field name [field=" + fieldNames[i] + "]");
+			}
+		}
+
+		int resetIndex = -1;
+		Reset reset = publisher.getReset();
+		if (reset != null && reset.getEquationName() != null && reset.getResetBaseTime() >= 0) {
+			String resetEquationName = reset.getEquationName();
+			for (int i = 0; i < fieldNames.length; i++) {
+				if (resetEquationName.equals(fieldNames[i])) {
+					resetIndex = i;
+					break;
+				}
+			}
+			if (resetIndex < 0) {
+				errors.add("reset equation not in the publisher's equations [equationName=" + resetEquationName + "]");
+			} else if (equations[resetIndex].isStochastic()) {
+				// The process state has no bounds to reset on
+				errors.add("reset equation must not be a stochastic process [equationName=" + resetEquationName
+						+ ", type=" + equations[resetIndex].getType() + "]");
+			}
+		}
+
+		String idField = publisher.isFleet() ? getIdField(publisher.getFleet()) : null;
+		if (idField != null && (fieldNameSet.contains(idField) || TIME_FIELD.equals(idField))) {
+			errors.add("fleet.idField conflicts with a field name [idField=" + idField + "]");
+		}
+
+		PayloadFormat payloadFormat = publisher.getPayloadFormat() == null ? PayloadFormat.JSON
+				: PayloadFormat.valueOf(publisher.getPayloadFormat().name().toUpperCase());
+		if (payloadFormat == PayloadFormat.COMPACT) {
+			if (product != null && product != Product.HAZELCAST) {
+				errors.add("payloadFormat requires hazelcast [payloadFormat=" + payloadFormat + ", product=" + product
+						+ "]");
+			}
+			// The queued, pipelined and backfilled ticks have the formatted time only,
+			// which is parsed back into the record's timestamp
+			if ((publisher.isPipelined() || backpressurePolicy != BackpressurePolicy.BLOCK || publisher.isBackfill())
+					&& isTimeFormatLossless(timeFormat) == false) {
+				errors.add("payloadFormat requires timeFormat with date and time in msec if queued, pipelined or backfilled [payloadFormat="
+						+ payloadFormat + ", timeFormat=" + timeFormat + "]");
+			}
+		} else if (payloadFormat != PayloadFormat.JSON) {
+			if (product != null && product != Product.MQTT) {
+				errors.add("payloadFormat requires mqtt [payloadFormat=" + payloadFormat + ", product=" + product + "]");
+			}
+			// Avro names must be valid identifiers since they are in the schema
+			if (payloadFormat == PayloadFormat.AVRO) {
+				ArrayList<String> names = new ArrayList<String>();
+				for (String fieldName : fieldNames) {
+					if (fieldName != null) {
+						names.add(fieldName);
+					}
+				}
+				if (idField != null) {
+					names.add(idField);
+				}
+				for (String fieldName : names) {
+					if (fieldName.matches("[A-Za-z_][A-Za-z0-9_]*") == false) {
+						errors.add("invalid Avro field name [field=" + fieldName + "]");
+					}
+				}
+			}
+		}
+
+		if (errors.size() > 0) {
+			System.err.printf("ERROR: Invalid publisher [publisher=%s, errors=%s]. Publisher discarded.%n",
+					publisherName, errors);
+			return null;
+		}
+		return new PublisherPlan(publisher, product, dsType, dsName, keyType, ds, rateProfile, executionMode,
+				payloadFormat, backpressurePolicy, timeFormat, startTime, equations, groups, fieldNames, resetIndex,
+				shardIndex, shardCount);
+	}
+
+	/**
+	 * Returns true if the specified time format parses back to the same
+	 * timestamp in msec.
+	 * 
+	 * @param timeFormat Time format
+	 */
+	private static boolean isTimeFormatLossless(String timeFormat) {
+		try {
+			TimestampCodec timestampCodec = new TimestampCodec(timeFormat);
+			long timestamp = 1_700_000_000_123L;
+			return timestampCodec.parse(timestampCodec.format(timestamp)) == timestamp;
+		} catch (ParseException | IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the specified fleet's id field. Null if undefined or empty, i.e.,
+	 * the ID is not included in the payload.
+	 */
+	private static String getIdField(Fleet fleet) {
+		String idField = fleet.getIdField();
+		return idField == null || idField.length() == 0 ? null : idField;
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of the quoted JSON field name followed by ':'.
+	 */
+	private static byte[] toFieldNameBytes(String fieldName) {
+		return (JSONObject.quote(fieldName) + ":").getBytes(StandardCharsets.UTF_8);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the upper case product, i.e., MQTT, GEMFIRE, GEODE or HAZELCAST.
+	 */
+	public Product getProduct() {
+		return product;
+	}
+
+	public boolean isMqtt() {
+		return product == Product.MQTT;
+	}
+
+	public boolean isGeode() {
+		return product == Product.GEODE || product == Product.GEMFIRE;
+	}
+
+	public boolean isHazelcast() {
+		return product == Product.HAZELCAST;
+	}
+
+	/**
+	 * Returns the upper case data structure type.
+	 */
+	public DsType getDsType() {
+		return dsType;
+	}
+
+	public String getDsName() {
+		return dsName;
+	}
+
+	/**
+	 * Returns the upper case key type.
+	 */
+	public KeyType getKeyType() {
+		return keyType;
+	}
+
+	public String getKeyValue() {
+		return keyValue;
+	}
+
+	public long getKeySequenceStart() {
+		return keySequenceStart;
+	}
+
+	public long getInitialDelay() {
+		return initialDelay;
+	}
+
+	public long getEquationDelay() {
+		return equationDelay;
+	}
+
+	/**
+	 * Returns the target rate in messages per second, scaled to this shard's
+	 * slice of the fleet. 0 if the publisher is scheduled every
+	 * {@linkplain #getEquationDelay()} msec.
+	 */
+	public double getTargetRate() {
+		return targetRate;
+	}
+
+	/**
+	 * Returns the upper case backpressure policy.
+	 */
+	public BackpressurePolicy getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	/**
+	 * Returns true if the messages are queued to a sink thread, i.e., the
+	 * backpressure policy is not BLOCK and the publisher is not pipelined. The
+	 * pipeline applies the policy to its ring buffer instead.
+	 */
+	public boolean isQueued() {
+		return backpressurePolicy != BackpressurePolicy.BLOCK && isPipelined == false;
+	}
+
+	/**
+	 * Returns true if the messages are sent through the staged ring buffer
+	 * pipeline.
+	 */
+	public boolean isPipelined() {
+		return isPipelined;
+	}
+
+	/**
+	 * Returns the pipeline ring size. 0 if not pipelined.
+	 */
+	public int getRingSize() {
+		return ringSize;
+	}
+
+	/**
+	 * Returns the number of pipeline sender threads. 0 if not pipelined.
+	 */
+	public int getSenderCount() {
+		return senderCount;
+	}
+
+	/**
+	 * Returns the pipeline stage batch size. 0 if not pipelined.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Returns true if the ticks from startTime up to the current time are
+	 * generated without pacing before the publisher goes live.
+	 */
+	public boolean isBackfill() {
+		return isBackfill;
+	}
+
+	/**
+	 * Returns the max number of messages per backfill batch write. 0 if no
+	 * backfill.
+	 */
+	public int getBackfillBatchSize() {
+		return backfillBatchSize;
+	}
+
+	/**
+	 * Returns true if the publisher continues live after the backfill. Always
+	 * true if no backfill.
+	 */
+	public boolean isBackfillLive() {
+		return isBackfillLive;
+	}
+
+	/**
+	 * Returns the sink queue size. 0 if BLOCK.
+	 */
+	public int getQueueSize() {
+		return isQueued() ? queueSize : 0;
+	}
+
+	/**
+	 * Returns the interval in msec at which the backpressure counts are
+	 * reported. 0 or less for reporting only when the publisher stops.
+	 */
+	public long getBackpressureReportInterval() {
+		return backpressureReportInterval;
+	}
+
+	/**
+	 * Returns the load profile, or null if the rate is not shaped.
+	 */
+	public RateProfile getRateProfile() {
+		return rateProfile;
+	}
+
+	/**
+	 * Returns true if the publisher is paced to targetRate or to its load
+	 * profile instead of being scheduled every equationDelay msec.
+	 */
+	public boolean isPaced() {
+		return targetRate > 0 || rateProfile != null;
+	}
+
+	/**
+	 * Returns the upper case execution mode.
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+
+	/**
+	 * Returns the upper case payload format, i.e., JSON, CBOR, MSGPACK, AVRO or
+	 * COMPACT.
+	 */
+	public PayloadFormat getPayloadFormat() {
+		return payloadFormat;
+	}
+
+	public long getTimeInterval() {
+		return timeInterval;
+	}
+
+	public String getTimeFormat() {
+		return timeFormat;
+	}
+
+	/**
+	 * Returns the start time in msec. If {@link Long#MIN_VALUE}, then the current
+	 * time when the publisher starts.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getMaxCount() {
+		return maxCount;
+	}
+
+	/**
+	 * Returns the publisher's runtime equation copies in the field order. The
+	 * returned array must not be modified.
+	 */
+	public Equation[] getEquations() {
+		return equations;
+	}
+
+	/**
+	 * Returns the group of each equation, null if ungrouped. The returned array
+	 * must not be modified.
+	 */
+	public EquationGroup[] getGroups() {
+		return groups;
+	}
+
+	/**
+	 * Returns the resolved field names, one per equation. The returned array must
+	 * not be modified.
+	 */
+	public String[] getFieldNames() {
+		return fieldNames;
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of each quoted field name followed by ':'. The
+	 * returned arrays must not be modified.
+	 */
+	public byte[][] getFieldNameBytes() {
+		return fieldNameBytes;
+	}
+
+	/**
+	 * Returns the index of the reset equation. -1 if undefined.
+	 */
+	public int getResetIndex() {
+		return resetIndex;
+	}
+
+	public long getResetBaseTime() {
+		return resetBaseTime;
+	}
+
+	public long getIterations() {
+		return iterations;
+	}
+
+	public boolean isFleet() {
+		return entityCount > 0;
+	}
+
+	/**
+	 * Returns the number of entities in this shard's slice.
+	 */
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	/**
+	 * Returns the global index of the first entity in this shard's slice.
+	 */
+	public int getEntityStart() {
+		return entityStart;
+	}
+
+	/**
+	 * Returns the share of the configured rate that this shard publishes, i.e.,
+	 * the slice's share of the entities. 1 if not a fleet.
+	 */
+	public double getRateScale() {
+		return rateScale;
+	}
+
+	public String getIdPrefix() {
+		return idPrefix;
+	}
+
+	/**
+	 * Returns the entity ID field name. Null if the ID is not included in the
+	 * payload.
+	 */
+	public String getIdField() {
+		return idField;
+	}
+
+	public long getFleetSeed() {
+		return fleetSeed;
+	}
+
+	public boolean isRandomPhase() {
+		return randomPhase;
+	}
+
+	public double getValueOffset() {
+		return valueOffset;
+	}
+
+	@Override
+	public String toString() {
+		return "PublisherPlan [name=" + name + ", product=" + product + ", dsType=" + dsType + ", dsName=" + dsName
+				+ ", keyType=" + keyType + ", equationDelay=" + equationDelay  + ", targetRate=" + targetRate
+				+ ", executionMode=" + executionMode + ", payloadFormat=" + payloadFormat + ", timeInterval=" + timeInterval
+				+ ", fields=" + fieldNames.length + ", entityCount=" + entityCount + "]";
+	}
+}
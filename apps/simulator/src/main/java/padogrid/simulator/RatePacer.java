@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@linkplain RatePacer} is a token bucket that paces a single thread to a
+ * target rate with nanosecond precision. Permits accrue continuously at the
+ * target rate and up to the burst size is kept when the caller falls behind.
+ * {@linkplain #acquire(int)} waits for the next permit by parking until shortly
+ * before it is due and spinning for the remainder, and then hands out all
+ * permits that are due in a single call so that the caller can emit multiple
+ * messages per wakeup at high rates.
+ * <p>
+ * {@linkplain RatePacer} is not thread-safe.
+ *
+ * @author dpark
+ *
+ */
+public class RatePacer {
+	// Park until this close to the deadline and spin for the rest. Parking
+	// typically overshoots by tens of microseconds.
+	private final static long SPIN_NANOS = 50_000;
+
+	private final boolean isSpin;
+	private double nanosPerPermit;
+	private double maxCredit;
+	private final long origin;
+	// Time at which the next permit is due, relative to origin
+	private double next;
+	private long droppedPermits;
+
+	/**
+	 * Creates a pacer.
+	 *
+	 * @param rate  Target rate in permits per second
+	 * @param burst Max number of permits that accrue while the caller is behind.
+	 *              If less than 1, then 1.
+	 * @throws IllegalArgumentException Thrown if rate is not positive
+	 */
+	public RatePacer(double rate, int burst) {
+		this(rate, burst, true);
+	}
+
+	/**
+	 * Creates a pacer.
+	 *
+	 * @param rate   Target rate in permits per second
+	 * @param burst  Max number of permits that accrue while the caller is behind.
+	 *               If less than 1, then 1.
+	 * @param isSpin true to spin for the last 50 usec before each permit for
+	 *               precision. A virtual thread should not spin since spinning
+	 *               holds its carrier thread.
+	 * @throws IllegalArgumentException Thrown if rate is not positive
+	 */
+	public RatePacer(double rate, int burst, boolean isSpin) {
+		if ((rate > 0) == false || Double.isInfinite(rate)) {
+			throw new IllegalArgumentException("rate must be positive [rate=" + rate + "]");
+		}
+		this.isSpin = isSpin;
+		this.nanosPerPermit = 1_000_000_000d / rate;
+		this.maxCredit = Math.max(1, burst) * nanosPerPermit;
+		this.origin = System.nanoTime();
+		this.next = 0;
+	}
+
+	/**
+	 * Waits until at least one permit is due and returns the number of permits
+	 * due now.
+	 *
+	 * @param maxPermits Max number of permits to return
+	 * @return Number of permits in [1, maxPermits], or 0 if the thread is
+	 *         interrupted while waiting
+	 */
+	public int acquire(int maxPermits) {
+		double now = System.nanoTime() - origin;
+		// Discard the credit beyond the burst size
+		if (next < now - maxCredit) {
+			droppedPermits += (long) ((now - maxCredit - next) / nanosPerPermit);
+			next = now - maxCredit;
+		}
+		if (next > now) {
+			if (waitUntil(next) == false) {
+				return 0;
+			}
+			now = System.nanoTime() - origin;
+		}
+		long due = 1 + (long) ((now - next) / nanosPerPermit);
+		int permits = (int) Math.min(Math.max(1, maxPermits), due);
+		next += permits * nanosPerPermit;
+		return permits;
+	}
+
+	/**
+	 * Waits until at least one permit is due or until the specified timeout
+	 * elapses, whichever comes first, and returns the number of permits due now.
+	 *
+	 * @param maxPermits Max number of permits to return
+	 * @param timeout    Max wait time in nanoseconds
+	 * @return Number of permits in [1, maxPermits], or 0 if the timeout elapses
+	 *         first or the thread is interrupted while waiting
+	 */
+	public int acquire(int maxPermits, long timeout) {
+		double now = System.nanoTime() - origin;
+		if (next > now + Math.max(0, timeout)) {
+			waitUntil(now + Math.max(0, timeout));
+			return 0;
+		}
+		return acquire(maxPermits);
+	}
+
+	/**
+	 * Changes the target rate. The wait for the pending permit is rescaled to
+	 * the new rate so that a rate increase takes effect immediately.
+	 *
+	 * @param rate  Target rate in permits per second
+	 * @param burst Max number of permits that accrue while the caller is behind.
+	 *              If less than 1, then 1.
+	 * @throws IllegalArgumentException Thrown if rate is not positive
+	 */
+	public void setRate(double rate, int burst) {
+		if ((rate > 0) == false || Double.isInfinite(rate)) {
+			throw new IllegalArgumentException("rate must be positive [rate=" + rate + "]");
+		}
+		double nanosPerPermit = 1_000_000_000d / rate;
+		double now = System.nanoTime() - origin;
+		if (next > now) {
+			next = now + (next - now) * nanosPerPermit / this.nanosPerPermit;
+		}
+		this.nanosPerPermit = nanosPerPermit;
+		this.maxCredit = Math.max(1, burst) * nanosPerPermit;
+	}
+
+	/**
+	 * Parks and then spins until the specified time relative to origin.
+	 *
+	 * @return false if interrupted
+	 */
+	private boolean waitUntil(double deadline) {
+		long deadlineNanos = origin + (long) Math.ceil(deadline);
+		long spinNanos = isSpin ? SPIN_NANOS : 0;
+		long remaining;
+		while ((remaining = deadlineNanos - System.nanoTime()) > spinNanos) {
+			LockSupport.parkNanos(remaining - spinNanos);
+			if (Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		while (deadlineNanos - System.nanoTime() > 0) {
+			Thread.onSpinWait();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns and resets the number of permits discarded because the caller fell
+	 * behind by more than the burst size, i.e., the permits that were never
+	 * handed out.
+	 */
+	public long takeDroppedPermits() {
+		long droppedPermits = this.droppedPermits;
+		this.droppedPermits = 0;
+		return droppedPermits;
+	}
+
+	/**
+	 * Returns the target rate in permits per second.
+	 */
+	public double getRate() {
+		return 1_000_000_000d / nanosPerPermit;
+	}
+
+	@Override
+	public String toString() {
+		return "RatePacer [rate=" + getRate() + ", burst=" + (long) (maxCredit / nanosPerPermit) + "]";
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.List;
+
+import padogrid.simulator.config.SimulatorConfig;
+import padogrid.simulator.config.SimulatorConfig.LoadProfile;
+import padogrid.simulator.config.SimulatorConfig.LoadProfileType;
+
+/**
+ * {@linkplain RateProfile} is the immutable runtime form of a
+ * {@linkplain LoadProfile}. It returns the target rate in messages per second
+ * at a given elapsed time since the publisher started, and the report windows
+ * in which the achieved rate is compared with the target rate. STEP reports
+ * per step. The other types report every reportInterval msec.
+ *
+ * @author dpark
+ *
+ */
+public final class RateProfile {
+	private final LoadProfileType type;
+	private final long updateInterval;
+	private final long reportInterval;
+
+	// RAMP
+	private final double startRate;
+	private final double endRate;
+	private final long duration;
+
+	// STEP
+	private final double[] stepRates;
+	private final long[] stepEnds;
+	private final boolean isRepeat;
+
+	// BURST, DIURNAL, EQUATION
+	private final long period;
+	private final double baseRate;
+	private final double burstRate;
+	private final long burstDuration;
+	private final double minRate;
+	private final double maxRate;
+	private final long peakOffset;
+
+	// EQUATION
+	private final Equation equation;
+
+	private RateProfile(LoadProfile profile, LoadProfileType type, Equation equation) {
+		this.type = type;
+		this.updateInterval = profile.getUpdateInterval();
+		this.reportInterval = profile.getReportInterval();
+		this.startRate = profile.getStartRate();
+		this.endRate = profile.getEndRate();
+		this.duration = profile.getDuration();
+		LoadProfile.Step[] steps = type == LoadProfileType.STEP ? profile.getSteps() : new LoadProfile.Step[0];
+		this.stepRates = new double[steps.length];
+		this.stepEnds = new long[steps.length];
+		long end = 0;
+		for (int i = 0; i < steps.length; i++) {
+			end += steps[i].getDuration();
+			stepRates[i] = steps[i].getRate();
+			stepEnds[i] = end;
+		}
+		this.isRepeat = profile.isRepeat();
+		this.period = profile.getPeriod();
+		this.baseRate = profile.getBaseRate();
+		this.burstRate = profile.getBurstRate();
+		this.burstDuration = profile.getBurstDuration();
+		this.minRate = profile.getMinRate();
+		this.maxRate = profile.getMaxRate();
+		this.peakOffset = profile.getPeakOffset();
+		this.equation = equation;
+	}
+
+	/**
+	 * Compiles the specified load profile.
+	 *
+	 * @param profile Load profile configuration
+	 * @param config  Simulator configuration that provides the equations
+	 * @param errors  List to which the validation errors are added
+	 * @return null if the profile is invalid
+	 */
+	public static RateProfile compile(LoadProfile profile, SimulatorConfig config, List<String> errors) {
+		int errorCount = errors.size();
+		if (profile.getType() == null) {
+			errors.add("loadProfile.type undefined");
+			return null;
+		}
+		LoadProfileType type = LoadProfileType.valueOf(profile.getType().name().toUpperCase());
+		Equation equation = null;
+		switch (type) {
+		case RAMP:
+			checkRate(errors, "startRate", profile.getStartRate());
+			checkRate(errors, "endRate", profile.getEndRate());
+			if (profile.getDuration() <= 0) {
+				errors.add("loadProfile.duration must be positive [duration=" + profile.getDuration() + "]");
+			}
+			break;
+		case STEP:
+			LoadProfile.Step[] steps = profile.getSteps();
+			if (steps == null || steps.length == 0) {
+				errors.add("loadProfile.steps undefined");
+				break;
+			}
+			for (int i = 0; i < steps.length; i++) {
+				if (steps[i] == null) {
+					errors.add("loadProfile.steps entry undefined [index=" + i + "]");
+					continue;
+				}
+				checkRate(errors, "steps[" + i + "].rate", steps[i].getRate());
+				if (steps[i].getDuration() <= 0) {
+					errors.add("loadProfile.steps[" + i + "].duration must be positive [duration="
+							+ steps[i].getDuration() + "]");
+				}
+			}
+			break;
+		case BURST:
+			checkRate(errors, "baseRate", profile.getBaseRate());
+			checkRate(errors, "burstRate", profile.getBurstRate());
+			checkPeriod(errors, profile.getPeriod());
+			if (profile.getBurstDuration() < 0 || profile.getBurstDuration() > profile.getPeriod()) {
+				errors.add("loadProfile.burstDuration out of range [burstDuration=" + profile.getBurstDuration()
+						+ ", period=" + profile.getPeriod() + "]");
+			}
+			break;
+		case DIURNAL:
+			checkRate(errors, "minRate", profile.getMinRate());
+			checkRate(errors, "maxRate", profile.getMaxRate());
+			checkPeriod(errors, profile.getPeriod());
+			break;
+		case EQUATION:
+		default:
+			checkPeriod(errors, profile.getPeriod());
+			String equationName = profile.getEquationName();
+			Equation[] equations = config.getEquations();
+			if (equationName != null && equations != null) {
+				for (Equation e : equations) {
+					if (equationName.equals(e.getName())) {
+						equation = e;
+						break;
+					}
+				}
+			}
+			if (equation == null) {
+				errors.add("loadProfile.equationName undefined [equationName=" + equationName + "]");
+			} else if (equation.isStochastic() || equation.getCallSite() == null) {
+				errors.add("loadProfile equation must have a calculation [equationName=" + equationName + "]");
+			}
+			break;
+		}
+		if (errors.size() > errorCount) {
+			return null;
+		}
+		return new RateProfile(profile, type, equation);
+	}
+
+	private static void checkRate(List<String> errors, String name, double rate) {
+		if ((rate >= 0) == false || Double.isInfinite(rate)) {
+			errors.add("invalid loadProfile." + name + " [" + name + "=" + rate + "]");
+		}
+	}
+
+	private static void checkPeriod(List<String> errors, long period) {
+		if (period <= 0) {
+			errors.add("loadProfile.period must be positive [period=" + period + "]");
+		}
+	}
+
+	/**
+	 * Returns the target rate in messages per second at the specified time.
+	 *
+	 * @param elapsed Elapsed time in msec since the publisher started
+	 * @return Non-negative rate. 0 means no messages.
+	 */
+	public double getRate(long elapsed) {
+		double rate;
+		switch (type) {
+		case RAMP:
+			if (elapsed >= duration) {
+				rate = endRate;
+			} else {
+				rate = startRate + (endRate - startRate) * elapsed / duration;
+			}
+			break;
+		case STEP:
+			rate = stepRates[getStepIndex(elapsed)];
+			break;
+		case BURST:
+			rate = elapsed % period < burstDuration ? burstRate : baseRate;
+			break;
+		case DIURNAL:
+			double phase = 2 * Math.PI * (elapsed - peakOffset) / period;
+			rate = minRate + (maxRate - minRate) * (1 + Math.cos(phase)) / 2;
+			break;
+		case EQUATION:
+		default:
+			// The equation's value without jitter
+			double baseValue = equation.getMinBase()
+					+ (equation.getMaxBase() - equation.getMinBase()) * (elapsed % period) / period;
+			rate = (equation.getCallSite().calculate(baseValue) + equation.getConstant()) * equation.getBaseAverage()
+					* equation.getMultiplier();
+			break;
+		}
+		return rate > 0 ? rate : 0;
+	}
+
+	/**
+	 * Returns the index of the STEP plateau at the specified time.
+	 */
+	private int getStepIndex(long elapsed) {
+		long total = stepEnds[stepEnds.length - 1];
+		if (elapsed >= total) {
+			if (isRepeat == false) {
+				return stepEnds.length - 1;
+			}
+			elapsed %= total;
+		}
+		for (int i = 0; i < stepEnds.length; i++) {
+			if (elapsed < stepEnds[i]) {
+				return i;
+			}
+		}
+		return stepEnds.length - 1;
+	}
+
+	/**
+	 * Returns the end of the report window that contains the specified time.
+	 *
+	 * @param elapsed Elapsed time in msec since the publisher started
+	 * @return Long.MAX_VALUE if the rates are not reported
+	 */
+	public long getReportEnd(long elapsed) {
+		if (reportInterval <= 0) {
+			return Long.MAX_VALUE;
+		}
+		if (type == LoadProfileType.STEP) {
+			long total = stepEnds[stepEnds.length - 1];
+			if (elapsed < total || isRepeat) {
+				long cycleStart = elapsed - elapsed % total;
+				return cycleStart + stepEnds[getStepIndex(elapsed)];
+			}
+		}
+		return (elapsed / reportInterval + 1) * reportInterval;
+	}
+
+	public LoadProfileType getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the interval in msec at which the rate is re-evaluated.
+	 */
+	public long getUpdateInterval() {
+		return updateInterval;
+	}
+
+	@Override
+	public String toString() {
+		return "RateProfile [type=" + type + ", updateInterval=" + updateInterval + ", reportInterval="
+				+ reportInterval + "]";
+	}
+}
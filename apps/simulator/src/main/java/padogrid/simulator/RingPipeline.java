@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * {@linkplain RingPipeline} is a single-producer, Disruptor-style pipeline
+ * over a preallocated ring of events. The producer claims a slot, fills in the
+ * event and publishes its sequence. A serializer stage thread consumes the
+ * published events in order, and then the sender stage threads consume the
+ * serialized events. Each sender handles only the events of its partition so
+ * that the events with the same partition, e.g., the same key, are sent in
+ * order. The stages wait on each other's sequences only, without locks, and
+ * process all available events per wakeup up to the batch size before
+ * advancing their sequences.
+ * <p>
+ * A slot is reused only after all senders have passed it. If the ring is full,
+ * then {@linkplain #claim(boolean)} either waits or returns -1 without
+ * claiming.
+ * <p>
+ * The producer methods are not thread-safe. They must be invoked by one
+ * thread at a time.
+ *
+ * @author dpark
+ *
+ * @param <E> Event type
+ */
+public final class RingPipeline<E> {
+	/**
+	 * {@linkplain Handler} processes events in a stage thread.
+	 */
+	public interface Handler<E> {
+		/**
+		 * Processes the specified event.
+		 *
+		 * @param event      Event
+		 * @param endOfBatch true if the event is the last of the current batch.
+		 *                   For a sender, it is the last event of its
+		 *                   partitions in the batch.
+		 */
+		void onEvent(E event, boolean endOfBatch) throws Exception;
+	}
+
+	private final static int SPIN_TRIES = 100;
+	private final static int YIELD_TRIES = 200;
+	private final static long PARK_NANOS = 100_000;
+
+	private final String name;
+	private final Object[] slots;
+	private final int[] partitions;
+	private final int mask;
+	private final int batchSize;
+	private final Handler<E> serializer;
+	private final Handler<E> sender;
+
+	private final AtomicLong cursor = new AtomicLong(-1);
+	private final AtomicLong serializedSequence = new AtomicLong(-1);
+	private final AtomicLong[] senderSequences;
+	private final Thread[] threads;
+	private volatile boolean isHalted;
+	private volatile boolean isSerializerDone;
+
+	// Producer state
+	private long nextSequence;
+	private long cachedGate = -1;
+	private volatile long droppedCount;
+
+	/**
+	 * Creates a pipeline. {@linkplain #start()} must be invoked to start the
+	 * stage threads.
+	 *
+	 * @param name        Name used as the stage thread name prefix
+	 * @param ringSize    Number of slots. Rounded up to a power of 2.
+	 * @param factory     Creates the preallocated events
+	 * @param batchSize   Max number of events a stage processes per batch
+	 * @param serializer  Serializer stage handler
+	 * @param sender      Sender stage handler. It is shared by all senders and
+	 *                    must be thread-safe.
+	 * @param senderCount Number of sender threads
+	 */
+	public RingPipeline(String name, int ringSize, Supplier<E> factory, int batchSize, Handler<E> serializer,
+			Handler<E> sender, int senderCount) {
+		if (ringSize <= 0 || ringSize > (1 << 30)) {
+			throw new IllegalArgumentException("ringSize out of range [ringSize=" + ringSize + "]");
+		}
+		int size = 1;
+		while (size < ringSize) {
+			size <<= 1;
+		}
+		this.name = name;
+		this.slots = new Object[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = factory.get();
+		}
+		this.partitions = new int[size];
+		this.mask = size - 1;
+		this.batchSize = Math.max(1, batchSize);
+		this.serializer = serializer;
+		this.sender = sender;
+		int count = Math.max(1, senderCount);
+		this.senderSequences = new AtomicLong[count];
+		this.threads = new Thread[count + 1];
+		threads[0] = new Thread(this::runSerializer, name + "-serializer");
+		for (int i = 0; i < count; i++) {
+			senderSequences[i] = new AtomicLong(-1);
+			final int senderIndex = i;
+			threads[i + 1] = new Thread(() -> runSender(senderIndex), name + "-sender-" + i);
+		}
+	}
+
+	/**
+	 * Starts the stage threads.
+	 */
+	public void start() {
+		for (Thread thread : threads) {
+			thread.start();
+		}
+	}
+
+	/**
+	 * Claims the next slot.
+	 *
+	 * @param isBlocking true to wait while the ring is full, false to return -1
+	 *                   and count the event as dropped
+	 * @return Sequence of the claimed slot, or -1 if the ring is full and
+	 *         isBlocking is false, or the pipeline is halted
+	 */
+	public long claim(boolean isBlocking) {
+		if (isHalted) {
+			return -1;
+		}
+		long sequence = nextSequence;
+		long wrapPoint = sequence - slots.length;
+		if (wrapPoint > cachedGate) {
+			cachedGate = getMinSenderSequence();
+			int tries = 0;
+			while (wrapPoint > cachedGate) {
+				if (isBlocking == false) {
+					droppedCount++;
+					return -1;
+				}
+				if (isHalted) {
+					return -1;
+				}
+				tries = idle(tries);
+				cachedGate = getMinSenderSequence();
+			}
+		}
+		nextSequence++;
+		return sequence;
+	}
+
+	/**
+	 * Returns the event of the specified claimed sequence.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(long sequence) {
+		return (E) slots[(int) (sequence & mask)];
+	}
+
+	/**
+	 * Publishes the specified claimed sequence to the stages.
+	 *
+	 * @param sequence  Claimed sequence
+	 * @param partition Event partition. The event is sent by the sender
+	 *                  partition mod senderCount.
+	 */
+	public void publish(long sequence, int partition) {
+		partitions[(int) (sequence & mask)] = partition;
+		// Release the slot writes to the stages
+		cursor.lazySet(sequence);
+	}
+
+	/**
+	 * Halts the pipeline. The stages process the published events and then exit.
+	 * The producer must not publish after this call.
+	 */
+	public void shutdown() {
+		isHalted = true;
+	}
+
+	/**
+	 * Blocks until the stage threads exit after {@linkplain #shutdown()}.
+	 *
+	 * @return true if terminated, false if timed out
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Thread thread : threads) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining > 0) {
+				TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+			}
+			if (thread.isAlive()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of events dropped by non-blocking claims.
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Returns the number of published events that have not been sent by all
+	 * senders.
+	 */
+	public long getPendingCount() {
+		return cursor.get() - getMinSenderSequence();
+	}
+
+	private long getMinSenderSequence() {
+		long min = Long.MAX_VALUE;
+		for (AtomicLong senderSequence : senderSequences) {
+			min = Math.min(min, senderSequence.get());
+		}
+		return min;
+	}
+
+	private void runSerializer() {
+		long next = 0;
+		int tries = 0;
+		while (true) {
+			long available = cursor.get();
+			if (available < next) {
+				if (isHalted && cursor.get() < next) {
+					break;
+				}
+				tries = idle(tries);
+				continue;
+			}
+			tries = 0;
+			long end = Math.min(available, next + batchSize - 1);
+			for (long sequence = next; sequence <= end; sequence++) {
+				handle(serializer, get(sequence), sequence == end);
+			}
+			serializedSequence.lazySet(end);
+			next = end + 1;
+		}
+		isSerializerDone = true;
+	}
+
+	private void runSender(int senderIndex) {
+		AtomicLong senderSequence = senderSequences[senderIndex];
+		int senderCount = senderSequences.length;
+		long next = 0;
+		int tries = 0;
+		while (true) {
+			long available = serializedSequence.get();
+			if (available < next) {
+				if (isSerializerDone && serializedSequence.get() < next) {
+					break;
+				}
+				tries = idle(tries);
+				continue;
+			}
+			tries = 0;
+			long end = Math.min(available, next + batchSize - 1);
+			// The last event of this sender's partition ends its batch
+			long last = end;
+			while (last >= next && isSenderPartition(last, senderIndex, senderCount) == false) {
+				last--;
+			}
+			for (long sequence = next; sequence <= last; sequence++) {
+				if (isSenderPartition(sequence, senderIndex, senderCount)) {
+					handle(sender, get(sequence), sequence == last);
+				}
+			}
+			senderSequence.lazySet(end);
+			next = end + 1;
+		}
+	}
+
+	private boolean isSenderPartition(long sequence, int senderIndex, int senderCount) {
+		return Math.floorMod(partitions[(int) (sequence & mask)], senderCount) == senderIndex;
+	}
+
+	private void handle(Handler<E> handler, E event, boolean endOfBatch) {
+		try {
+			handler.onEvent(event, endOfBatch);
+		} catch (Throwable e) {
+			System.err.printf("ERROR: Pipeline event failed [pipeline=%s, error=%s]. Event discarded.%n", name, e);
+		}
+	}
+
+	/**
+	 * Spins, then yields, then parks while there is no work.
+	 *
+	 * @return Incremented number of tries
+	 */
+	private static int idle(int tries) {
+		if (tries < SPIN_TRIES) {
+			Thread.onSpinWait();
+		} else if (tries < YIELD_TRIES) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+		return tries + 1;
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+/**
+ * {@linkplain SimulatedClock} is the simulated time shared by all publishers.
+ * It starts at the start time when created and advances at speed times the
+ * wall clock, e.g., a speed of 1440 runs one simulated day per wall minute.
+ * The simulated time is derived from {@link System#nanoTime()} so that it is
+ * monotonic and unaffected by wall clock adjustments.
+ * <p>
+ * The speed is independent of the publishers' emission rates. A publisher
+ * stamps each tick with the clock's current time regardless of how often it
+ * ticks.
+ *
+ * @author dpark
+ *
+ */
+public final class SimulatedClock {
+	private final long startTime;
+	private final double speed;
+	private final long originNanos;
+
+	/**
+	 * Creates a clock that starts now.
+	 *
+	 * @param startTime Simulated time in msec at which the clock starts
+	 * @param speed     Simulated msec per wall msec. Must be positive.
+	 */
+	public SimulatedClock(long startTime, double speed) {
+		if ((speed > 0) == false || Double.isInfinite(speed)) {
+			throw new IllegalArgumentException("speed must be positive [speed=" + speed + "]");
+		}
+		this.startTime = startTime;
+		this.speed = speed;
+		this.originNanos = System.nanoTime();
+	}
+
+	/**
+	 * Returns the current simulated time in msec.
+	 */
+	public long currentTimeMillis() {
+		long elapsedNanos = System.nanoTime() - originNanos;
+		return startTime + (long) (elapsedNanos * speed / 1_000_000d);
+	}
+
+	/**
+	 * Returns the simulated time in msec at which the clock started.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns the simulated msec per wall msec.
+	 */
+	public double getSpeed() {
+		return speed;
+	}
+
+	@Override
+	public String toString() {
+		return "SimulatedClock [startTime=" + startTime + ", speed=" + speed + "]";
+	}
+}
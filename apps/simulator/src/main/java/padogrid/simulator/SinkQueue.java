@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import padogrid.simulator.config.SimulatorConfig.BackpressurePolicy;
+
+/**
+ * {@linkplain SinkQueue} is the bounded queue between a publisher's ticks and
+ * its sink thread. {@linkplain #offer(String, Object)} never blocks. If the
+ * queue is full, then it applies the backpressure policy and counts the
+ * dropped messages. With COALESCE, the queue holds the latest value per key in
+ * the order in which the keys were first queued.
+ *
+ * @author dpark
+ *
+ * @param <T> Value type
+ */
+public class SinkQueue<T> {
+	private final BackpressurePolicy policy;
+	private final int capacity;
+	private final ArrayDeque<String> keyDeque;
+	private final ArrayDeque<T> valueDeque;
+	private final LinkedHashMap<String, T> coalesceMap;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private long droppedCount;
+	private long coalescedCount;
+
+	/**
+	 * Creates a queue.
+	 *
+	 * @param policy   DROP_NEWEST, DROP_OLDEST or COALESCE
+	 * @param capacity Max number of messages, or max number of keys for
+	 *                 COALESCE
+	 * @throws IllegalArgumentException Thrown if the policy is BLOCK or the
+	 *                                  capacity is not positive
+	 */
+	public SinkQueue(BackpressurePolicy policy, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive [capacity=" + capacity + "]");
+		}
+		this.policy = BackpressurePolicy.valueOf(policy.name().toUpperCase());
+		if (this.policy == BackpressurePolicy.BLOCK) {
+			throw new IllegalArgumentException("BLOCK does not queue");
+		}
+		this.capacity = capacity;
+		if (this.policy == BackpressurePolicy.COALESCE) {
+			this.keyDeque = null;
+			this.valueDeque = null;
+			this.coalesceMap = new LinkedHashMap<String, T>();
+		} else {
+			this.keyDeque = new ArrayDeque<String>(Math.min(capacity, 1024));
+			this.valueDeque = new ArrayDeque<T>(Math.min(capacity, 1024));
+			this.coalesceMap = null;
+		}
+	}
+
+	/**
+	 * Queues the specified message without blocking.
+	 *
+	 * @param key   Message key. May be null. COALESCE keeps the latest value per
+	 *              key.
+	 * @param value Message value
+	 * @return false if the specified message was dropped
+	 */
+	public boolean offer(String key, T value) {
+		lock.lock();
+		try {
+			if (coalesceMap != null) {
+				if (coalesceMap.containsKey(key)) {
+					// Keeps the key's position
+					coalesceMap.put(key, value);
+					coalescedCount++;
+					return true;
+				}
+				if (coalesceMap.size() >= capacity) {
+					Iterator<Map.Entry<String, T>> iterator = coalesceMap.entrySet().iterator();
+					iterator.next();
+					iterator.remove();
+					droppedCount++;
+				}
+				coalesceMap.put(key, value);
+			} else {
+				if (valueDeque.size() >= capacity) {
+					if (policy == BackpressurePolicy.DROP_NEWEST) {
+						droppedCount++;
+						return false;
+					}
+					keyDeque.poll();
+					valueDeque.poll();
+					droppedCount++;
+				}
+				keyDeque.add(key == null ? "" : key);
+				valueDeque.add(value);
+			}
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits up to the specified timeout for messages and moves up to maxCount
+	 * of them to the specified lists in the queue order.
+	 *
+	 * @param keys     List to which the keys are added. An empty key is null.
+	 * @param values   List to which the values are added
+	 * @param maxCount Max number of messages to move
+	 * @param timeout  Max wait time
+	 * @param unit     Timeout unit
+	 * @return Number of messages moved. 0 if timed out.
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 */
+	public int drainTo(List<String> keys, List<T> values, int maxCount, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (size() == 0) {
+				if (nanos <= 0) {
+					return 0;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			int count = 0;
+			if (coalesceMap != null) {
+				Iterator<Map.Entry<String, T>> iterator = coalesceMap.entrySet().iterator();
+				while (count < maxCount && iterator.hasNext()) {
+					Map.Entry<String, T> entry = iterator.next();
+					keys.add(entry.getKey());
+					values.add(entry.getValue());
+					iterator.remove();
+					count++;
+				}
+			} else {
+				while (count < maxCount && valueDeque.isEmpty() == false) {
+					String key = keyDeque.poll();
+					keys.add(key.length() == 0 ? null : key);
+					values.add(valueDeque.poll());
+					count++;
+				}
+			}
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of queued messages.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return coalesceMap != null ? coalesceMap.size() : valueDeque.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of messages dropped because the queue was full.
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+		try {
+			return droppedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of messages replaced by a later message of the same key.
+	 * Always 0 unless COALESCE.
+	 */
+	public long getCoalescedCount() {
+		lock.lock();
+		try {
+			return coalescedCount;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public BackpressurePolicy getPolicy() {
+		return policy;
+	}
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * {@linkplain TimestampCodec} formats and parses timestamps in a
+ * {@linkplain SimpleDateFormat} pattern, e.g., "yyyy-MM-dd'T'HH:mm:ss.SSSZ",
+ * with the same results as {@linkplain SimpleDateFormat}. The pattern is split
+ * into the second (s) and millisecond (S) fields and the text parts in between.
+ * All other fields are constant within a minute of local time, so the text
+ * parts are rendered once per minute and cached. Within the cached minute, only
+ * the second and millisecond digits are rendered.
+ * <p>
+ * The parser matches the text parts against the minute cached by the last
+ * parse and reads the second and millisecond digits. A text that does not
+ * match, or does not format back to itself, e.g., in another time zone or
+ * minute, is parsed by {@linkplain SimpleDateFormat}, which then moves the
+ * cache to its minute if the result formats back to the text. Minutes with a
+ * time zone offset change are not cached.
+ * <p>
+ * A codec is not thread-safe. Like {@linkplain SimpleDateFormat}, it must be
+ * used by one thread at a time.
+ *
+ * @author dpark
+ *
+ */
+public final class TimestampCodec {
+	private final static int TEXT = 0;
+	private final static int SECOND = 1;
+	private final static int MILLIS = 2;
+	private final static long MINUTE = 60_000;
+
+	private final String pattern;
+	private final TimeZone timeZone;
+	private final SimpleDateFormat dateFormat;
+	private final Date date = new Date(0);
+
+	// Pattern parts. A text part has its own format.
+	private final int[] partTypes;
+	private final int[] partCounts;
+	private final SimpleDateFormat[] textFormats;
+
+	// Minute caches. Separate so that the parser only uses minutes it parsed.
+	private final Minute formatMinute;
+	private final Minute parseMinute;
+
+	// Last formatted timestamp
+	private long lastTimestamp = Long.MIN_VALUE;
+	private String lastFormatted;
+	private final StringBuilder builder = new StringBuilder(32);
+
+	/**
+	 * Creates a codec for the specified pattern in the default time zone.
+	 *
+	 * @param pattern {@linkplain SimpleDateFormat} pattern
+	 * @throws IllegalArgumentException Thrown if the pattern is invalid
+	 */
+	public TimestampCodec(String pattern) {
+		this(pattern, TimeZone.getDefault());
+	}
+
+	/**
+	 * Creates a codec for the specified pattern and time zone.
+	 *
+	 * @param pattern  {@linkplain SimpleDateFormat} pattern
+	 * @param timeZone Time zone
+	 * @throws IllegalArgumentException Thrown if the pattern is invalid
+	 */
+	public TimestampCodec(String pattern, TimeZone timeZone) {
+		this.pattern = pattern;
+		this.timeZone = (TimeZone) timeZone.clone();
+		this.dateFormat = new SimpleDateFormat(pattern);
+		dateFormat.setTimeZone(this.timeZone);
+
+		// Split the pattern at the unquoted s and S fields
+		ArrayList<int[]> parts = new ArrayList<int[]>();
+		ArrayList<String> texts = new ArrayList<String>();
+		StringBuilder text = new StringBuilder();
+		boolean isQuoted = false;
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i);
+			if (c == '\'') {
+				isQuoted = !isQuoted;
+				text.append(c);
+				i++;
+			} else if (isQuoted == false && (c == 's' || c == 'S')) {
+				int count = 1;
+				while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+					count++;
+				}
+				if (text.length() > 0) {
+					parts.add(new int[] { TEXT, 0 });
+					texts.add(text.toString());
+					text.setLength(0);
+				}
+				parts.add(new int[] { c == 's' ? SECOND : MILLIS, count });
+				texts.add(null);
+				i += count;
+			} else {
+				text.append(c);
+				i++;
+			}
+		}
+		if (text.length() > 0) {
+			parts.add(new int[] { TEXT, 0 });
+			texts.add(text.toString());
+		}
+		this.partTypes = new int[parts.size()];
+		this.partCounts = new int[parts.size()];
+		this.textFormats = new SimpleDateFormat[parts.size()];
+		for (int p = 0; p < partTypes.length; p++) {
+			partTypes[p] = parts.get(p)[0];
+			partCounts[p] = parts.get(p)[1];
+			if (partTypes[p] == TEXT) {
+				textFormats[p] = new SimpleDateFormat(texts.get(p));
+				textFormats[p].setTimeZone(this.timeZone);
+			}
+		}
+		this.formatMinute = new Minute(partTypes.length);
+		this.parseMinute = new Minute(partTypes.length);
+	}
+
+	/**
+	 * Returns the pattern.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Formats the specified timestamp.
+	 *
+	 * @param timestamp Time in msec
+	 */
+	public String format(long timestamp) {
+		if (timestamp == lastTimestamp) {
+			return lastFormatted;
+		}
+		String formatted;
+		if (formatMinute.contains(timestamp) || formatMinute.load(timestamp)) {
+			builder.setLength(0);
+			formatTo(formatMinute, timestamp, builder);
+			formatted = builder.toString();
+		} else {
+			date.setTime(timestamp);
+			formatted = dateFormat.format(date);
+		}
+		lastTimestamp = timestamp;
+		lastFormatted = formatted;
+		return formatted;
+	}
+
+	/**
+	 * Parses the specified text.
+	 *
+	 * @param text Formatted time
+	 * @return Time in msec
+	 * @throws ParseException Thrown if the text cannot be parsed as
+	 *                        {@linkplain SimpleDateFormat#parse(String)} does
+	 */
+	public long parse(String text) throws ParseException {
+		if (parseMinute.start != Long.MIN_VALUE) {
+			long timestamp = parseCached(text);
+			if (timestamp != Long.MIN_VALUE) {
+				return timestamp;
+			}
+		}
+		long timestamp = dateFormat.parse(text).getTime();
+		// Cache only if unambiguous, i.e., the text is how the timestamp formats.
+		// A pattern without all date fields may parse into another minute.
+		date.setTime(timestamp);
+		if (dateFormat.format(date).equals(text)) {
+			parseMinute.load(timestamp);
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Parses the specified text against the parse cache.
+	 *
+	 * @return Long.MIN_VALUE if the text is not in the cached minute
+	 */
+	private long parseCached(String text) {
+		int pos = 0;
+		long delta = 0;
+		for (int p = 0; p < partTypes.length; p++) {
+			if (partTypes[p] == TEXT) {
+				String partText = parseMinute.texts[p];
+				if (text.startsWith(partText, pos) == false) {
+					return Long.MIN_VALUE;
+				}
+				pos += partText.length();
+				continue;
+			}
+			// Adjacent numeric fields have fixed widths as in SimpleDateFormat
+			boolean isFixed = p + 1 < partTypes.length && partTypes[p + 1] != TEXT;
+			int maxDigits = isFixed ? partCounts[p] : Math.max(partCounts[p], partTypes[p] == SECOND ? 2 : 3);
+			int value = 0;
+			int digits = 0;
+			while (digits < maxDigits && pos < text.length()) {
+				char c = text.charAt(pos);
+				if (c < '0' || c > '9') {
+					break;
+				}
+				value = value * 10 + (c - '0');
+				digits++;
+				pos++;
+			}
+			if (digits == 0) {
+				return Long.MIN_VALUE;
+			}
+			delta += partTypes[p] == SECOND ? value * 1000L : value;
+		}
+		if (pos != text.length() || delta < 0 || delta >= MINUTE) {
+			return Long.MIN_VALUE;
+		}
+		long timestamp = parseMinute.start + delta;
+
+		// Accept only if it formats back to the same text
+		builder.setLength(0);
+		formatTo(parseMinute, timestamp, builder);
+		if (text.contentEquals(builder) == false) {
+			return Long.MIN_VALUE;
+		}
+		return timestamp;
+	}
+
+	/**
+	 * Formats the specified timestamp within the specified minute.
+	 */
+	private void formatTo(Minute minute, long timestamp, StringBuilder sb) {
+		long delta = timestamp - minute.start;
+		for (int p = 0; p < partTypes.length; p++) {
+			switch (partTypes[p]) {
+			case SECOND:
+				appendPadded(sb, (int) (delta / 1000), partCounts[p]);
+				break;
+			case MILLIS:
+				appendPadded(sb, (int) (delta % 1000), partCounts[p]);
+				break;
+			case TEXT:
+			default:
+				sb.append(minute.texts[p]);
+				break;
+			}
+		}
+	}
+
+	private static void appendPadded(StringBuilder sb, int value, int count) {
+		int digits = value >= 100 ? 3 : value >= 10 ? 2 : 1;
+		for (int i = digits; i < count; i++) {
+			sb.append('0');
+		}
+		sb.append(value);
+	}
+
+	/**
+	 * {@linkplain Minute} is a minute of local time with the rendered text parts.
+	 */
+	private final class Minute {
+		long start = Long.MIN_VALUE;
+		final String[] texts;
+
+		Minute(int partCount) {
+			this.texts = new String[partCount];
+		}
+
+		boolean contains(long timestamp) {
+			return start != Long.MIN_VALUE && timestamp - start >= 0 && timestamp - start < MINUTE;
+		}
+
+		/**
+		 * Renders the text parts of the minute of the specified timestamp.
+		 *
+		 * @return false if the minute has a time zone offset change, in which case
+		 *         the cache is cleared
+		 */
+		boolean load(long timestamp) {
+			int offset = timeZone.getOffset(timestamp);
+			long minuteStart = timestamp - Math.floorMod(timestamp + offset, MINUTE);
+			if (timeZone.getOffset(minuteStart) != offset || timeZone.getOffset(minuteStart + MINUTE - 1) != offset) {
+				start = Long.MIN_VALUE;
+				return false;
+			}
+			Date minuteDate = new Date(minuteStart);
+			for (int p = 0; p < texts.length; p++) {
+				if (partTypes[p] == TEXT) {
+					texts[p] = textFormats[p].format(minuteDate);
+				}
+			}
+			start = minuteStart;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@linkplain VirtualThreadSupport} creates virtual thread executors if the
+ * JVM supports virtual threads, i.e., JDK 21+. The simulator is compiled for
+ * Java 11, so the virtual thread API is looked up reflectively.
+ *
+ * @author dpark
+ *
+ */
+public final class VirtualThreadSupport {
+	// Thread.Builder.OfVirtual. Null if virtual threads are not supported.
+	private final static Object BUILDER = findBuilder();
+
+	private VirtualThreadSupport() {
+	}
+
+	private static Object findBuilder() {
+		try {
+			return Thread.class.getMethod("ofVirtual").invoke(null);
+		} catch (Throwable e) {
+			// JDK 20 or older
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the JVM supports virtual threads.
+	 */
+	public static boolean isAvailable() {
+		return BUILDER != null;
+	}
+
+	/**
+	 * Returns a new executor that starts a new virtual thread for each task.
+	 *
+	 * @param namePrefix Thread name prefix. The thread names are the prefix
+	 *                   followed by a sequence number starting from 0.
+	 * @return null if virtual threads are not supported
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		if (BUILDER == null) {
+			return null;
+		}
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = builderClass.getMethod("name", String.class, long.class).invoke(BUILDER, namePrefix,
+					0L);
+			ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) method.invoke(null, factory);
+		} catch (Throwable e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Starts a non-daemon thread that keeps the JVM alive until the specified
+	 * executor terminates. Virtual threads are daemon threads, so the JVM would
+	 * otherwise exit right after startup if all publishers are virtual.
+	 *
+	 * @param executor Virtual thread executor
+	 */
+	public static void startKeepAlive(ExecutorService executor) {
+		new Thread(() -> {
+			try {
+				while (executor.awaitTermination(1, TimeUnit.DAYS) == false)
+					;
+			} catch (InterruptedException e) {
+				// exit
+			}
+		}, "simulator-keepalive").start();
+	}
+}
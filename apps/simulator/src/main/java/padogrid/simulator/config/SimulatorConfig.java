@@ -17,6 +17,7 @@ package padogrid.simulator.config;
 
 import padogrid.mqtt.client.cluster.internal.ConfigUtil;
 import padogrid.simulator.Equation;
+import padogrid.simulator.EquationGroup;
 
 /**
  * {@linkplain SimulatorConfig} sets the simulator configuration parameters.
@@ -25,7 +26,13 @@ public class SimulatorConfig {
 	public final static String TIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
 	private String timeFormat = TIME_FORMAT;
+	private Long seed;
+	private ExecutionMode executionMode = ExecutionMode.SCHEDULER;
+	private Wheel wheel = new Wheel();
+	private long shutdownTimeout = 10000;
+	private Clock clock;
 	private Equation[] equations;
+	private EquationGroup[] equationGroups;
 	private Publisher[] publishers;
 
 	public String getTimeFormat() {
@@ -41,6 +48,69 @@ public class SimulatorConfig {
 		this.timeFormat = timeFormat;
 	}
 
+	/**
+	 * Returns the master seed from which all publishers' jitter generators are
+	 * derived. If null, then each run generates different jitter. Default: null
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the default execution mode of the publishers. Default: SCHEDULER
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+
+	/**
+	 * Returns the hashed wheel scheduler settings for the WHEEL execution mode.
+	 */
+	public Wheel getWheel() {
+		if (wheel == null) {
+			wheel = new Wheel();
+		}
+		return wheel;
+	}
+
+	public void setWheel(Wheel wheel) {
+		this.wheel = wheel;
+	}
+
+	/**
+	 * Returns the max time in msec to wait for the publishers to drain their
+	 * in-flight sink operations at shutdown before closing the clients. Default:
+	 * 10000
+	 */
+	public long getShutdownTimeout() {
+		return shutdownTimeout;
+	}
+
+	public void setShutdownTimeout(long shutdownTimeout) {
+		this.shutdownTimeout = shutdownTimeout;
+	}
+
+	/**
+	 * Returns the simulated clock shared by all publishers. If null or not
+	 * enabled, then each publisher advances its own timestamp by timeInterval
+	 * per tick. Default: null
+	 */
+	public Clock getClock() {
+		return clock;
+	}
+
+	public void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
 	public Equation[] getEquations() {
 		return equations;
 	}
@@ -49,6 +119,19 @@ public class SimulatorConfig {
 		this.equations = equations;
 	}
 
+	/**
+	 * Returns the equation groups. Each group generates its member equations
+	 * jointly from a correlation matrix. A publisher lists a group by name in its
+	 * equation names.
+	 */
+	public EquationGroup[] getEquationGroups() {
+		return equationGroups;
+	}
+
+	public void setEquationGroups(EquationGroup[] equationGroups) {
+		this.equationGroups = equationGroups;
+	}
+
 	public Publisher[] getPublishers() {
 		return publishers;
 	}
@@ -69,6 +152,14 @@ public class SimulatorConfig {
 		private PublisherEquation equations;
 		private Reset reset;
 		private long maxCount = -1;
+		private double targetRate = 0;
+		private ExecutionMode executionMode;
+		private PayloadFormat payloadFormat = PayloadFormat.JSON;
+		private LoadProfile loadProfile;
+		private Backpressure backpressure;
+		private Pipeline pipeline;
+		private Backfill backfill;
+		private Fleet fleet;
 
 		public Product getProduct() {
 			return product;
@@ -162,6 +253,122 @@ public class SimulatorConfig {
 		public void setMaxCount(long maxCount) {
 			this.maxCount = maxCount;
 		}
+
+		/**
+		 * Returns the target rate in messages per second. If greater than 0, then
+		 * the publisher is paced to this rate by a dedicated thread instead of being
+		 * scheduled every equationDelay msec. Default: 0
+		 */
+		public double getTargetRate() {
+			return targetRate;
+		}
+
+		public void setTargetRate(double targetRate) {
+			this.targetRate = targetRate;
+		}
+
+		/**
+		 * Returns the execution mode of this publisher. If null, then the root
+		 * executionMode applies. Default: null
+		 */
+		public ExecutionMode getExecutionMode() {
+			return executionMode;
+		}
+
+		public void setExecutionMode(ExecutionMode executionMode) {
+			this.executionMode = executionMode;
+		}
+
+		/**
+		 * Returns the payload format of the published messages. CBOR, MSGPACK and
+		 * AVRO apply to MQTT only and COMPACT to Hazelcast only. Default: JSON
+		 */
+		public PayloadFormat getPayloadFormat() {
+			return payloadFormat;
+		}
+
+		public void setPayloadFormat(PayloadFormat payloadFormat) {
+			this.payloadFormat = payloadFormat;
+		}
+
+		/**
+		 * Returns the load profile that shapes the publishing rate over time. If
+		 * defined, then the publisher is paced to the profile's rate instead of
+		 * targetRate. Default: null
+		 */
+		public LoadProfile getLoadProfile() {
+			return loadProfile;
+		}
+
+		public void setLoadProfile(LoadProfile loadProfile) {
+			this.loadProfile = loadProfile;
+		}
+
+		/**
+		 * Returns the backpressure settings. If null, then the publisher blocks on
+		 * a slow sink. Default: null
+		 */
+		public Backpressure getBackpressure() {
+			return backpressure;
+		}
+
+		public void setBackpressure(Backpressure backpressure) {
+			this.backpressure = backpressure;
+		}
+
+		/**
+		 * Returns the staged pipeline settings. If null or disabled, then each tick
+		 * serializes and sends its messages itself. Default: null
+		 */
+		public Pipeline getPipeline() {
+			return pipeline;
+		}
+
+		public void setPipeline(Pipeline pipeline) {
+			this.pipeline = pipeline;
+		}
+
+		/**
+		 * Returns true if the pipeline is defined and enabled.
+		 */
+		public boolean isPipelined() {
+			return pipeline != null && pipeline.isEnabled();
+		}
+
+		/**
+		 * Returns the backfill settings. If null or disabled, then the publisher
+		 * starts live at startTime. Default: null
+		 */
+		public Backfill getBackfill() {
+			return backfill;
+		}
+
+		public void setBackfill(Backfill backfill) {
+			this.backfill = backfill;
+		}
+
+		/**
+		 * Returns true if the backfill is defined and enabled.
+		 */
+		public boolean isBackfill() {
+			return backfill != null && backfill.isEnabled();
+		}
+
+		public Fleet getFleet() {
+			return fleet;
+		}
+
+		public void setFleet(Fleet fleet) {
+			this.fleet = fleet;
+		}
+
+		/**
+		 * Returns true if this publisher simulates a fleet of entities, i.e.,
+		 * fleet.entityCount is greater than 0.
+		 */
+		public boolean isFleet() {
+			return fleet != null && fleet.getEntityCount() > 0;
+		}
 	}
 
 	public static class DataStructure {
@@ -280,6 +487,514 @@ public class SimulatorConfig {
 		}
 	}
 
+	/**
+	 * {@linkplain Fleet} drives N independent entities with the publisher's
+	 * equations. Each entity has its own phase, value offset and jitter sequence
+	 * derived from the seed, and is published with its own key or topic.
+	 */
+	public static class Fleet {
+		private int entityCount = 0;
+		private String idPrefix = "entity-";
+		private String idField = "id";
+		private long seed = 0;
+		private boolean randomPhase = true;
+		private double valueOffset = 0;
+
+		/**
+		 * Returns the number of entities. If 0 or less, then the fleet is disabled.
+		 * Default: 0
+		 */
+		public int getEntityCount() {
+			return entityCount;
+		}
+
+		public void setEntityCount(int entityCount) {
+			this.entityCount = entityCount;
+		}
+
+		/**
+		 * Returns the entity ID prefix. Entity IDs are the prefix followed by the
+		 * entity index. Default: "entity-"
+		 */
+		public String getIdPrefix() {
+			if (idPrefix == null) {
+				idPrefix = "";
+			}
+			return ConfigUtil.parseStringValue(idPrefix);
+		}
+
+		public void setIdPrefix(String idPrefix) {
+			this.idPrefix = idPrefix;
+		}
+
+		/**
+		 * Returns the payload field name of the entity ID. If null or empty, then
+		 * the entity ID is not included in the payload. Default: "id"
+		 */
+		public String getIdField() {
+			return ConfigUtil.parseStringValue(idField);
+		}
+
+		public void setIdField(String idField) {
+			this.idField = idField;
+		}
+
+		/**
+		 * Returns the seed from which the per-entity phase, value offset and jitter
+		 * seeds are derived. Default: 0
+		 */
+		public long getSeed() {
+			return seed;
+		}
+
+		public void setSeed(long seed) {
+			this.seed = seed;
+		}
+
+		/**
+		 * Returns true if each entity starts at a random base value between
+		 * minBase and maxBase. Default: true
+		 */
+		public boolean isRandomPhase() {
+			return randomPhase;
+		}
+
+		public void setRandomPhase(boolean randomPhase) {
+			this.randomPhase = randomPhase;
+		}
+
+		/**
+		 * Returns the max value offset. Each entity's values are offset by a fixed
+		 * random amount in [-valueOffset, valueOffset]. Default: 0
+		 */
+		public double getValueOffset() {
+			return valueOffset;
+		}
+
+		public void setValueOffset(double valueOffset) {
+			this.valueOffset = valueOffset;
+		}
+	}
+
+	/**
+	 * {@linkplain LoadProfile} shapes a publisher's rate in messages per second
+	 * as a function of the elapsed time since the publisher started. All times
+	 * are in msec.
+	 * <ul>
+	 * <li>RAMP - Linear from startRate to endRate over duration, then
+	 * endRate.</li>
+	 * <li>STEP - The plateaus listed in steps, each at its rate for its duration.
+	 * The last rate holds after the last step unless repeat is true.</li>
+	 * <li>BURST - burstRate for the first burstDuration of every period, baseRate
+	 * otherwise.</li>
+	 * <li>DIURNAL - A cosine curve between minRate and maxRate with the given
+	 * period, peaking at peakOffset.</li>
+	 * <li>EQUATION - The value of the named equation. Its base value sweeps from
+	 * minBase to maxBase over every period.</li>
+	 * </ul>
+	 */
+	public static class LoadProfile {
+		private LoadProfileType type;
+		private double startRate;
+		private double endRate;
+		private long duration;
+		private Step[] steps;
+		private boolean repeat = false;
+		private double baseRate;
+		private double burstRate;
+		private long burstDuration;
+		private double minRate;
+		private double maxRate;
+		private long period = 86400000;
+		private long peakOffset = 0;
+		private String equationName;
+		private long updateInterval = 100;
+		private long reportInterval = 10000;
+
+		public LoadProfileType getType() {
+			return type;
+		}
+
+		public void setType(LoadProfileType type) {
+			this.type = type;
+		}
+
+		/**
+		 * Returns the RAMP start rate. Default: 0
+		 */
+		public double getStartRate() {
+			return startRate;
+		}
+
+		public void setStartRate(double startRate) {
+			this.startRate = startRate;
+		}
+
+		/**
+		 * Returns the RAMP end rate. Default: 0
+		 */
+		public double getEndRate() {
+			return endRate;
+		}
+
+		public void setEndRate(double endRate) {
+			this.endRate = endRate;
+		}
+
+		/**
+		 * Returns the RAMP duration in msec. Default: 0
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+		public void setDuration(long duration) {
+			this.duration = duration;
+		}
+
+		/**
+		 * Returns the STEP plateaus. Default: null
+		 */
+		public Step[] getSteps() {
+			return steps;
+		}
+
+		public void setSteps(Step[] steps) {
+			this.steps = steps;
+		}
+
+		/**
+		 * Returns true if the STEP plateaus repeat after the last step. Default:
+		 * false
+		 */
+		public boolean isRepeat() {
+			return repeat;
+		}
+
+		public void setRepeat(boolean repeat) {
+			this.repeat = repeat;
+		}
+
+		/**
+		 * Returns the BURST rate outside of bursts. Default: 0
+		 */
+		public double getBaseRate() {
+			return baseRate;
+		}
+
+		public void setBaseRate(double baseRate) {
+			this.baseRate = baseRate;
+		}
+
+		/**
+		 * Returns the BURST rate during bursts. Default: 0
+		 */
+		public double getBurstRate() {
+			return burstRate;
+		}
+
+		public void setBurstRate(double burstRate) {
+			this.burstRate = burstRate;
+		}
+
+		/**
+		 * Returns the BURST duration in msec at the start of every period. Default:
+		 * 0
+		 */
+		public long getBurstDuration() {
+			return burstDuration;
+		}
+
+		public void setBurstDuration(long burstDuration) {
+			this.burstDuration = burstDuration;
+		}
+
+		/**
+		 * Returns the DIURNAL min rate. Default: 0
+		 */
+		public double getMinRate() {
+			return minRate;
+		}
+
+		public void setMinRate(double minRate) {
+			this.minRate = minRate;
+		}
+
+		/**
+		 * Returns the DIURNAL max rate. Default: 0
+		 */
+		public double getMaxRate() {
+			return maxRate;
+		}
+
+		public void setMaxRate(double maxRate) {
+			this.maxRate = maxRate;
+		}
+
+		/**
+		 * Returns the BURST, DIURNAL and EQUATION period in msec. Default: 86400000
+		 * (1 day)
+		 */
+		public long getPeriod() {
+			return period;
+		}
+
+		public void setPeriod(long period) {
+			this.period = period;
+		}
+
+		/**
+		 * Returns the DIURNAL peak time in msec from the start. Default: 0
+		 */
+		public long getPeakOffset() {
+			return peakOffset;
+		}
+
+		public void setPeakOffset(long peakOffset) {
+			this.peakOffset = peakOffset;
+		}
+
+		/**
+		 * Returns the EQUATION equation name. Default: null
+		 */
+		public String getEquationName() {
+			return ConfigUtil.parseStringValue(equationName);
+		}
+
+		public void setEquationName(String equationName) {
+			this.equationName = equationName;
+		}
+
+		/**
+		 * Returns the interval in msec at which the rate is re-evaluated. Default:
+		 * 100
+		 */
+		public long getUpdateInterval() {
+			if (updateInterval <= 0) {
+				updateInterval = 100;
+			}
+			return updateInterval;
+		}
+
+		public void setUpdateInterval(long updateInterval) {
+			this.updateInterval = updateInterval;
+		}
+
+		/**
+		 * Returns the interval in msec at which the achieved and target rates are
+		 * reported. STEP reports per step instead. If 0 or less, then the rates are
+		 * not reported. Default: 10000
+		 */
+		public long getReportInterval() {
+			return reportInterval;
+		}
+
+		public void setReportInterval(long reportInterval) {
+			this.reportInterval = reportInterval;
+		}
+
+		/**
+		 * {@linkplain Step} is a STEP plateau.
+		 */
+		public static class Step {
+			private double rate;
+			private long duration;
+
+			/**
+			 * Returns the rate in messages per second. Default: 0
+			 */
+			public double getRate() {
+				return rate;
+			}
+
+			public void setRate(double rate) {
+				this.rate = rate;
+			}
+
+			/**
+			 * Returns the duration in msec. Default: 0
+			 */
+			public long getDuration() {
+				return duration;
+			}
+
+			public void setDuration(long duration) {
+				this.duration = duration;
+			}
+		}
+	}
+
+	/**
+	 * {@linkplain Backpressure} determines what a publisher does when its sink,
+	 * i.e., the MQTT broker, Geode/GemFire or Hazelcast, cannot keep up.
+	 * <ul>
+	 * <li>BLOCK - The tick publishes directly and runs late while the sink is
+	 * slow. The ticks that start later than one equationDelay past their
+	 * deadlines are counted as late.</li>
+	 * <li>DROP_NEWEST - The tick enqueues to a bounded queue drained by a sink
+	 * thread. A message is dropped if the queue is full.</li>
+	 * <li>DROP_OLDEST - Same as DROP_NEWEST but the oldest queued message is
+	 * dropped to make room.</li>
+	 * <li>COALESCE - The queue keeps only the latest message per key. The
+	 * replaced messages are counted as coalesced. If the queue is full of
+	 * distinct keys, then the oldest key is dropped.</li>
+	 * </ul>
+	 */
+	public static class Backpressure {
+		private BackpressurePolicy policy = BackpressurePolicy.BLOCK;
+		private int queueSize = 1000;
+		private long reportInterval = 10000;
+
+		/**
+		 * Returns the backpressure policy. Default: BLOCK
+		 */
+		public BackpressurePolicy getPolicy() {
+			return policy;
+		}
+
+		public void setPolicy(BackpressurePolicy policy) {
+			this.policy = policy;
+		}
+
+		/**
+		 * Returns the max number of queued messages, or the max number of distinct
+		 * keys for COALESCE. Ignored for BLOCK. Default: 1000
+		 */
+		public int getQueueSize() {
+			return queueSize;
+		}
+
+		public void setQueueSize(int queueSize) {
+			this.queueSize = queueSize;
+		}
+
+		/**
+		 * Returns the interval in msec at which the dropped and late counts are
+		 * reported if they changed. If 0 or less, then they are reported only when
+		 * the publisher stops. Default: 10000
+		 */
+		public long getReportInterval() {
+			return reportInterval;
+		}
+
+		public void setReportInterval(long reportInterval) {
+			this.reportInterval = reportInterval;
+		}
+	}
+
+	/**
+	 * {@linkplain Pipeline} decouples a publisher's ticks from serialization and
+	 * network calls. The ticks write the generated messages into a preallocated
+	 * ring buffer. A serializer thread converts them to the data structure's
+	 * value type, and sender threads send them in batches. Messages with the same
+	 * key are sent by the same sender in order.
+	 */
+	public static class Pipeline {
+		private boolean enabled = false;
+		private int ringSize = 1024;
+		private int senderCount = 1;
+		private int batchSize = 100;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the number of ring slots, rounded up to a power of 2. Default:
+		 * 1024
+		 */
+		public int getRingSize() {
+			return ringSize;
+		}
+
+		public void setRingSize(int ringSize) {
+			this.ringSize = ringSize;
+		}
+
+		/**
+		 * Returns the number of sender threads. Default: 1
+		 */
+		public int getSenderCount() {
+			return senderCount;
+		}
+
+		public void setSenderCount(int senderCount) {
+			this.senderCount = senderCount;
+		}
+
+		/**
+		 * Returns the max number of messages a stage processes per wakeup.
+		 * Default: 100
+		 */
+		public int getBatchSize() {
+			if (batchSize <= 0) {
+				batchSize = 100;
+			}
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+	}
+
+	/**
+	 * {@linkplain Backfill} generates the ticks from a past startTime up to the
+	 * current time as fast as possible, without pacing, and writes them to the
+	 * data structure in batches. The publisher then optionally continues live.
+	 */
+	public static class Backfill {
+		private boolean enabled = false;
+		private int batchSize = 1000;
+		private boolean live = true;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the max number of messages per batch write. Default: 1000
+		 */
+		public int getBatchSize() {
+			if (batchSize <= 0) {
+				batchSize = 1000;
+			}
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		/**
+		 * Returns true if the publisher continues live after the backfill.
+		 * Default: true
+		 */
+		public boolean isLive() {
+			return live;
+		}
+
+		public void setLive(boolean live) {
+			this.live = live;
+		}
+	}
+
+	public static enum BackpressurePolicy {
+		BLOCK, DROP_NEWEST, DROP_OLDEST, COALESCE, block, drop_newest, drop_oldest, coalesce
+	}
+
+	public static enum LoadProfileType {
+		RAMP, STEP, BURST, DIURNAL, EQUATION, ramp, step, burst, diurnal, equation
+	}
+
 	public enum Product {
 		MQTT, mqtt, GEMFIRE, gemfire, GEODE, geode, HAZELCAST, hazelcast
 	}
@@ -288,6 +1003,136 @@ public class SimulatorConfig {
 		REGION, MAP, RMAP, QUEUE, TOPIC, RTOPIC, region, map, rmap, queue, topic, rtopic
 	}
 
+	/**
+	 * Publisher execution modes.
+	 * <ul>
+	 * <li>SCHEDULER - The publisher is run by a shared scheduled thread pool.</li>
+	 * <li>VIRTUAL - The publisher runs its own pacing loop on a virtual thread
+	 * (JDK 21+). Blocking sink calls unmount the virtual thread instead of
+	 * holding a platform thread.</li>
+	 * <li>WHEEL - The publisher is run by the shared hashed wheel scheduler, which
+	 * dispatches the publishers due in the same tick as one batch to a small
+	 * worker pool.</li>
+	 * </ul>
+	 */
+	public static enum ExecutionMode {
+		SCHEDULER, VIRTUAL, WHEEL, scheduler, virtual, wheel
+	}
+
+	/**
+	 * Payload formats.
+	 * <ul>
+	 * <li>JSON - JSON text</li>
+	 * <li>CBOR - CBOR map (RFC 8949)</li>
+	 * <li>MSGPACK - MessagePack map</li>
+	 * <li>AVRO - Avro binary record without the schema. The schema is generated
+	 * from the field names.</li>
+	 * <li>COMPACT - Hazelcast GenericRecord in Compact serialization. The schema
+	 * is generated from the field names.</li>
+	 * </ul>
+	 */
+	public static enum PayloadFormat {
+		JSON, CBOR, MSGPACK, AVRO, COMPACT, json, cbor, msgpack, avro, compact
+	}
+
+	/**
+	 * {@linkplain Wheel} configures the hashed wheel scheduler used by the WHEEL
+	 * execution mode.
+	 */
+	public static class Wheel {
+		private long tickDuration = 10;
+		private int ticksPerWheel = 512;
+		private int workerCount = 0;
+
+		/**
+		 * Returns the tick duration in msec. Publishers run up to one tick late.
+		 * Default: 10
+		 */
+		public long getTickDuration() {
+			if (tickDuration <= 0) {
+				tickDuration = 1;
+			}
+			return tickDuration;
+		}
+
+		public void setTickDuration(long tickDuration) {
+			this.tickDuration = tickDuration;
+		}
+
+		/**
+		 * Returns the number of wheel slots, rounded up to a power of 2 by the
+		 * scheduler. Default: 512
+		 */
+		public int getTicksPerWheel() {
+			if (ticksPerWheel <= 0) {
+				ticksPerWheel = 512;
+			}
+			return ticksPerWheel;
+		}
+
+		public void setTicksPerWheel(int ticksPerWheel) {
+			this.ticksPerWheel = ticksPerWheel;
+		}
+
+		/**
+		 * Returns the number of worker threads. If 0 or less, then the number of
+		 * available processors. Default: 0
+		 */
+		public int getWorkerCount() {
+			if (workerCount <= 0) {
+				return Runtime.getRuntime().availableProcessors();
+			}
+			return workerCount;
+		}
+
+		public void setWorkerCount(int workerCount) {
+			this.workerCount = workerCount;
+		}
+	}
+
+	/**
+	 * {@linkplain Clock} configures the simulated clock shared by all
+	 * publishers. Each tick is stamped with the clock's current time instead of
+	 * the publisher's timeInterval.
+	 */
+	public static class Clock {
+		private boolean enabled = false;
+		private String startTime;
+		private double speed = 1;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the simulated start time in timeFormat. If null, then the clock
+		 * starts at the current time. Default: null
+		 */
+		public String getStartTime() {
+			return startTime;
+		}
+
+		public void setStartTime(String startTime) {
+			this.startTime = startTime;
+		}
+
+		/**
+		 * Returns the simulated msec per wall msec, e.g., 1440 for one simulated
+		 * day per minute. Default: 1
+		 */
+		public double getSpeed() {
+			return speed;
+		}
+
+		public void setSpeed(double speed) {
+			this.speed = speed;
+		}
+	}
+
 	public static enum KeyType {
 		FIXED, SEQUENCE, TIME, UUID, sequence, time, uuid
 	}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * {@linkplain ClassFileWriter} is a minimal class file writer for generating
+ * straight-line (branch-free) classes. It supports just enough of the class
+ * file format for {@linkplain FormulaCompiler}, i.e., a constant pool, one
+ * interface, and methods without exception tables or stack map frames.
+ *
+ * @author dpark
+ *
+ */
+class ClassFileWriter {
+	// Java 11
+	private final static int MAJOR_VERSION = 55;
+
+	final static int ACC_PUBLIC = 0x0001;
+	final static int ACC_FINAL = 0x0010;
+	final static int ACC_SUPER = 0x0020;
+
+	// Opcodes
+	final static int ALOAD_0 = 0x2a;
+	final static int DLOAD_1 = 0x27;
+	final static int DCONST_0 = 0x0e;
+	final static int DCONST_1 = 0x0f;
+	final static int LDC = 0x12;
+	final static int LDC_W = 0x13;
+	final static int LDC2_W = 0x14;
+	final static int POP2 = 0x58;
+	final static int DUP2 = 0x5c;
+	final static int DUP2_X2 = 0x5e;
+	final static int DADD = 0x63;
+	final static int DSUB = 0x67;
+	final static int DMUL = 0x6b;
+	final static int DDIV = 0x6f;
+	final static int DREM = 0x73;
+	final static int DNEG = 0x77;
+	final static int DRETURN = 0xaf;
+	final static int ARETURN = 0xb0;
+	final static int RETURN = 0xb1;
+	final static int INVOKESPECIAL = 0xb7;
+	final static int INVOKESTATIC = 0xb8;
+
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream(poolBytes);
+	private final HashMap<String, Integer> poolMap = new HashMap<String, Integer>();
+	private int poolCount = 1;
+
+	private final int thisClass;
+	private final int superClass;
+	private final int[] interfaces;
+	private final List<byte[]> methods = new ArrayList<byte[]>();
+
+	/**
+	 * Creates a class file writer.
+	 *
+	 * @param className     Internal class name, e.g., "a/b/C"
+	 * @param superName     Internal super class name
+	 * @param interfaceNames Internal interface names
+	 */
+	ClassFileWriter(String className, String superName, String... interfaceNames) {
+		this.thisClass = classRef(className);
+		this.superClass = classRef(superName);
+		this.interfaces = new int[interfaceNames.length];
+		for (int i = 0; i < interfaceNames.length; i++) {
+			this.interfaces[i] = classRef(interfaceNames[i]);
+		}
+	}
+
+	int utf8(String value) {
+		String key = "U" + value;
+		Integer index = poolMap.get(key);
+		if (index == null) {
+			try {
+				pool.writeByte(1);
+				pool.writeUTF(value);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			index = poolCount++;
+			poolMap.put(key, index);
+		}
+		return index;
+	}
+
+	int classRef(String internalName) {
+		return entry("C" + internalName, 7, utf8(internalName));
+	}
+
+	int string(String value) {
+		return entry("S" + value, 8, utf8(value));
+	}
+
+	int nameAndType(String name, String descriptor) {
+		String key = "N" + name + ":" + descriptor;
+		Integer index = poolMap.get(key);
+		if (index == null) {
+			int nameIndex = utf8(name);
+			int typeIndex = utf8(descriptor);
+			try {
+				pool.writeByte(12);
+				pool.writeShort(nameIndex);
+				pool.writeShort(typeIndex);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			index = poolCount++;
+			poolMap.put(key, index);
+		}
+		return index;
+	}
+
+	int methodRef(String owner, String name, String descriptor) {
+		String key = "M" + owner + "." + name + descriptor;
+		Integer index = poolMap.get(key);
+		if (index == null) {
+			int classIndex = classRef(owner);
+			int natIndex = nameAndType(name, descriptor);
+			try {
+				pool.writeByte(10);
+				pool.writeShort(classIndex);
+				pool.writeShort(natIndex);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			index = poolCount++;
+			poolMap.put(key, index);
+		}
+		return index;
+	}
+
+	int doubleConstant(double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		String key = "D" + bits;
+		Integer index = poolMap.get(key);
+		if (index == null) {
+			try {
+				pool.writeByte(6);
+				pool.writeLong(bits);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			index = poolCount;
+			// double entries take up two slots
+			poolCount += 2;
+			poolMap.put(key, index);
+		}
+		return index;
+	}
+
+	private int entry(String key, int tag, int refIndex) {
+		Integer index = poolMap.get(key);
+		if (index == null) {
+			try {
+				pool.writeByte(tag);
+				pool.writeShort(refIndex);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			index = poolCount++;
+			poolMap.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds a method. The code must not contain branches.
+	 *
+	 * @param access     Access flags
+	 * @param name       Method name
+	 * @param descriptor Method descriptor
+	 * @param code       Method byte code
+	 * @param maxStack   Max operand stack depth in slots
+	 * @param maxLocals  Max local variable slots including 'this'
+	 */
+	void addMethod(int access, String name, String descriptor, byte[] code, int maxStack, int maxLocals) {
+		try {
+			int nameIndex = utf8(name);
+			int descIndex = utf8(descriptor);
+			int codeIndex = utf8("Code");
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(code.length + 32);
+			DataOutputStream out = new DataOutputStream(bos);
+			out.writeShort(access);
+			out.writeShort(nameIndex);
+			out.writeShort(descIndex);
+			out.writeShort(1); // attributes_count
+			out.writeShort(codeIndex);
+			out.writeInt(12 + code.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(code.length);
+			out.write(code);
+			out.writeShort(0); // exception_table_length
+			out.writeShort(0); // attributes_count
+			methods.add(bos.toByteArray());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the class file bytes.
+	 *
+	 * @param access Class access flags
+	 */
+	byte[] toByteArray(int access) {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(512);
+			DataOutputStream out = new DataOutputStream(bos);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(MAJOR_VERSION);
+			pool.flush();
+			out.writeShort(poolCount);
+			out.write(poolBytes.toByteArray());
+			out.writeShort(access);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(interfaces.length);
+			for (int index : interfaces) {
+				out.writeShort(index);
+			}
+			out.writeShort(0); // fields_count
+			out.writeShort(methods.size());
+			for (byte[] method : methods) {
+				out.write(method);
+			}
+			out.writeShort(0); // attributes_count
+			return bos.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * {@linkplain Code} accumulates byte code for a single method.
+	 */
+	static class Code {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+		Code op(int opcode) {
+			bytes.write(opcode);
+			return this;
+		}
+
+		Code op(int opcode, int index) {
+			bytes.write(opcode);
+			bytes.write((index >> 8) & 0xff);
+			bytes.write(index & 0xff);
+			return this;
+		}
+
+		Code ldc(int index) {
+			if (index < 256) {
+				bytes.write(LDC);
+				bytes.write(index);
+			} else {
+				op(LDC_W, index);
+			}
+			return this;
+		}
+
+		byte[] toByteArray() {
+			return bytes.toByteArray();
+		}
+	}
+}
@@ -22,6 +22,60 @@ package padogrid.simulator.eq;
  *
  */
 public class Equations {
+	// Polynomials evaluated with Horner's method
+	private final static Polynomial LINEAR = new Polynomial(1, 1);
+	private final static Polynomial QUADRATIC = new Polynomial(1, 1, 1);
+	private final static Polynomial CUBIC = new Polynomial(1, 1, 1, 1);
+	private final static Polynomial CUBIC2 = new Polynomial(1, 1, 0, 1);
+	private final static Polynomial CUBIC3 = new Polynomial(1, 1, 0, 0);
+	private final static Polynomial QUARTIC = new Polynomial(1, 1, 1, 1, 1);
+	private final static Polynomial QUINTIC = new Polynomial(1, 1, 1, 1, 1, 1);
+	private final static Polynomial SEXTIC = new Polynomial(1, 1, 1, 1, 1, 1, 1);
+	private final static Polynomial SEPTIC = new Polynomial(1, 1, 1, 1, 1, 1, 1, 1);
+	private final static Polynomial OCTIC = new Polynomial(1, 1, 1, 1, 1, 1, 1, 1, 1);
+	private final static Polynomial NONTIC = new Polynomial(1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+	private final static Polynomial DECIC = new Polynomial(1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+
+	/**
+	 * Returns the polynomial evaluated by the specified method of this class.
+	 * Callers may use the returned {@linkplain Polynomial} directly to take
+	 * advantage of its batch evaluation.
+	 * 
+	 * @param methodName Method name, e.g., "quintic"
+	 * @return null if the method is not a plain polynomial
+	 */
+	public static Polynomial getPolynomial(String methodName) {
+		if (methodName == null) {
+			return null;
+		}
+		switch (methodName) {
+		case "linear":
+			return LINEAR;
+		case "quadratic":
+			return QUADRATIC;
+		case "cubic":
+			return CUBIC;
+		case "cubic2":
+			return CUBIC2;
+		case "quartic":
+			return QUARTIC;
+		case "quintic":
+			return QUINTIC;
+		case "sextic":
+			return SEXTIC;
+		case "septic":
+			return SEPTIC;
+		case "octic":
+			return OCTIC;
+		case "nontic":
+			return NONTIC;
+		case "decic":
+			return DECIC;
+		default:
+			return null;
+		}
+	}
+
 	/**
 	 * Circle with radius 1.
 	 * <p>
@@ -75,87 +129,83 @@ public class Equations {
 	 * y=x+1
 	 */
 	public final static double linear(double x) {
-		return x + 1;
+		return LINEAR.calculate(x);
 	}
 
 	/**
 	 * y=x^2+x+1
 	 */
 	public final static double quadratic(double x) {
-		return Math.pow(x, 2) + x + 1;
+		return QUADRATIC.calculate(x);
 	}
 
 	/**
 	 * y=x^3+x^2+x+1
 	 */
 	public final static double cubic(double x) {
-		return Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return CUBIC.calculate(x);
 	}
 
 	/**
 	 * y=x^3+x^2+1
 	 */
 	public final static double cubic2(double x) {
-		return Math.pow(x, 3) + Math.pow(x, 2) + 1;
+		return CUBIC2.calculate(x);
 	}
 
 	/**
 	 * y=|x^3+x^2|
 	 */
 	public final static double cubic3(double x) {
-		return Math.abs(Math.pow(x, 3) + Math.pow(x, 2));
+		return Math.abs(CUBIC3.calculate(x));
 	}
 
 	/**
 	 * y=x^4+x^3+x^2+x+1
 	 */
 	public final static double quartic(double x) {
-		return Math.pow(x, 4) + Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return QUARTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double quintic(double x) {
-		return Math.pow(x, 5) + Math.pow(x, 4) + Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return QUINTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^6+x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double sextic(double x) {
-		return Math.pow(x, 6) + Math.pow(x, 5) + Math.pow(x, 4) + Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return SEXTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^7+x^6+x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double septic(double x) {
-		return Math.pow(x, 7) + Math.pow(x, 6) + Math.pow(x, 5) + Math.pow(x, 4) + Math.pow(x, 3) + Math.pow(x, 2) + x
-				+ 1;
+		return SEPTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^8+x^7+x^6+x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double octic(double x) {
-		return Math.pow(x, 8) + Math.pow(x, 7) + Math.pow(x, 6) + Math.pow(x, 5) + Math.pow(x, 4) + Math.pow(x, 3)
-				+ Math.pow(x, 2) + x + 1;
+		return OCTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^9+x^8+x^7+x^6+x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double nontic(double x) {
-		return Math.pow(x, 9) + Math.pow(x, 8) + Math.pow(x, 7) + Math.pow(x, 6) + Math.pow(x, 5) + Math.pow(x, 4)
-				+ Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return NONTIC.calculate(x);
 	}
 
 	/**
 	 * y=x^10+x^9+x^8+x^7+x^6+x^5+x^4+x^3+x^2+x+1
 	 */
 	public final static double decic(double x) {
-		return Math.pow(x, 10) + Math.pow(x, 9) + Math.pow(x, 8) + Math.pow(x, 7) + Math.pow(x, 6) + Math.pow(x, 5)
-				+ Math.pow(x, 4) + Math.pow(x, 3) + Math.pow(x, 2) + x + 1;
+		return DECIC.calculate(x);
 	}
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import padogrid.simulator.Constants;
+import padogrid.simulator.ICalculation;
+
+/**
+ * {@linkplain FormulaBenchmark} compares formulas compiled by
+ * {@linkplain FormulaCompiler} against the hand-written {@linkplain Equations}
+ * methods. Each calculation is invoked over the base range [-1, 1] and the
+ * average time per call is reported along with the max absolute difference
+ * from the hand-written method.
+ * <p>
+ * Each measurement runs its own copy of the benchmark loop, loaded by its own
+ * class loader, so that the loop's call site sees a single calculation class
+ * and is not skewed by the other calculations.
+ *
+ * @author dpark
+ *
+ */
+public class FormulaBenchmark implements Constants {
+
+	private final static int WARMUP_RUNS = 1000;
+
+	private final static String[] FORMULAS = { "y=sqrt(1-x*x)", "y=e^(-x/5)", "y=2e^(-2x)sin(2*pi*x/.5)",
+			"y=sin(x)^63*sin(x+1.5)*8", "y=x^2+x+1", "y=x^3+x^2+1", "y=|x^3+x^2|", "y=x^5+x^4+x^3+x^2+x+1",
+			"y=x^10+x^9+x^8+x^7+x^6+x^5+x^4+x^3+x^2+x+1" };
+
+	// Hand-written FORMULAS, in the same order
+	private final static ICalculation[] HAND_WRITTEN = { Equations::circle, Equations::decay,
+			Equations::dampedSineWave, Equations::heartbeat, Equations::quadratic, Equations::cubic2,
+			Equations::cubic3, Equations::quintic, Equations::decic };
+
+	/**
+	 * Benchmark loop. Loaded per measurement by {@linkplain #newLoop()}.
+	 */
+	public final static class Loop {
+		public static double run(ICalculation calculation, long iterations) {
+			double sum = 0;
+			double x = -1;
+			for (long i = 0; i < iterations; i++) {
+				sum += calculation.calculate(x);
+				x += 0.001;
+				if (x > 1) {
+					x = -1;
+				}
+			}
+			return sum;
+		}
+	}
+
+	private static void writeLine() {
+		System.out.println();
+	}
+
+	private static void writeLine(String line) {
+		System.out.println(line);
+	}
+
+	private static void usage() {
+		String executable = System.getProperty(PROPERTY_executableName, FormulaBenchmark.class.getName());
+		writeLine();
+		writeLine("NAME");
+		writeLine("   " + executable + " - Benchmark compiled formulas against hand-written equations");
+		writeLine();
+		writeLine("SYNOPSIS");
+		writeLine("   " + executable + " [-iterations iterations] [-?]");
+		writeLine();
+		writeLine("DESCRIPTION");
+		writeLine("   Compiles the formulas of the standard equations in padogrid.simulator.eq.Equations");
+		writeLine("   and reports the average time per call of the compiled, interpreted and hand-written");
+		writeLine("   calculations. Each measurement is warmed up and run in its own copy of the loop.");
+		writeLine();
+		writeLine("OPTIONS");
+		writeLine("   -iterations iterations");
+		writeLine("             Number of calls per measurement. Default: 10000000");
+		writeLine();
+	}
+
+	public static void main(String[] args) {
+		long iterations = 10_000_000;
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equalsIgnoreCase("-?")) {
+				usage();
+				System.exit(0);
+			} else if (arg.equals("-iterations")) {
+				if (i < args.length - 1) {
+					iterations = Long.parseLong(args[++i].trim());
+				}
+			}
+		}
+
+		System.out.printf("%-45s %12s %12s %12s %12s%n", "formula", "compiled", "interpreted", "hand-written",
+				"max diff");
+		System.out.printf("%-45s %12s %12s %12s %12s%n", "", "(ns/call)", "(ns/call)", "(ns/call)", "");
+		try {
+			for (int i = 0; i < FORMULAS.length; i++) {
+				String formula = FORMULAS[i];
+				ICalculation compiled = FormulaCompiler.compile(formula);
+				ICalculation interpreted = FormulaCompiler.interpret(formula);
+				ICalculation handWritten = HAND_WRITTEN[i];
+
+				double compiledNs = measure(compiled, iterations);
+				double interpretedNs = measure(interpreted, iterations / 10);
+				double handWrittenNs = measure(handWritten, iterations);
+				System.out.printf("%-45s %12.2f %12.2f %12.2f %12.3g%n", formula, compiledNs, interpretedNs,
+						handWrittenNs, maxDiff(compiled, handWritten));
+			}
+		} catch (IOException | ReflectiveOperationException e) {
+			System.err.printf("ERROR: Unable to load the benchmark loop [error=%s]. Command aborted.%n", e);
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Warms up and measures the specified calculation in a new loop.
+	 *
+	 * @return Average time per call in nsec
+	 */
+	private static double measure(ICalculation calculation, long iterations)
+			throws IOException, ReflectiveOperationException {
+		Method loop = newLoop();
+		// Warm up. Many short runs so that the loop method itself is JIT compiled.
+		long warmupIterations = Math.max(1, iterations / WARMUP_RUNS);
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			run(loop, calculation, warmupIterations);
+		}
+
+		long startTime = System.nanoTime();
+		double sum = run(loop, calculation, iterations);
+		long elapsed = System.nanoTime() - startTime;
+		// Consume the sum so that the loop is not eliminated
+		if (sum == Double.MIN_VALUE) {
+			System.out.print("");
+		}
+		return (double) elapsed / iterations;
+	}
+
+	private static double run(Method loop, ICalculation calculation, long iterations)
+			throws ReflectiveOperationException {
+		try {
+			return (double) loop.invoke(null, calculation, iterations);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the run method of a new copy of {@linkplain Loop} defined by its
+	 * own class loader. The JIT profiles each copy separately.
+	 */
+	private static Method newLoop() throws IOException, ReflectiveOperationException {
+		String className = Loop.class.getName();
+		byte[] bytes;
+		try (InputStream in = Loop.class.getResourceAsStream("/" + className.replace('.', '/') + ".class")) {
+			bytes = in.readAllBytes();
+		}
+		ClassLoader loader = new ClassLoader(Loop.class.getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+				if (name.equals(className) == false) {
+					return super.loadClass(name, resolve);
+				}
+				synchronized (getClassLoadingLock(name)) {
+					Class<?> clazz = findLoadedClass(name);
+					if (clazz == null) {
+						clazz = defineClass(name, bytes, 0, bytes.length);
+					}
+					return clazz;
+				}
+			}
+		};
+		return loader.loadClass(className).getMethod("run", ICalculation.class, long.class);
+	}
+
+	private static double maxDiff(ICalculation a, ICalculation b) {
+		double maxDiff = 0;
+		for (double x = -1; x <= 1; x += 0.001) {
+			double diff = Math.abs(a.calculate(x) - b.calculate(x));
+			if (diff > maxDiff) {
+				maxDiff = diff;
+			}
+		}
+		return maxDiff;
+	}
+}
@@ -0,0 +1,782 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import padogrid.simulator.ICalculation;
+
+/**
+ * {@linkplain FormulaCompiler} compiles formula strings such as
+ * {@code y=x^3+x^2+1} into {@linkplain ICalculation} instances. The formula is
+ * parsed into an AST, constant-folded, and emitted as byte code of a class that
+ * implements {@linkplain ICalculation}. The generated class runs at the same
+ * speed as a hand-written class once JIT compiled.
+ * <p>
+ * Supported syntax:
+ * <ul>
+ * <li>Optional left-hand side, e.g., "y=" or "f(x)=". It is ignored.</li>
+ * <li>The variable x. It is the base value.</li>
+ * <li>Numbers, e.g., 1, 0.5, .5, 1e-3</li>
+ * <li>Constants pi and e</li>
+ * <li>Operators +, -, *, /, % and ^ (power, right associative). A constant
+ * integer exponent up to 16 is compiled into multiplications instead of a
+ * {@linkplain Math#pow(double, double)} call.</li>
+ * <li>Implicit multiplication, e.g., 2x, 2e^(-2x)sin(x)</li>
+ * <li>Absolute value, e.g., |x^3+x^2|</li>
+ * <li>Functions with double arguments in {@linkplain Math}, e.g., sin(x),
+ * pow(x,2), atan2(x,1), and in {@linkplain Equations}, e.g., heartbeat(x). The
+ * function 'ln' is an alias of 'log'.</li>
+ * </ul>
+ *
+ * @author dpark
+ *
+ */
+public class FormulaCompiler {
+	private final static String CALCULATION_INTERNAL_NAME = ICalculation.class.getName().replace('.', '/');
+	private final static String CLASS_NAME_PREFIX = FormulaCompiler.class.getPackage().getName().replace('.', '/')
+			+ "/CompiledFormula";
+	private final static AtomicInteger classSeq = new AtomicInteger();
+
+	private FormulaCompiler() {
+	}
+
+	/**
+	 * Compiles the specified formula into byte code. If byte code cannot be
+	 * defined in this JVM, then it falls back to an interpreted calculation.
+	 *
+	 * @param formula Formula, e.g., "y=x^3+x^2+1"
+	 * @return Compiled calculation
+	 * @throws IllegalArgumentException Thrown if the formula is invalid
+	 */
+	public static ICalculation compile(String formula) {
+		Node node = parse(formula);
+		try {
+			return defineClass(formula, node);
+		} catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+			return interpret(formula);
+		}
+	}
+
+	/**
+	 * Returns an interpreted calculation of the specified formula. The
+	 * interpreted calculation walks the constant-folded AST on each invocation.
+	 * It is mainly used for validating and benchmarking compiled formulas.
+	 *
+	 * @param formula Formula, e.g., "y=x^3+x^2+1"
+	 * @throws IllegalArgumentException Thrown if the formula is invalid
+	 */
+	public static ICalculation interpret(String formula) {
+		final Node node = parse(formula);
+		return new ICalculation() {
+			@Override
+			public double calculate(double x) {
+				return node.evaluate(x);
+			}
+
+			@Override
+			public String toString() {
+				return formula;
+			}
+		};
+	}
+
+	/**
+	 * Parses and constant-folds the specified formula.
+	 *
+	 * @param formula Formula, e.g., "y=x^3+x^2+1"
+	 * @return AST root node
+	 * @throws IllegalArgumentException Thrown if the formula is invalid
+	 */
+	static Node parse(String formula) {
+		if (formula == null || formula.trim().length() == 0) {
+			throw new IllegalArgumentException("Formula undefined");
+		}
+		Parser parser = new Parser(formula);
+		return parser.parseFormula().fold();
+	}
+
+	private static ICalculation defineClass(String formula, Node node) throws ReflectiveOperationException {
+		String className = CLASS_NAME_PREFIX + classSeq.incrementAndGet();
+		ClassFileWriter cw = new ClassFileWriter(className, "java/lang/Object", CALCULATION_INTERNAL_NAME);
+
+		// Default constructor
+		ClassFileWriter.Code init = new ClassFileWriter.Code();
+		init.op(ClassFileWriter.ALOAD_0)
+				.op(ClassFileWriter.INVOKESPECIAL, cw.methodRef("java/lang/Object", "<init>", "()V"))
+				.op(ClassFileWriter.RETURN);
+		cw.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", init.toByteArray(), 1, 1);
+
+		// double calculate(double)
+		ClassFileWriter.Code calculate = new ClassFileWriter.Code();
+		node.emit(cw, calculate);
+		calculate.op(ClassFileWriter.DRETURN);
+		cw.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL, "calculate", "(D)D",
+				calculate.toByteArray(), node.maxStack(), 3);
+
+		// String toString()
+		ClassFileWriter.Code toString = new ClassFileWriter.Code();
+		toString.ldc(cw.string(formula)).op(ClassFileWriter.ARETURN);
+		cw.addMethod(ClassFileWriter.ACC_PUBLIC, "toString", "()Ljava/lang/String;", toString.toByteArray(), 1, 1);
+
+		byte[] bytes = cw.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER);
+		Class<?> clazz = MethodHandles.lookup().defineClass(bytes);
+		return (ICalculation) clazz.getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * Returns the public static method that takes the specified number of double
+	 * arguments and returns double. It first searches {@linkplain Math} and then
+	 * {@linkplain Equations}.
+	 *
+	 * @param name     Function name
+	 * @param argCount Number of arguments
+	 * @return null if not found
+	 */
+	static Method findFunction(String name, int argCount) {
+		if (name.equals("ln")) {
+			name = "log";
+		}
+		Class<?>[] paramTypes = new Class<?>[argCount];
+		for (int i = 0; i < argCount; i++) {
+			paramTypes[i] = double.class;
+		}
+		for (Class<?> clazz : new Class<?>[] { Math.class, Equations.class }) {
+			try {
+				Method method = clazz.getMethod(name, paramTypes);
+				if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == double.class) {
+					return method;
+				}
+			} catch (NoSuchMethodException e) {
+				// try next
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Recursive descent parser.
+	 *
+	 * <pre>
+	 * formula := [lhs '='] expr
+	 * expr    := term (('+' | '-') term)*
+	 * term    := unary (('*' | '/' | '%') unary | implicit unary)*
+	 * unary   := ('-' | '+') unary | power
+	 * power   := primary ['^' unary]
+	 * primary := number | 'x' | 'pi' | 'e' | name '(' expr (',' expr)* ')' | '(' expr ')' | '|' expr '|'
+	 * </pre>
+	 */
+	static class Parser {
+		private final String formula;
+		private int pos;
+
+		Parser(String formula) {
+			this.formula = formula;
+		}
+
+		Node parseFormula() {
+			int index = formula.indexOf('=');
+			if (index >= 0) {
+				pos = index + 1;
+			}
+			Node node = parseExpr();
+			skipWhitespace();
+			if (pos < formula.length()) {
+				throw error("Unexpected character '" + formula.charAt(pos) + "'");
+			}
+			return node;
+		}
+
+		private Node parseExpr() {
+			Node node = parseTerm();
+			while (true) {
+				if (accept('+')) {
+					node = new Binary('+', node, parseTerm());
+				} else if (accept('-')) {
+					node = new Binary('-', node, parseTerm());
+				} else {
+					return node;
+				}
+			}
+		}
+
+		private Node parseTerm() {
+			Node node = parseUnary();
+			while (true) {
+				if (accept('*')) {
+					node = new Binary('*', node, parseUnary());
+				} else if (accept('/')) {
+					node = new Binary('/', node, parseUnary());
+				} else if (accept('%')) {
+					node = new Binary('%', node, parseUnary());
+				} else if (startsPrimary()) {
+					// implicit multiplication, e.g., 2x, 2sin(x), (x+1)(x-1)
+					node = new Binary('*', node, parseUnary());
+				} else {
+					return node;
+				}
+			}
+		}
+
+		private Node parseUnary() {
+			if (accept('-')) {
+				return new Negate(parseUnary());
+			} else if (accept('+')) {
+				return parseUnary();
+			}
+			return parsePower();
+		}
+
+		private Node parsePower() {
+			Node node = parsePrimary();
+			if (accept('^')) {
+				node = new Call(findFunction("pow", 2), "pow", node, parseUnary());
+			}
+			return node;
+		}
+
+		private Node parsePrimary() {
+			skipWhitespace();
+			if (pos >= formula.length()) {
+				throw error("Unexpected end of formula");
+			}
+			char c = formula.charAt(pos);
+			if (accept('(')) {
+				Node node = parseExpr();
+				expect(')');
+				return node;
+			} else if (accept('|')) {
+				Node node = parseExpr();
+				expect('|');
+				return new Call(findFunction("abs", 1), "abs", node);
+			} else if (Character.isDigit(c) || c == '.') {
+				return parseNumber();
+			} else if (Character.isLetter(c)) {
+				String name = parseName();
+				if (accept('(')) {
+					List<Node> args = new ArrayList<Node>(2);
+					args.add(parseExpr());
+					while (accept(',')) {
+						args.add(parseExpr());
+					}
+					expect(')');
+					Method method = findFunction(name, args.size());
+					if (method == null) {
+						throw error("Unknown function '" + name + "' with " + args.size() + " argument(s)");
+					}
+					return new Call(method, name, args.toArray(new Node[0]));
+				}
+				switch (name) {
+				case "x":
+					return new Variable();
+				case "pi":
+					return new Constant(Math.PI);
+				case "e":
+					return new Constant(Math.E);
+				default:
+					throw error("Unknown identifier '" + name + "'");
+				}
+			}
+			throw error("Unexpected character '" + c + "'");
+		}
+
+		private Node parseNumber() {
+			int start = pos;
+			while (pos < formula.length() && (Character.isDigit(formula.charAt(pos)) || formula.charAt(pos) == '.')) {
+				pos++;
+			}
+			// Exponent only if followed by a digit, i.e., "2e^x" is 2*e^x and "2e-3" is 0.002
+			if (pos < formula.length() && (formula.charAt(pos) == 'e' || formula.charAt(pos) == 'E')) {
+				int next = pos + 1;
+				if (next < formula.length() && (formula.charAt(next) == '+' || formula.charAt(next) == '-')) {
+					next++;
+				}
+				if (next < formula.length() && Character.isDigit(formula.charAt(next))) {
+					pos = next;
+					while (pos < formula.length() && Character.isDigit(formula.charAt(pos))) {
+						pos++;
+					}
+				}
+			}
+			String str = formula.substring(start, pos);
+			try {
+				return new Constant(Double.parseDouble(str));
+			} catch (NumberFormatException e) {
+				pos = start;
+				throw error("Invalid number '" + str + "'");
+			}
+		}
+
+		private String parseName() {
+			int start = pos;
+			while (pos < formula.length() && Character.isLetterOrDigit(formula.charAt(pos))) {
+				pos++;
+			}
+			return formula.substring(start, pos);
+		}
+
+		private boolean startsPrimary() {
+			skipWhitespace();
+			if (pos >= formula.length()) {
+				return false;
+			}
+			char c = formula.charAt(pos);
+			return c == '(' || c == '.' || Character.isLetterOrDigit(c);
+		}
+
+		private boolean accept(char c) {
+			skipWhitespace();
+			if (pos < formula.length() && formula.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(char c) {
+			if (accept(c) == false) {
+				throw error("Expected '" + c + "'");
+			}
+		}
+
+		private void skipWhitespace() {
+			while (pos < formula.length() && Character.isWhitespace(formula.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(
+					String.format("%s at position %d [formula=%s]", message, pos, formula));
+		}
+	}
+
+	/**
+	 * AST node.
+	 */
+	static abstract class Node {
+		/**
+		 * Evaluates this node for the specified x.
+		 */
+		abstract double evaluate(double x);
+
+		/**
+		 * Returns a constant-folded node.
+		 */
+		abstract Node fold();
+
+		/**
+		 * Emits byte code that leaves the double result on the operand stack.
+		 */
+		abstract void emit(ClassFileWriter cw, ClassFileWriter.Code code);
+
+		/**
+		 * Returns the max operand stack depth in slots required by
+		 * {@linkplain #emit(ClassFileWriter, ClassFileWriter.Code)}.
+		 */
+		abstract int maxStack();
+
+		boolean isConstant() {
+			return false;
+		}
+
+		boolean isConstant(double value) {
+			return false;
+		}
+	}
+
+	static class Constant extends Node {
+		final double value;
+
+		Constant(double value) {
+			this.value = value;
+		}
+
+		@Override
+		double evaluate(double x) {
+			return value;
+		}
+
+		@Override
+		Node fold() {
+			return this;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			long bits = Double.doubleToRawLongBits(value);
+			if (bits == 0L) {
+				code.op(ClassFileWriter.DCONST_0);
+			} else if (value == 1.0) {
+				code.op(ClassFileWriter.DCONST_1);
+			} else {
+				code.op(ClassFileWriter.LDC2_W, cw.doubleConstant(value));
+			}
+		}
+
+		@Override
+		int maxStack() {
+			return 2;
+		}
+
+		@Override
+		boolean isConstant() {
+			return true;
+		}
+
+		@Override
+		boolean isConstant(double value) {
+			return Double.compare(this.value, value) == 0;
+		}
+	}
+
+	static class Variable extends Node {
+		@Override
+		double evaluate(double x) {
+			return x;
+		}
+
+		@Override
+		Node fold() {
+			return this;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			code.op(ClassFileWriter.DLOAD_1);
+		}
+
+		@Override
+		int maxStack() {
+			return 2;
+		}
+	}
+
+	static class Negate extends Node {
+		final Node operand;
+
+		Negate(Node operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		double evaluate(double x) {
+			return -operand.evaluate(x);
+		}
+
+		@Override
+		Node fold() {
+			Node folded = operand.fold();
+			if (folded.isConstant()) {
+				return new Constant(-folded.evaluate(0));
+			} else if (folded instanceof Negate) {
+				return ((Negate) folded).operand;
+			}
+			return new Negate(folded);
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			operand.emit(cw, code);
+			code.op(ClassFileWriter.DNEG);
+		}
+
+		@Override
+		int maxStack() {
+			return operand.maxStack();
+		}
+	}
+
+	static class Binary extends Node {
+		final char operator;
+		final Node left;
+		final Node right;
+
+		Binary(char operator, Node left, Node right) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		double evaluate(double x) {
+			double a = left.evaluate(x);
+			double b = right.evaluate(x);
+			switch (operator) {
+			case '+':
+				return a + b;
+			case '-':
+				return a - b;
+			case '*':
+				return a * b;
+			case '/':
+				return a / b;
+			case '%':
+			default:
+				return a % b;
+			}
+		}
+
+		@Override
+		Node fold() {
+			Node l = left.fold();
+			Node r = right.fold();
+			Binary folded = new Binary(operator, l, r);
+			if (l.isConstant() && r.isConstant()) {
+				return new Constant(folded.evaluate(0));
+			}
+			// Identities that hold for all doubles including NaN and infinities
+			switch (operator) {
+			case '+':
+				if (r.isConstant(-0.0)) {
+					return l;
+				} else if (l.isConstant(-0.0)) {
+					return r;
+				}
+				break;
+			case '-':
+				if (r.isConstant(0.0)) {
+					return l;
+				}
+				break;
+			case '*':
+				if (r.isConstant(1.0)) {
+					return l;
+				} else if (l.isConstant(1.0)) {
+					return r;
+				} else if (r.isConstant(-1.0)) {
+					return new Negate(l);
+				} else if (l.isConstant(-1.0)) {
+					return new Negate(r);
+				}
+				break;
+			case '/':
+				if (r.isConstant(1.0)) {
+					return l;
+				}
+				break;
+			default:
+				break;
+			}
+			return folded;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			left.emit(cw, code);
+			right.emit(cw, code);
+			switch (operator) {
+			case '+':
+				code.op(ClassFileWriter.DADD);
+				break;
+			case '-':
+				code.op(ClassFileWriter.DSUB);
+				break;
+			case '*':
+				code.op(ClassFileWriter.DMUL);
+				break;
+			case '/':
+				code.op(ClassFileWriter.DDIV);
+				break;
+			case '%':
+			default:
+				code.op(ClassFileWriter.DREM);
+				break;
+			}
+		}
+
+		@Override
+		int maxStack() {
+			return Math.max(left.maxStack(), 2 + right.maxStack());
+		}
+	}
+
+	static class Call extends Node {
+		final Method method;
+		final String name;
+		final Node[] args;
+
+		Call(Method method, String name, Node... args) {
+			this.method = method;
+			this.name = name;
+			this.args = args;
+		}
+
+		@Override
+		double evaluate(double x) {
+			Object[] values = new Object[args.length];
+			for (int i = 0; i < args.length; i++) {
+				values[i] = args[i].evaluate(x);
+			}
+			try {
+				return (double) method.invoke(null, values);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		Node fold() {
+			Node[] folded = new Node[args.length];
+			boolean isConstant = true;
+			for (int i = 0; i < args.length; i++) {
+				folded[i] = args[i].fold();
+				isConstant &= folded[i].isConstant();
+			}
+			Call call = new Call(method, name, folded);
+			if (isConstant) {
+				return new Constant(call.evaluate(0));
+			}
+			if (name.equals("pow")) {
+				// x^2 -> x*x
+				if (folded[1].isConstant(2.0)) {
+					return new Square(folded[0]);
+				}
+				// x^n -> x*...*x for small integer n
+				if (folded[1].isConstant()) {
+					double exponent = folded[1].evaluate(0);
+					if (exponent == 0) {
+						// Math.pow() returns 1 for all x including NaN
+						return new Constant(1);
+					} else if (exponent == 1) {
+						return folded[0];
+					} else if (exponent >= 3 && exponent <= Power.MAX_EXPONENT && exponent == (int) exponent) {
+						return new Power(folded[0], (int) exponent);
+					}
+				}
+				// e^x -> exp(x)
+				if (folded[0].isConstant(Math.E)) {
+					return new Call(findFunction("exp", 1), "exp", folded[1]);
+				}
+			}
+			return call;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			StringBuilder descriptor = new StringBuilder(args.length * 2 + 3);
+			descriptor.append('(');
+			for (Node arg : args) {
+				arg.emit(cw, code);
+				descriptor.append('D');
+			}
+			descriptor.append(")D");
+			String owner = method.getDeclaringClass().getName().replace('.', '/');
+			code.op(ClassFileWriter.INVOKESTATIC, cw.methodRef(owner, method.getName(), descriptor.toString()));
+		}
+
+		@Override
+		int maxStack() {
+			int max = 2;
+			for (int i = 0; i < args.length; i++) {
+				max = Math.max(max, 2 * i + args[i].maxStack());
+			}
+			return max;
+		}
+	}
+
+	static class Square extends Node {
+		final Node operand;
+
+		Square(Node operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		double evaluate(double x) {
+			double value = operand.evaluate(x);
+			return value * value;
+		}
+
+		@Override
+		Node fold() {
+			return this;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			operand.emit(cw, code);
+			code.op(ClassFileWriter.DUP2);
+			code.op(ClassFileWriter.DMUL);
+		}
+
+		@Override
+		int maxStack() {
+			return Math.max(operand.maxStack(), 4);
+		}
+	}
+
+	/**
+	 * Integer power evaluated by square-and-multiply, e.g., x^10 takes four
+	 * multiplications instead of a {@linkplain Math#pow(double, double)} call.
+	 */
+	static class Power extends Node {
+		final static int MAX_EXPONENT = 16;
+
+		final Node operand;
+		final int exponent;
+
+		Power(Node operand, int exponent) {
+			this.operand = operand;
+			this.exponent = exponent;
+		}
+
+		@Override
+		double evaluate(double x) {
+			double base = operand.evaluate(x);
+			double result = base;
+			for (int bit = Integer.highestOneBit(exponent) >> 1; bit > 0; bit >>= 1) {
+				result *= result;
+				if ((exponent & bit) != 0) {
+					result *= base;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		Node fold() {
+			return this;
+		}
+
+		@Override
+		void emit(ClassFileWriter cw, ClassFileWriter.Code code) {
+			// The base stays under the result: [base, result]
+			operand.emit(cw, code);
+			code.op(ClassFileWriter.DUP2);
+			for (int bit = Integer.highestOneBit(exponent) >> 1; bit > 0; bit >>= 1) {
+				code.op(ClassFileWriter.DUP2).op(ClassFileWriter.DMUL);
+				if ((exponent & bit) != 0) {
+					// [base, result] -> [result, base] -> [base, result, base]
+					code.op(ClassFileWriter.DUP2_X2).op(ClassFileWriter.POP2);
+					code.op(ClassFileWriter.DUP2_X2).op(ClassFileWriter.DMUL);
+				}
+			}
+			// [base, result] -> [result]
+			code.op(ClassFileWriter.DUP2_X2).op(ClassFileWriter.POP2).op(ClassFileWriter.POP2);
+		}
+
+		@Override
+		int maxStack() {
+			return Math.max(operand.maxStack(), 6);
+		}
+	}
+}
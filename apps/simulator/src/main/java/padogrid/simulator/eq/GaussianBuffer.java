@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.util.SplittableRandom;
+
+/**
+ * {@linkplain GaussianBuffer} hands out standard normal variates from a block
+ * that is refilled in bulk by the ziggurat method (Marsaglia and Tsang, 2000)
+ * with 128 layers. About 99% of the variates take one 64-bit random number, a
+ * table lookup and a multiply. The layer index and the variate are taken from
+ * independent bits of the random number.
+ * <p>
+ * {@linkplain GaussianBuffer} is not thread-safe. Each thread should use its
+ * own instance.
+ *
+ * @author dpark
+ *
+ */
+public class GaussianBuffer {
+	public final static int DEFAULT_BLOCK_SIZE = 4096;
+
+	private final static int LAYERS = 128;
+	// Rightmost layer x-coordinate and area of each layer
+	private final static double R = 3.442619855899;
+	private final static double V = 9.91256303526217e-3;
+	private final static double M1 = 2147483648.0;
+
+	private final static long[] KN = new long[LAYERS];
+	private final static double[] WN = new double[LAYERS];
+	private final static double[] FN = new double[LAYERS];
+
+	static {
+		double dn = R;
+		double tn = dn;
+		double q = V / Math.exp(-0.5 * dn * dn);
+		KN[0] = (long) ((dn / q) * M1);
+		KN[1] = 0;
+		WN[0] = q / M1;
+		WN[LAYERS - 1] = dn / M1;
+		FN[0] = 1.0;
+		FN[LAYERS - 1] = Math.exp(-0.5 * dn * dn);
+		for (int i = LAYERS - 2; i >= 1; i--) {
+			dn = Math.sqrt(-2 * Math.log(V / dn + Math.exp(-0.5 * dn * dn)));
+			KN[i + 1] = (long) ((dn / tn) * M1);
+			tn = dn;
+			FN[i] = Math.exp(-0.5 * dn * dn);
+			WN[i] = dn / M1;
+		}
+	}
+
+	private final SplittableRandom random;
+	private final double[] block;
+	private int index;
+
+	/**
+	 * Creates a buffer with the default block size.
+	 *
+	 * @param random Uniform random generator
+	 */
+	public GaussianBuffer(SplittableRandom random) {
+		this(random, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a buffer with the specified block size.
+	 *
+	 * @param random    Uniform random generator
+	 * @param blockSize Number of variates generated per refill
+	 */
+	public GaussianBuffer(SplittableRandom random, int blockSize) {
+		this.random = random;
+		this.block = new double[Math.max(1, blockSize)];
+		this.index = block.length;
+	}
+
+	/**
+	 * Returns the next standard normal variate.
+	 */
+	public double next() {
+		if (index == block.length) {
+			fill(block, 0, block.length);
+			index = 0;
+		}
+		return block[index++];
+	}
+
+	/**
+	 * Fills the specified array with standard normal variates. Large requests are
+	 * generated directly into the array without going through the block.
+	 *
+	 * @param values Output array
+	 * @param len    Number of variates
+	 */
+	public void next(double[] values, int len) {
+		int i = 0;
+		while (i < len && index < block.length) {
+			values[i++] = block[index++];
+		}
+		if (i < len) {
+			fill(values, i, len);
+		}
+	}
+
+	/**
+	 * Generates variates into values[from, to).
+	 */
+	private void fill(double[] values, int from, int to) {
+		final SplittableRandom random = this.random;
+		for (int i = from; i < to; i++) {
+			long bits = random.nextLong();
+			int iz = (int) bits & (LAYERS - 1);
+			int hz = (int) (bits >> 32);
+			if (Math.abs((long) hz) < KN[iz]) {
+				values[i] = hz * WN[iz];
+			} else {
+				values[i] = nfix(hz, iz);
+			}
+		}
+	}
+
+	/**
+	 * Handles the rare case of a variate outside the rectangle, i.e., the wedges
+	 * and the tail.
+	 */
+	private double nfix(int hz, int iz) {
+		for (;;) {
+			double x = hz * WN[iz];
+			if (iz == 0) {
+				// Tail beyond R
+				double y;
+				do {
+					x = -Math.log(uniform()) / R;
+					y = -Math.log(uniform());
+				} while (y + y < x * x);
+				return hz > 0 ? R + x : -R - x;
+			}
+			if (FN[iz] + uniform() * (FN[iz - 1] - FN[iz]) < Math.exp(-0.5 * x * x)) {
+				return x;
+			}
+			long bits = random.nextLong();
+			iz = (int) bits & (LAYERS - 1);
+			hz = (int) (bits >> 32);
+			if (Math.abs((long) hz) < KN[iz]) {
+				return hz * WN[iz];
+			}
+		}
+	}
+
+	/**
+	 * Returns the standard normal cumulative distribution function value of the
+	 * specified variate in [0, 1). The complementary error function is
+	 * approximated with a fractional error less than 1.2e-7 (Numerical Recipes,
+	 * erfcc).
+	 *
+	 * @param z Standard normal variate
+	 */
+	public static double cdf(double z) {
+		double x = -z / Math.sqrt(2);
+		double ax = Math.abs(x);
+		double t = 1 / (1 + 0.5 * ax);
+		double erfc = t * Math.exp(-ax * ax - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+				+ t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223
+						+ t * 0.17087277)))))))));
+		double p = 0.5 * (x >= 0 ? erfc : 2 - erfc);
+		// Exclude 1 to match Random.nextDouble()
+		return p < 1 ? p : Math.nextDown(1.0);
+	}
+
+	/**
+	 * Returns a uniform variate in (0, 1].
+	 */
+	private double uniform() {
+		return 1.0 - random.nextDouble();
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import padogrid.simulator.ICalculation;
+
+/**
+ * {@linkplain LookupTable} samples a function once over the domain [min, max]
+ * into a primitive table and answers calculations by linear or cubic
+ * (Catmull-Rom) interpolation. Values outside the domain are delegated to the
+ * sampled function.
+ * <p>
+ * The max interpolation error is estimated at construction time by comparing
+ * the interpolated values against the function at points between the samples.
+ * If the samples are aligned to the base values of the equation, i.e., the step
+ * is the equation's base spread, then the ticks land on the samples and the
+ * table returns the function values to within rounding error.
+ *
+ * @author dpark
+ *
+ */
+public class LookupTable implements ICalculation {
+
+	/**
+	 * Interpolation method between samples.
+	 */
+	public static enum Interpolation {
+		LINEAR, CUBIC
+	}
+
+	/**
+	 * Max number of samples, i.e., 8 MB of doubles
+	 */
+	public final static int MAX_RESOLUTION = 1 << 20;
+
+	// Number of points between samples checked for the error estimate
+	private final static int ERROR_CHECK_POINTS = 4;
+
+	private final ICalculation function;
+	private final double min;
+	private final double max;
+	private final double step;
+	private final double inverseStep;
+	private final double[] values;
+	private final boolean isCubic;
+	private final double maxError;
+
+	/**
+	 * Creates a lookup table with samples at min + k * step for k in [0,
+	 * resolution).
+	 *
+	 * @param function      Function to sample
+	 * @param min           Min domain value
+	 * @param step          Distance between samples
+	 * @param resolution    Number of samples
+	 * @param interpolation Interpolation method. If null, then LINEAR.
+	 * @throws IllegalArgumentException Thrown if the step or resolution is
+	 *                                  invalid
+	 */
+	private LookupTable(ICalculation function, double min, double step, int resolution, Interpolation interpolation) {
+		if (resolution < 2) {
+			throw new IllegalArgumentException("Resolution must be greater than 1 [resolution=" + resolution + "]");
+		}
+		if ((step > 0) == false || Double.isInfinite(step)) {
+			throw new IllegalArgumentException("Invalid step [step=" + step + "]");
+		}
+		this.function = function;
+		this.min = min;
+		this.step = step;
+		this.inverseStep = 1 / step;
+		this.max = min + step * (resolution - 1);
+		this.isCubic = interpolation == Interpolation.CUBIC;
+		this.values = new double[resolution];
+		for (int i = 0; i < resolution; i++) {
+			values[i] = function.calculate(min + step * i);
+		}
+		this.maxError = estimateMaxError();
+	}
+
+	/**
+	 * Creates a lookup table with the specified number of samples evenly spread
+	 * over [min, max].
+	 *
+	 * @param function      Function to sample
+	 * @param min           Min domain value
+	 * @param max           Max domain value
+	 * @param resolution    Number of samples. Must be greater than 1 and not
+	 *                      greater than {@linkplain #MAX_RESOLUTION}.
+	 * @param interpolation Interpolation method. If null, then LINEAR.
+	 * @throws IllegalArgumentException Thrown if the domain or resolution is
+	 *                                  invalid
+	 */
+	public static LookupTable create(ICalculation function, double min, double max, int resolution,
+			Interpolation interpolation) {
+		if (max <= min) {
+			throw new IllegalArgumentException(String.format("Invalid domain [min=%f, max=%f]", min, max));
+		}
+		if (resolution < 2) {
+			throw new IllegalArgumentException("Resolution must be greater than 1 [resolution=" + resolution + "]");
+		}
+		if (resolution > MAX_RESOLUTION) {
+			throw new IllegalArgumentException(String.format("Resolution must not be greater than %d [resolution=%d]",
+					MAX_RESOLUTION, resolution));
+		}
+		return new LookupTable(function, min, (max - min) / (resolution - 1), resolution, interpolation);
+	}
+
+	/**
+	 * Creates a lookup table aligned to the base values of an equation, i.e., the
+	 * samples are at minBase + k * baseSpread up to maxBase. Ticks that start at
+	 * minBase land on the samples. The number of samples must not be greater than
+	 * {@linkplain #MAX_RESOLUTION}.
+	 *
+	 * @param function      Function to sample
+	 * @param minBase       Min base value
+	 * @param maxBase       Max base value
+	 * @param baseSpread    Base spread. Must be greater than 0.
+	 * @param interpolation Interpolation method. If null, then LINEAR.
+	 * @throws IllegalArgumentException Thrown if the domain or base spread is
+	 *                                  invalid
+	 */
+	public static LookupTable createAligned(ICalculation function, double minBase, double maxBase,
+			double baseSpread, Interpolation interpolation) {
+		if (maxBase <= minBase) {
+			throw new IllegalArgumentException(String.format("Invalid domain [min=%f, max=%f]", minBase, maxBase));
+		}
+		if (baseSpread <= 0 || Double.isFinite(baseSpread) == false) {
+			throw new IllegalArgumentException("Base spread must be greater than 0 [baseSpread=" + baseSpread + "]");
+		}
+		double count = Math.floor((maxBase - minBase) / baseSpread + 1e-9) + 1;
+		if (count > MAX_RESOLUTION) {
+			throw new IllegalArgumentException(String.format(
+					"Too many samples. Must not be greater than %d [count=%.0f, baseSpread=%g]", MAX_RESOLUTION, count,
+					baseSpread));
+		}
+		return new LookupTable(function, minBase, baseSpread, (int) count, interpolation);
+	}
+
+	@Override
+	public double calculate(double x) {
+		double pos = (x - min) * inverseStep;
+		final double[] v = values;
+		int last = v.length - 1;
+		// Negated to catch NaN
+		if ((pos >= 0 && pos <= last) == false) {
+			return function.calculate(x);
+		}
+		int i = (int) pos;
+		if (i == last) {
+			i--;
+		}
+		double t = pos - i;
+		double p1 = v[i];
+		double p2 = v[i + 1];
+		if (isCubic == false) {
+			return p1 + t * (p2 - p1);
+		}
+		// Catmull-Rom with linear extrapolation at both ends
+		double p0 = i > 0 ? v[i - 1] : 2 * p1 - p2;
+		double p3 = i + 2 <= last ? v[i + 2] : 2 * p2 - p1;
+		return p1 + 0.5 * t
+				* (p2 - p0 + t * (2 * p0 - 5 * p1 + 4 * p2 - p3 + t * (3 * (p1 - p2) + p3 - p0)));
+	}
+
+	/**
+	 * Overridden so that the loop is specific to this class and
+	 * {@linkplain #calculate(double)} is inlined.
+	 */
+	@Override
+	public void calculate(double[] baseValues, double[] values, int len) {
+		for (int i = 0; i < len; i++) {
+			values[i] = calculate(baseValues[i]);
+		}
+	}
+
+	private double estimateMaxError() {
+		double error = 0;
+		for (int i = 0; i < values.length - 1; i++) {
+			for (int j = 1; j <= ERROR_CHECK_POINTS; j++) {
+				double x = min + step * (i + (double) j / (ERROR_CHECK_POINTS + 1));
+				double diff = Math.abs(calculate(x) - function.calculate(x));
+				// NaN, i.e., undefined function values, are ignored
+				if (diff > error) {
+					error = diff;
+				}
+			}
+		}
+		return error;
+	}
+
+	/**
+	 * Returns the estimated max absolute interpolation error within the domain.
+	 */
+	public double getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * Returns the number of samples.
+	 */
+	public int getResolution() {
+		return values.length;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getStep() {
+		return step;
+	}
+
+	@Override
+	public String toString() {
+		return "LookupTable [function=" + function + ", min=" + min + ", max=" + max + ", resolution=" + values.length
+				+ ", interpolation=" + (isCubic ? Interpolation.CUBIC : Interpolation.LINEAR) + ", maxError="
+				+ maxError + "]";
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.util.Arrays;
+
+import padogrid.simulator.ICalculation;
+
+/**
+ * {@linkplain Polynomial} evaluates a polynomial with Horner's method. The
+ * coefficients are ordered from the highest degree to the constant term, i.e.,
+ * as the polynomial is written. For example, y=x^3+x^2+1 is
+ * {@code new Polynomial(1, 1, 0, 1)}.
+ * <p>
+ * A polynomial of degree n takes n multiply-adds per evaluation. Each step is
+ * performed by {@linkplain Math#fma(double, double, double)}, which is a
+ * single instruction on CPUs that support FMA, i.e., x86-64 since Haswell and
+ * aarch64. Set the system property {@value #PROPERTY_FMA} to "false" on CPUs
+ * without FMA support, where {@linkplain Math#fma(double, double, double)} is
+ * very slow. Default: "true"
+ *
+ * @author dpark
+ *
+ */
+public class Polynomial implements ICalculation {
+	public final static String PROPERTY_FMA = "padogrid.simulator.fma";
+
+	final static boolean IS_FMA = Boolean.parseBoolean(System.getProperty(PROPERTY_FMA, "true"));
+
+	private final double[] coefficients;
+
+	/**
+	 * Creates a polynomial with the specified coefficients.
+	 *
+	 * @param coefficients Coefficients from the highest degree to the constant
+	 *                     term. The array is copied.
+	 * @throws IllegalArgumentException Thrown if coefficients are undefined
+	 */
+	public Polynomial(double... coefficients) {
+		if (coefficients == null || coefficients.length == 0) {
+			throw new IllegalArgumentException("Polynomial coefficients undefined");
+		}
+		this.coefficients = coefficients.clone();
+	}
+
+	/**
+	 * Returns true if the multiply-add steps are performed by
+	 * {@linkplain Math#fma(double, double, double)}.
+	 */
+	public static boolean isFma() {
+		return IS_FMA;
+	}
+
+	/**
+	 * Returns the degree of this polynomial.
+	 */
+	public int getDegree() {
+		return coefficients.length - 1;
+	}
+
+	/**
+	 * Returns a copy of the coefficients from the highest degree to the constant
+	 * term.
+	 */
+	public double[] getCoefficients() {
+		return coefficients.clone();
+	}
+
+	@Override
+	public double calculate(double x) {
+		final double[] c = coefficients;
+		double y = c[0];
+		if (IS_FMA) {
+			for (int i = 1; i < c.length; i++) {
+				y = Math.fma(y, x, c[i]);
+			}
+		} else {
+			for (int i = 1; i < c.length; i++) {
+				y = y * x + c[i];
+			}
+		}
+		return y;
+	}
+
+	/**
+	 * Evaluates the base values one coefficient at a time across the whole array
+	 * so that the inner loop is a plain multiply-add over primitive arrays, which
+	 * the JIT vectorizes.
+	 */
+	@Override
+	public void calculate(double[] baseValues, double[] values, int len) {
+		final double[] c = coefficients;
+		if (baseValues == values) {
+			// In place. The base values must be kept until the last step.
+			for (int i = 0; i < len; i++) {
+				values[i] = calculate(baseValues[i]);
+			}
+			return;
+		}
+		final double c0 = c[0];
+		for (int i = 0; i < len; i++) {
+			values[i] = c0;
+		}
+		for (int k = 1; k < c.length; k++) {
+			final double ck = c[k];
+			if (IS_FMA) {
+				for (int i = 0; i < len; i++) {
+					values[i] = Math.fma(values[i], baseValues[i], ck);
+				}
+			} else {
+				for (int i = 0; i < len; i++) {
+					values[i] = values[i] * baseValues[i] + ck;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the formula of this polynomial, e.g., "y=x^3+x^2+1".
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder(coefficients.length * 8);
+		buffer.append("y=");
+		int degree = getDegree();
+		boolean isFirst = true;
+		for (int i = 0; i < coefficients.length; i++) {
+			double c = coefficients[i];
+			int power = degree - i;
+			if (c == 0 && (power > 0 || isFirst == false)) {
+				continue;
+			}
+			if (isFirst == false) {
+				buffer.append(c < 0 ? '-' : '+');
+			} else if (c < 0) {
+				buffer.append('-');
+			}
+			c = Math.abs(c);
+			if (c != 1 || power == 0) {
+				buffer.append(c == (long) c ? Long.toString((long) c) : Double.toString(c));
+			}
+			if (power > 0) {
+				buffer.append('x');
+				if (power > 1) {
+					buffer.append('^').append(power);
+				}
+			}
+			isFirst = false;
+		}
+		return buffer.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj instanceof Polynomial == false) {
+			return false;
+		}
+		return Arrays.equals(coefficients, ((Polynomial) obj).coefficients);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(coefficients);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import padogrid.simulator.Equation.EquationType;
+
+/**
+ * {@linkplain StochasticProcess} advances the state of a stochastic process by
+ * one time step dt given a standard normal variate z. The processes are
+ * discretized exactly so that the step size does not bias the distribution.
+ * <ul>
+ * <li>GBM - Geometric Brownian motion. x' = x * exp((drift - volatility^2/2) *
+ * dt + volatility * sqrt(dt) * z)</li>
+ * <li>OU - Ornstein-Uhlenbeck (mean-reverting). x' = mean + (x - mean) *
+ * exp(-meanReversion * dt) + volatility * sqrt((1 - exp(-2 * meanReversion *
+ * dt)) / (2 * meanReversion)) * z</li>
+ * <li>RANDOM_WALK - Gaussian random walk with drift, reflected at the bounds if
+ * the bounds are defined. x' = x + drift * dt + volatility * sqrt(dt) * z</li>
+ * </ul>
+ * The step coefficients are computed once at construction. Instances are
+ * immutable and thread-safe.
+ *
+ * @author dpark
+ *
+ */
+public class StochasticProcess {
+	private final EquationType type;
+	// x' = a + b * x + c * z (OU, RANDOM_WALK) or x' = x * exp(a + c * z) (GBM)
+	private final double a;
+	private final double b;
+	private final double c;
+	private final double lowerBound;
+	private final double upperBound;
+	private final boolean isBounded;
+
+	/**
+	 * Creates a stochastic process.
+	 *
+	 * @param type          GBM, OU or RANDOM_WALK
+	 * @param drift         Drift per unit time (GBM, RANDOM_WALK)
+	 * @param volatility    Volatility per square root of unit time
+	 * @param meanReversion Mean reversion rate per unit time (OU)
+	 * @param mean          Long-term mean (OU)
+	 * @param dt            Time step per tick
+	 * @param lowerBound    Lower bound (RANDOM_WALK)
+	 * @param upperBound    Upper bound (RANDOM_WALK). The walk is unbounded if
+	 *                      upperBound &lt;= lowerBound.
+	 * @throws IllegalArgumentException Thrown if the type is not stochastic or the
+	 *                                  parameters are invalid
+	 */
+	public StochasticProcess(EquationType type, double drift, double volatility, double meanReversion,
+			double mean, double dt, double lowerBound, double upperBound) {
+		if (type == null || type.isStochastic() == false) {
+			throw new IllegalArgumentException("Not a stochastic process type [type=" + type + "]");
+		}
+		if ((dt > 0) == false) {
+			throw new IllegalArgumentException("dt must be positive [dt=" + dt + "]");
+		}
+		if ((volatility >= 0) == false) {
+			throw new IllegalArgumentException("volatility must not be negative [volatility=" + volatility + "]");
+		}
+		this.type = type;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.isBounded = type == EquationType.RANDOM_WALK && upperBound > lowerBound;
+		switch (type) {
+		case GBM:
+			this.a = (drift - 0.5 * volatility * volatility) * dt;
+			this.b = 1;
+			this.c = volatility * Math.sqrt(dt);
+			break;
+		case OU:
+			if ((meanReversion >= 0) == false) {
+				throw new IllegalArgumentException(
+						"meanReversion must not be negative [meanReversion=" + meanReversion + "]");
+			}
+			if (meanReversion == 0) {
+				// Degenerates to a driftless random walk
+				this.a = 0;
+				this.b = 1;
+				this.c = volatility * Math.sqrt(dt);
+			} else {
+				double decay = Math.exp(-meanReversion * dt);
+				this.a = mean * (1 - decay);
+				this.b = decay;
+				this.c = volatility * Math.sqrt((1 - decay * decay) / (2 * meanReversion));
+			}
+			break;
+		case RANDOM_WALK:
+		default:
+			this.a = drift * dt;
+			this.b = 1;
+			this.c = volatility * Math.sqrt(dt);
+			break;
+		}
+	}
+
+	/**
+	 * Returns the next state.
+	 *
+	 * @param x Current state
+	 * @param z Standard normal variate
+	 */
+	public double next(double x, double z) {
+		if (type == EquationType.GBM) {
+			return x * Math.exp(a + c * z);
+		}
+		x = a + b * x + c * z;
+		return isBounded ? reflect(x) : x;
+	}
+
+	/**
+	 * Advances the specified states in place by one step.
+	 *
+	 * @param x   States
+	 * @param z   Standard normal variates, one per state
+	 * @param len Number of states
+	 */
+	public void next(double[] x, double[] z, int len) {
+		final double a = this.a;
+		final double b = this.b;
+		final double c = this.c;
+		if (type == EquationType.GBM) {
+			for (int i = 0; i < len; i++) {
+				x[i] *= Math.exp(a + c * z[i]);
+			}
+		} else {
+			for (int i = 0; i < len; i++) {
+				x[i] = a + b * x[i] + c * z[i];
+			}
+			if (isBounded) {
+				for (int i = 0; i < len; i++) {
+					x[i] = reflect(x[i]);
+				}
+			}
+		}
+	}
+
+	private double reflect(double x) {
+		if (x > upperBound) {
+			x = 2 * upperBound - x;
+		} else if (x < lowerBound) {
+			x = 2 * lowerBound - x;
+		}
+		// A step larger than the range cannot be reflected back in
+		return x < lowerBound ? lowerBound : x > upperBound ? upperBound : x;
+	}
+
+	public EquationType getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return "StochasticProcess [type=" + type + ", a=" + a + ", b=" + b + ", c=" + c + ", lowerBound=" + lowerBound
+				+ ", upperBound=" + upperBound + ", isBounded=" + isBounded + "]";
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import padogrid.simulator.ICalculation;
+
+/**
+ * {@linkplain VectorSupport} binds calculations to their JDK Vector API
+ * implementations if available. The Vector API implementations are in
+ * src/main/vector and are compiled only by the "vector" Maven profile, which
+ * requires JDK 17+, i.e., {@code mvn package -Pvector}. At runtime, the JVM
+ * must also be started with {@code --add-modules jdk.incubator.vector}.
+ * <p>
+ * If either is missing, or the system property {@value #PROPERTY_VECTOR} is
+ * "false", then the calculations are returned as is and their batch
+ * evaluation falls back to the scalar loops.
+ *
+ * @author dpark
+ *
+ */
+public final class VectorSupport {
+	public final static String PROPERTY_VECTOR = "padogrid.simulator.vector";
+
+	private final static String PROVIDER_CLASS_NAME = "padogrid.simulator.eq.vector.VectorCalculations";
+
+	// (String, ICalculation)ICalculation
+	private final static MethodHandle VECTORIZE = findProvider();
+
+	private VectorSupport() {
+	}
+
+	private static MethodHandle findProvider() {
+		if (Boolean.parseBoolean(System.getProperty(PROPERTY_VECTOR, "true")) == false) {
+			return null;
+		}
+		try {
+			// Initialize to fail here if jdk.incubator.vector is not resolved
+			Class<?> clazz = Class.forName(PROVIDER_CLASS_NAME, true, VectorSupport.class.getClassLoader());
+			return MethodHandles.publicLookup().findStatic(clazz, "vectorize",
+					MethodType.methodType(ICalculation.class, String.class, ICalculation.class));
+		} catch (Throwable e) {
+			// Not built with the vector profile or the module is not added
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the Vector API implementations are available.
+	 */
+	public static boolean isAvailable() {
+		return VECTORIZE != null;
+	}
+
+	/**
+	 * Returns the Vector API implementation of the specified calculation.
+	 *
+	 * @param functionName Fully qualified function name of the calculation, e.g.,
+	 *                     "padogrid.simulator.eq.Equations.circle". If null, then
+	 *                     only the calculation type, e.g.,
+	 *                     {@linkplain Polynomial}, is considered.
+	 * @param calculation  Scalar calculation
+	 * @return The specified calculation if there is no Vector API implementation
+	 */
+	public static ICalculation vectorize(String functionName, ICalculation calculation) {
+		if (VECTORIZE == null || calculation == null) {
+			return calculation;
+		}
+		try {
+			ICalculation vectorized = (ICalculation) VECTORIZE.invokeExact(functionName, calculation);
+			return vectorized == null ? calculation : vectorized;
+		} catch (Throwable e) {
+			return calculation;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2023-2024 Netcrest Technologies, LLC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package padogrid.simulator.eq.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import padogrid.simulator.ICalculation;
+import padogrid.simulator.eq.Polynomial;
+
+/**
+ * {@linkplain VectorCalculations} provides the JDK Vector API implementations
+ * of the built-in {@linkplain padogrid.simulator.eq.Equations} and
+ * {@linkplain Polynomial}. It is compiled only by the "vector" Maven profile
+ * and loaded reflectively by {@linkplain padogrid.simulator.eq.VectorSupport}.
+ * <p>
+ * The scalar {@linkplain ICalculation#calculate(double)} and the batch tail
+ * that does not fill a vector are delegated to the scalar calculation. The
+ * transcendental lanewise operations, i.e., EXP and SIN, may differ from
+ * {@linkplain Math} in the last ulp.
+ *
+ * @author dpark
+ *
+ */
+public final class VectorCalculations {
+	final static VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private final static String EQUATIONS_PREFIX = "padogrid.simulator.eq.Equations.";
+
+	private VectorCalculations() {
+	}
+
+	/**
+	 * Returns the Vector API implementation of the specified calculation.
+	 *
+	 * @param functionName Fully qualified function name. May be null.
+	 * @param calculation  Scalar calculation
+	 * @return null if there is no Vector API implementation
+	 */
+	public static ICalculation vectorize(String functionName, ICalculation calculation) {
+		if (calculation instanceof Polynomial) {
+			return new VectorPolynomial((Polynomial) calculation, false);
+		}
+		if (functionName == null || functionName.startsWith(EQUATIONS_PREFIX) == false) {
+			return null;
+		}
+		switch (functionName.substring(EQUATIONS_PREFIX.length())) {
+		case "circle":
+			return new VectorFunction(Function.CIRCLE, calculation);
+		case "decay":
+			return new VectorFunction(Function.DECAY, calculation);
+		case "expDecay":
+			return new VectorFunction(Function.EXP_DECAY, calculation);
+		case "dampedSineWave":
+			return new VectorFunction(Function.DAMPED_SINE_WAVE, calculation);
+		case "heartbeat":
+			return new VectorFunction(Function.HEARTBEAT, calculation);
+		case "cubic3":
+			return new VectorPolynomial(new Polynomial(1, 1, 0, 0), true);
+		default:
+			return null;
+		}
+	}
+
+	static enum Function {
+		CIRCLE, DECAY, EXP_DECAY, DAMPED_SINE_WAVE, HEARTBEAT
+	}
+
+	/**
+	 * {@linkplain VectorFunction} evaluates one of the built-in functions over
+	 * full vectors and the remaining tail with the scalar calculation. All
+	 * functions share this one class so that the batch loop stays monomorphic,
+	 * which the JIT requires to keep the vectors in registers.
+	 */
+	final static class VectorFunction implements ICalculation {
+		private final Function function;
+		private final ICalculation scalar;
+
+		VectorFunction(Function function, ICalculation scalar) {
+			this.function = function;
+			this.scalar = scalar;
+		}
+
+		@Override
+		public double calculate(double baseValue) {
+			return scalar.calculate(baseValue);
+		}
+
+		@Override
+		public void calculate(double[] baseValues, double[] values, int len) {
+			int bound = SPECIES.loopBound(len);
+			int i = 0;
+			for (; i < bound; i += SPECIES.length()) {
+				calculate(DoubleVector.fromArray(SPECIES, baseValues, i)).intoArray(values, i);
+			}
+			for (; i < len; i++) {
+				values[i] = scalar.calculate(baseValues[i]);
+			}
+		}
+
+		private DoubleVector calculate(DoubleVector x) {
+			switch (function) {
+			case CIRCLE:
+				return x.mul(x).neg().add(1).lanewise(VectorOperators.SQRT);
+			case DECAY:
+				return x.neg().div(5).lanewise(VectorOperators.EXP);
+			case EXP_DECAY:
+				return x.neg().lanewise(VectorOperators.EXP);
+			case DAMPED_SINE_WAVE:
+				DoubleVector decay = x.mul(-2).lanewise(VectorOperators.EXP).mul(2);
+				return decay.mul(x.mul(2 * Math.PI).div(0.5).lanewise(VectorOperators.SIN));
+			case HEARTBEAT:
+			default:
+				// sin(x)^63 by repeated squaring. Lanewise POW is not intrinsified.
+				DoubleVector s = x.lanewise(VectorOperators.SIN);
+				DoubleVector s2 = s.mul(s);
+				DoubleVector s4 = s2.mul(s2);
+				DoubleVector s8 = s4.mul(s4);
+				DoubleVector s16 = s8.mul(s8);
+				DoubleVector s32 = s16.mul(s16);
+				DoubleVector s63 = s32.mul(s16).mul(s8).mul(s4).mul(s2).mul(s);
+				return s63.mul(x.add(1.5).lanewise(VectorOperators.SIN)).mul(8);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "VectorFunction [function=" + function + ", species=" + SPECIES + "]";
+		}
+	}
+
+	/**
+	 * {@linkplain VectorPolynomial} evaluates a polynomial with Horner's method
+	 * over full vectors.
+	 */
+	final static class VectorPolynomial implements ICalculation {
+		private final ICalculation scalar;
+		private final double[] coefficients;
+		private final boolean isAbs;
+		private final boolean isFma = Polynomial.isFma();
+
+		/**
+		 * @param polynomial Polynomial
+		 * @param isAbs      true to return the absolute values
+		 */
+		VectorPolynomial(Polynomial polynomial, boolean isAbs) {
+			this.scalar = isAbs ? x -> Math.abs(polynomial.calculate(x)) : polynomial;
+			this.coefficients = polynomial.getCoefficients();
+			this.isAbs = isAbs;
+		}
+
+		@Override
+		public double calculate(double baseValue) {
+			return scalar.calculate(baseValue);
+		}
+
+		@Override
+		public void calculate(double[] baseValues, double[] values, int len) {
+			final double[] c = coefficients;
+			int bound = SPECIES.loopBound(len);
+			int i = 0;
+			for (; i < bound; i += SPECIES.length()) {
+				DoubleVector x = DoubleVector.fromArray(SPECIES, baseValues, i);
+				DoubleVector y = DoubleVector.broadcast(SPECIES, c[0]);
+				for (int k = 1; k < c.length; k++) {
+					if (isFma) {
+						y = y.lanewise(VectorOperators.FMA, x, DoubleVector.broadcast(SPECIES, c[k]));
+					} else {
+						y = y.mul(x).add(c[k]);
+					}
+				}
+				(isAbs ? y.abs() : y).intoArray(values, i);
+			}
+			for (; i < len; i++) {
+				values[i] = scalar.calculate(baseValues[i]);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "VectorPolynomial [polynomial=" + new Polynomial(coefficients) + ", isAbs=" + isAbs + ", species="
+					+ SPECIES + "]";
+		}
+	}
+}